@@ -0,0 +1,162 @@
+package com.example.vehiculosapi.carga;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cliente HTTP asíncrono de la prueba de carga. Cada petición se registra en las estadísticas de
+ * su endpoint (la ruta como patrón, p. ej. {@code GET /api/vehiculos/{id}}). Guarda además los IDs
+ * de los vehículos creados para que los escenarios lean, actualicen y eliminen vehículos que existen.
+ */
+final class ClienteCarga {
+
+    private static final Duration TIEMPO_MAXIMO = Duration.ofSeconds(30);
+    private static final String[] MARCAS = {"Toyota", "Honda", "Ford", "Chevrolet", "Nissan", "BMW", "Audi", "Hyundai"};
+    private static final String[] MODELOS = {"Corolla", "Civic", "Mustang", "Camaro", "Sentra", "Serie 3", "A4", "Elantra"};
+    private static final String[] COLORES = {"Rojo", "Azul", "Negro", "Blanco", "Gris", "Plata"};
+
+    private final HttpClient http;
+    private final String base;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, EstadisticasEndpoint> estadisticas = new ConcurrentSkipListMap<>();
+    // Prefijo por ejecución: contra una instancia externa las placas no chocan con las de ejecuciones anteriores
+    private final String prefijoPlacas = Long.toString(System.currentTimeMillis() % 1_000_000, 36).toUpperCase();
+    private final AtomicLong secuenciaPlacas = new AtomicLong();
+    private final AtomicLongArray ids = new AtomicLongArray(4096);
+    private final AtomicLong siguienteHueco = new AtomicLong();
+
+    ClienteCarga(String base) {
+        this.base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    CompletableFuture<HttpResponse<String>> get(String endpoint, String ruta, long inicioPrevisto) {
+        return enviar(endpoint, peticion(ruta).GET().build(), inicioPrevisto);
+    }
+
+    CompletableFuture<HttpResponse<String>> post(String endpoint, String ruta, Object cuerpo, long inicioPrevisto) {
+        return enviar(endpoint, peticion(ruta).POST(json(cuerpo)).build(), inicioPrevisto);
+    }
+
+    CompletableFuture<HttpResponse<String>> put(String endpoint, String ruta, Object cuerpo, long inicioPrevisto) {
+        return enviar(endpoint, peticion(ruta).PUT(json(cuerpo)).build(), inicioPrevisto);
+    }
+
+    CompletableFuture<HttpResponse<String>> delete(String endpoint, String ruta, long inicioPrevisto) {
+        return enviar(endpoint, peticion(ruta).DELETE().build(), inicioPrevisto);
+    }
+
+    /**
+     * Petición de preparación o control (activar fallos, datos iniciales): no cuenta en las estadísticas.
+     */
+    HttpResponse<String> administrar(String metodo, String ruta, Object cuerpo) throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher publicador = cuerpo != null ? json(cuerpo) : HttpRequest.BodyPublishers.noBody();
+        HttpResponse<String> respuesta = http.send(peticion(ruta).method(metodo, publicador).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() >= 400) {
+            throw new IOException(metodo + " " + ruta + " respondió " + respuesta.statusCode() + ": " + respuesta.body());
+        }
+        return respuesta;
+    }
+
+    Map<String, Object> vehiculoNuevo() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Map<String, Object> vehiculo = new LinkedHashMap<>();
+        vehiculo.put("marca", MARCAS[aleatorio.nextInt(MARCAS.length)]);
+        vehiculo.put("modelo", MODELOS[aleatorio.nextInt(MODELOS.length)]);
+        vehiculo.put("anio", 2015 + aleatorio.nextInt(10));
+        vehiculo.put("color", COLORES[aleatorio.nextInt(COLORES.length)]);
+        vehiculo.put("placa", "C" + prefijoPlacas + "-" + secuenciaPlacas.incrementAndGet());
+        vehiculo.put("precio", 15000 + aleatorio.nextInt(50000));
+        return vehiculo;
+    }
+
+    /**
+     * ID del vehículo de la respuesta (0 si no lo hay), que se recuerda para las siguientes operaciones.
+     */
+    long recordarCreado(HttpResponse<String> respuesta) {
+        if (respuesta.statusCode() >= 400) {
+            return 0;
+        }
+        try {
+            JsonNode cuerpo = objectMapper.readTree(respuesta.body());
+            long id = cuerpo.path("id").asLong();
+            if (id > 0) {
+                ids.set((int) (siguienteHueco.getAndIncrement() % ids.length()), id);
+            }
+            return id;
+        } catch (JsonProcessingException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Un vehículo creado durante la prueba, o 0 si aún no hay ninguno.
+     */
+    long idAleatorio() {
+        return ids.get(posicionAleatoria());
+    }
+
+    /**
+     * Como {@link #idAleatorio()} pero lo retira, para eliminarlo sin que otra operación lo use después.
+     */
+    long retirarId() {
+        return ids.getAndSet(posicionAleatoria(), 0);
+    }
+
+    // Sólo entre las posiciones ya ocupadas alguna vez; las retiradas quedan a 0 hasta que se reutilizan
+    private int posicionAleatoria() {
+        long ocupadas = Math.min(siguienteHueco.get(), ids.length());
+        return ocupadas == 0 ? 0 : ThreadLocalRandom.current().nextInt((int) ocupadas);
+    }
+
+    List<EstadisticasEndpoint.Intervalo> cerrarIntervalo() {
+        List<EstadisticasEndpoint.Intervalo> intervalos = new ArrayList<>();
+        for (EstadisticasEndpoint endpoint : estadisticas.values()) {
+            intervalos.add(endpoint.cerrar());
+        }
+        return intervalos;
+    }
+
+    private CompletableFuture<HttpResponse<String>> enviar(String endpoint, HttpRequest peticion, long inicioPrevisto) {
+        EstadisticasEndpoint registro = estadisticas.computeIfAbsent(endpoint, EstadisticasEndpoint::new);
+        long inicio = System.nanoTime();
+        return http.sendAsync(peticion, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((respuesta, error) -> registro.registrar(inicioPrevisto, inicio, System.nanoTime(),
+                        error != null || respuesta.statusCode() >= 400));
+    }
+
+    private HttpRequest.Builder peticion(String ruta) {
+        return HttpRequest.newBuilder(URI.create(base + ruta))
+                .timeout(TIEMPO_MAXIMO)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher json(Object cuerpo) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(cuerpo));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.vehiculosapi.carga;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Los escenarios de {@code src/test/load-test} con sus mismos umbrales. Una iteración es lo que un
+ * usuario virtual de k6 hace en una pasada de su función; la primera petición parte del momento
+ * previsto por la tasa y las siguientes de la misma iteración, de cuando termina la anterior.
+ */
+enum Escenario {
+
+    /** basic-load-test.js: listar, crear, consultar, actualizar y eliminar. */
+    BASICO(500, 0.1) {
+        @Override
+        CompletableFuture<?> iterar(ClienteCarga cliente, long inicioPrevisto) {
+            Map<String, Object> vehiculo = cliente.vehiculoNuevo();
+            return cliente.get(LISTAR, "/api/vehiculos", inicioPrevisto)
+                    .thenCompose(r -> cliente.post(CREAR, "/api/vehiculos", vehiculo, System.nanoTime()))
+                    .thenCompose(creado -> {
+                        long id = cliente.recordarCreado(creado);
+                        if (id == 0) {
+                            return CompletableFuture.completedFuture(creado);
+                        }
+                        vehiculo.put("precio", ((Number) vehiculo.get("precio")).intValue() + 1000);
+                        return cliente.get(OBTENER, "/api/vehiculos/" + id, System.nanoTime())
+                                .thenCompose(r -> cliente.put(ACTUALIZAR, "/api/vehiculos/" + id, vehiculo, System.nanoTime()))
+                                .thenCompose(r -> cliente.delete(ELIMINAR, "/api/vehiculos/" + id, System.nanoTime()));
+                    });
+        }
+    },
+
+    /** stress-test.js: una operación al azar por iteración sobre un catálogo ya poblado. */
+    ESTRES(1000, 0.2) {
+        @Override
+        void preparar(ClienteCarga cliente) throws IOException, InterruptedException {
+            poblar(cliente);
+        }
+
+        @Override
+        CompletableFuture<?> iterar(ClienteCarga cliente, long inicioPrevisto) {
+            return operacionAleatoria(cliente, inicioPrevisto);
+        }
+    },
+
+    /**
+     * chaos-test.js con el inyector de fallos propio en lugar de los cambios de salud de k6: errores
+     * en el listado y en las altas y latencia en la consulta por ID, que el servicio debe absorber.
+     */
+    CAOS(1000, 0.3) {
+        @Override
+        void preparar(ClienteCarga cliente) throws IOException, InterruptedException {
+            poblar(cliente);
+            cliente.administrar("POST", "/api/chaos-monkey/inyector/operaciones/OBTENER_TODOS?probabilidadError=0.2", null);
+            cliente.administrar("POST", "/api/chaos-monkey/inyector/operaciones/CREAR?probabilidadError=0.1", null);
+            cliente.administrar("POST", "/api/chaos-monkey/inyector/rutas?metodo=GET&ruta="
+                    + URLEncoder.encode("/api/vehiculos/{id}", StandardCharsets.UTF_8)
+                    + "&probabilidadLatencia=0.1&latenciaMinima=100&latenciaMaxima=500", null);
+            cliente.administrar("POST", "/api/chaos-monkey/inyector/enable", null);
+        }
+
+        @Override
+        CompletableFuture<?> iterar(ClienteCarga cliente, long inicioPrevisto) {
+            return operacionAleatoria(cliente, inicioPrevisto);
+        }
+
+        @Override
+        void terminar(ClienteCarga cliente) throws IOException, InterruptedException {
+            cliente.administrar("DELETE", "/api/chaos-monkey/inyector/reglas", null);
+            cliente.administrar("POST", "/api/chaos-monkey/inyector/disable", null);
+        }
+    };
+
+    static final String LISTAR = "GET /api/vehiculos";
+    static final String CREAR = "POST /api/vehiculos";
+    static final String OBTENER = "GET /api/vehiculos/{id}";
+    static final String ACTUALIZAR = "PUT /api/vehiculos/{id}";
+    static final String ELIMINAR = "DELETE /api/vehiculos/{id}";
+
+    private static final int VEHICULOS_INICIALES = 200;
+
+    private final long p95MaximoMs;
+    private final double tasaErroresMaxima;
+
+    Escenario(long p95MaximoMs, double tasaErroresMaxima) {
+        this.p95MaximoMs = p95MaximoMs;
+        this.tasaErroresMaxima = tasaErroresMaxima;
+    }
+
+    long getP95MaximoMs() {
+        return p95MaximoMs;
+    }
+
+    double getTasaErroresMaxima() {
+        return tasaErroresMaxima;
+    }
+
+    /**
+     * Se ejecuta antes del calentamiento y no se mide.
+     */
+    void preparar(ClienteCarga cliente) throws IOException, InterruptedException {
+    }
+
+    abstract CompletableFuture<?> iterar(ClienteCarga cliente, long inicioPrevisto);
+
+    void terminar(ClienteCarga cliente) throws IOException, InterruptedException {
+    }
+
+    private static void poblar(ClienteCarga cliente) throws IOException, InterruptedException {
+        for (int i = 0; i < VEHICULOS_INICIALES; i++) {
+            cliente.recordarCreado(cliente.administrar("POST", "/api/vehiculos", cliente.vehiculoNuevo()));
+        }
+    }
+
+    private static CompletableFuture<?> operacionAleatoria(ClienteCarga cliente, long inicioPrevisto) {
+        switch (ThreadLocalRandom.current().nextInt(5)) {
+            case 0:
+                return cliente.get(LISTAR, "/api/vehiculos", inicioPrevisto);
+            case 1:
+                return crear(cliente, inicioPrevisto);
+            case 2: {
+                long id = cliente.idAleatorio();
+                return id == 0 ? crear(cliente, inicioPrevisto)
+                        : cliente.get(OBTENER, "/api/vehiculos/" + id, inicioPrevisto);
+            }
+            case 3: {
+                long id = cliente.idAleatorio();
+                return id == 0 ? crear(cliente, inicioPrevisto)
+                        : cliente.put(ACTUALIZAR, "/api/vehiculos/" + id, cliente.vehiculoNuevo(), inicioPrevisto);
+            }
+            default: {
+                long id = cliente.retirarId();
+                return id == 0 ? crear(cliente, inicioPrevisto)
+                        : cliente.delete(ELIMINAR, "/api/vehiculos/" + id, inicioPrevisto);
+            }
+        }
+    }
+
+    private static CompletableFuture<HttpResponse<String>> crear(ClienteCarga cliente, long inicioPrevisto) {
+        return cliente.post(CREAR, "/api/vehiculos", cliente.vehiculoNuevo(), inicioPrevisto)
+                .thenApply(respuesta -> {
+                    cliente.recordarCreado(respuesta);
+                    return respuesta;
+                });
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.vehiculosapi.carga;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias de un endpoint en nanosegundos. La corregida se mide desde el momento en que la
+ * petición debía salir según la tasa objetivo, de modo que incluye la espera que el generador
+ * habría omitido (coordinated omission); la de servicio, desde que salió de verdad.
+ */
+final class EstadisticasEndpoint {
+
+    private final String nombre;
+    private final Recorder corregida = new Recorder(3);
+    private final Recorder servicio = new Recorder(3);
+    private final LongAdder errores = new LongAdder();
+
+    EstadisticasEndpoint(String nombre) {
+        this.nombre = nombre;
+    }
+
+    void registrar(long inicioPrevisto, long inicioReal, long fin, boolean error) {
+        corregida.recordValue(Math.max(0, fin - Math.min(inicioPrevisto, inicioReal)));
+        servicio.recordValue(Math.max(0, fin - inicioReal));
+        if (error) {
+            errores.increment();
+        }
+    }
+
+    /**
+     * Lo registrado desde la llamada anterior (o desde el principio), y vuelve a empezar.
+     */
+    Intervalo cerrar() {
+        return new Intervalo(nombre, corregida.getIntervalHistogram(), servicio.getIntervalHistogram(),
+                errores.sumThenReset());
+    }
+
+    record Intervalo(String endpoint, Histogram corregida, Histogram servicio, long errores) {
+
+        long peticiones() {
+            return corregida.getTotalCount();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.vehiculosapi.carga;
+
+import com.example.vehiculosapi.VehiculosApiApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga de lazo abierto: las iteraciones del escenario salen a la tasa pedida,
+ * respondan o no las anteriores, igual que el ejecutor {@code constant-arrival-rate} de k6. La
+ * latencia se mide desde el momento en que cada iteración debía salir, así que un atasco del
+ * servidor aparece entero en los percentiles en lugar de frenar al generador y esconderse
+ * (coordinated omission). En modo {@code cerrado} cada usuario espera su respuesta antes de seguir,
+ * como los usuarios virtuales de k6, pero mantiene su calendario y se mide igual.
+ *
+ * <p>Sin {@code --url} arranca la aplicación en el mismo proceso en un puerto libre.
+ * Ejecutar con {@code mvn -Pcarga test-compile exec:exec}; las opciones están en el perfil.
+ */
+public final class GeneradorCarga {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final double NANOS_POR_MS = 1_000_000.0;
+
+    private final Escenario escenario;
+    private final ClienteCarga cliente;
+    private final int maximoEnVuelo;
+    private final LongAdder descartadas = new LongAdder();
+
+    private GeneradorCarga(Escenario escenario, ClienteCarga cliente, int maximoEnVuelo) {
+        this.escenario = escenario;
+        this.cliente = cliente;
+        this.maximoEnVuelo = maximoEnVuelo;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = opciones(args);
+        Escenario escenario = Escenario.valueOf(opciones.getOrDefault("escenario", "basico").toUpperCase(Locale.ROOT));
+        boolean abierto = !"cerrado".equalsIgnoreCase(opciones.getOrDefault("modo", "abierto"));
+        double tasa = Double.parseDouble(opciones.getOrDefault("tasa", "50"));
+        int usuarios = Integer.parseInt(opciones.getOrDefault("usuarios", "20"));
+        Duration duracion = DurationStyle.detectAndParse(opciones.getOrDefault("duracion", "30s"));
+        Duration calentamiento = DurationStyle.detectAndParse(opciones.getOrDefault("calentamiento", "10s"));
+        int maximoEnVuelo = Integer.parseInt(opciones.getOrDefault("max-en-vuelo", "1000"));
+        Path salida = Path.of(opciones.getOrDefault("salida", "target/carga"));
+        String url = opciones.getOrDefault("url", "");
+
+        ConfigurableApplicationContext aplicacion = null;
+        boolean cumple;
+        try {
+            if (url.isBlank()) {
+                aplicacion = arrancar(opciones.getOrDefault("perfiles", ""));
+                url = "http://localhost:" + aplicacion.getEnvironment().getProperty("local.server.port");
+            }
+            GeneradorCarga generador = new GeneradorCarga(escenario, new ClienteCarga(url), maximoEnVuelo);
+            System.out.printf(Locale.ROOT, "Escenario %s contra %s: %s, %.0f iteraciones/s%s, %ds de calentamiento y %ds de medida%n",
+                    escenario.name().toLowerCase(Locale.ROOT), url, abierto ? "lazo abierto" : "lazo cerrado", tasa,
+                    abierto ? "" : " entre " + usuarios + " usuarios", calentamiento.toSeconds(), duracion.toSeconds());
+            escenario.preparar(generador.cliente);
+            try {
+                generador.ejecutar(abierto, tasa, usuarios, calentamiento);
+                generador.cliente.cerrarIntervalo();
+                generador.descartadas.reset();
+                long inicio = System.nanoTime();
+                generador.ejecutar(abierto, tasa, usuarios, duracion);
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+                cumple = generador.informar(generador.cliente.cerrarIntervalo(), segundos, salida);
+            } finally {
+                escenario.terminar(generador.cliente);
+            }
+        } finally {
+            if (aplicacion != null) {
+                aplicacion.close();
+            }
+        }
+        System.exit(cumple ? 0 : 1);
+    }
+
+    private static ConfigurableApplicationContext arrancar(String perfiles) {
+        List<String> argumentos = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                // Los asaltos de Chaos Monkey están activos por defecto; el escenario caos usa el inyector propio
+                "--chaos.monkey.assaults.latency-active=false",
+                "--chaos.monkey.assaults.exceptions-active=false",
+                "--chaos.monkey.assaults.memory-active=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.vehiculosapi=WARN"));
+        if (!perfiles.isBlank()) {
+            argumentos.add("--spring.profiles.active=" + perfiles);
+        }
+        return SpringApplication.run(VehiculosApiApplication.class, argumentos.toArray(String[]::new));
+    }
+
+    private void ejecutar(boolean abierto, double tasa, int usuarios, Duration duracion) throws InterruptedException {
+        if (abierto) {
+            ejecutarAbierto(tasa, duracion.toNanos());
+        } else {
+            ejecutarCerrado(tasa, usuarios, duracion.toNanos());
+        }
+    }
+
+    /**
+     * Un solo hilo despacha las iteraciones en su instante previsto sin esperar respuestas. Si ya hay
+     * {@code max-en-vuelo} iteraciones sin terminar, la nueva se descarta y se cuenta: el servidor
+     * no da abasto a esa tasa y el resultado no es representativo.
+     */
+    private void ejecutarAbierto(double tasa, long duracionNanos) throws InterruptedException {
+        Semaphore enVuelo = new Semaphore(maximoEnVuelo);
+        long intervalo = (long) (1e9 / tasa);
+        long inicio = System.nanoTime();
+        for (long i = 0; ; i++) {
+            long previsto = inicio + i * intervalo;
+            if (previsto - inicio >= duracionNanos) {
+                break;
+            }
+            esperarHasta(previsto);
+            if (!enVuelo.tryAcquire()) {
+                descartadas.increment();
+                continue;
+            }
+            escenario.iterar(cliente, previsto).whenComplete((r, error) -> enVuelo.release());
+        }
+        // Las que siguen en vuelo pertenecen a este intervalo
+        if (enVuelo.tryAcquire(maximoEnVuelo, 60, TimeUnit.SECONDS)) {
+            enVuelo.release(maximoEnVuelo);
+        }
+    }
+
+    /**
+     * Cada usuario tiene su propio calendario ({@code usuarios / tasa} segundos entre iteraciones).
+     * Si una respuesta lenta lo retrasa, la siguiente iteración sale enseguida pero se mide desde
+     * su instante previsto, así que la espera acumulada no se pierde.
+     */
+    private void ejecutarCerrado(double tasa, int usuarios, long duracionNanos) throws InterruptedException {
+        long ritmo = (long) (usuarios * 1e9 / tasa);
+        long inicio = System.nanoTime();
+        List<Thread> hilos = new ArrayList<>(usuarios);
+        for (int u = 0; u < usuarios; u++) {
+            long desfase = ritmo * u / usuarios;
+            Thread hilo = new Thread(() -> {
+                for (long previsto = inicio + desfase; previsto - inicio < duracionNanos; previsto += ritmo) {
+                    esperarHasta(previsto);
+                    try {
+                        escenario.iterar(cliente, previsto).join();
+                    } catch (CompletionException e) {
+                        // Ya contado como error en las estadísticas del endpoint
+                    }
+                }
+            }, "usuario-carga-" + u);
+            hilo.setDaemon(true);
+            hilo.start();
+            hilos.add(hilo);
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+    }
+
+    private static void esperarHasta(long instante) {
+        long restante;
+        while ((restante = instante - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+
+    /**
+     * Imprime la tabla de percentiles por endpoint, guarda los histogramas en {@code .hgrm}
+     * (se pueden dibujar con el HdrHistogram plotter) y comprueba los umbrales del escenario.
+     */
+    private boolean informar(List<EstadisticasEndpoint.Intervalo> intervalos, double segundos, Path salida) throws IOException {
+        Files.createDirectories(salida);
+        Histogram total = new Histogram(3);
+        long peticiones = 0;
+        long errores = 0;
+        StringBuilder tabla = new StringBuilder();
+        tabla.append(String.format(Locale.ROOT, "%n%-26s %9s %8s %9s %9s %9s %9s %9s %9s %13s%n",
+                "Endpoint (ms, corregida)", "Peticiones", "Errores", "p50", "p90", "p99", "p99.9", "p99.99", "max", "p99 servicio"));
+        for (EstadisticasEndpoint.Intervalo intervalo : intervalos) {
+            if (intervalo.peticiones() == 0) {
+                continue;
+            }
+            Histogram corregida = intervalo.corregida();
+            tabla.append(String.format(Locale.ROOT, "%-26s %9d %8d", intervalo.endpoint(), intervalo.peticiones(), intervalo.errores()));
+            for (double percentil : PERCENTILES) {
+                tabla.append(String.format(Locale.ROOT, " %9.2f", corregida.getValueAtPercentile(percentil) / NANOS_POR_MS));
+            }
+            tabla.append(String.format(Locale.ROOT, " %9.2f %13.2f%n", corregida.getMaxValue() / NANOS_POR_MS,
+                    intervalo.servicio().getValueAtPercentile(99) / NANOS_POR_MS));
+            total.add(corregida);
+            peticiones += intervalo.peticiones();
+            errores += intervalo.errores();
+            guardar(salida.resolve(nombreArchivo(intervalo.endpoint())), corregida);
+        }
+        guardar(salida.resolve(escenario.name().toLowerCase(Locale.ROOT) + "-total.hgrm"), total);
+        System.out.print(tabla);
+
+        double p95 = total.getValueAtPercentile(95) / NANOS_POR_MS;
+        double tasaErrores = peticiones == 0 ? 1 : (double) errores / peticiones;
+        boolean latenciaOk = p95 < escenario.getP95MaximoMs();
+        boolean erroresOk = tasaErrores < escenario.getTasaErroresMaxima();
+        System.out.printf(Locale.ROOT, "%n%d peticiones en %.1fs (%.1f/s), %d iteraciones descartadas por exceso en vuelo%n",
+                peticiones, segundos, peticiones / segundos, descartadas.sum());
+        System.out.printf(Locale.ROOT, "Umbral p95 < %d ms: %s (%.2f ms)%n", escenario.getP95MaximoMs(),
+                latenciaOk ? "OK" : "FALLA", p95);
+        System.out.printf(Locale.ROOT, "Umbral errores < %.0f%%: %s (%.2f%%)%n", escenario.getTasaErroresMaxima() * 100,
+                erroresOk ? "OK" : "FALLA", tasaErrores * 100);
+        System.out.println("Histogramas en " + salida.toAbsolutePath());
+        return latenciaOk && erroresOk && descartadas.sum() == 0;
+    }
+
+    private String nombreArchivo(String endpoint) {
+        return escenario.name().toLowerCase(Locale.ROOT) + "-"
+                + endpoint.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("-$", "") + ".hgrm";
+    }
+
+    private static void guardar(Path archivo, Histogram histograma) throws IOException {
+        try (PrintStream salida = new PrintStream(Files.newOutputStream(archivo), false, "UTF-8")) {
+            histograma.outputPercentileDistribution(salida, NANOS_POR_MS);
+        }
+    }
+
+    private static Map<String, String> opciones(String[] args) {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int igual = arg.indexOf('=');
+                opciones.put(arg.substring(2, igual), arg.substring(igual + 1));
+            }
+        }
+        return opciones;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.vehiculosapi.benchmark;
+
+import com.example.vehiculosapi.almacen.VehiculoRepositoryFueraDelHeap;
+import com.example.vehiculosapi.model.Vehiculo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecturas de {@link VehiculoRepositoryFueraDelHeap} (perfil {@code fuera-de-heap}) sin Spring
+ * ni HTTP por medio: búsqueda por ID y por placa y una página de una marca. Al preparar cada
+ * tamaño imprime el heap que ocupa el catálogo frente al de un {@code HashMap} con las entidades,
+ * y los bytes reservados fuera del heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AlmacenFueraDelHeapBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int filas;
+
+    private VehiculoRepositoryFueraDelHeap repositorio;
+    // Claves precalculadas para no medir la generación de la placa
+    private final String[] placas = new String[1024];
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        long conMapa = heapConMapa();
+        long antes = heapUsado();
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        repositorio = new VehiculoRepositoryFueraDelHeap(registro);
+        List<Vehiculo> lote = new ArrayList<>();
+        for (int i = 0; i < filas; i++) {
+            lote.add(ContextoBenchmark.vehiculo(i));
+            if (lote.size() == 1000) {
+                repositorio.saveAll(lote);
+                lote = new ArrayList<>();
+            }
+        }
+        repositorio.saveAll(lote);
+        long conAlmacen = heapUsado() - antes;
+        long fuera = (long) registro.get("vehiculos.almacen.memoria").gauge().value();
+        System.out.printf("%n%d vehículos: HashMap de entidades %d KiB de heap; almacén %d KiB de heap + %d KiB fuera%n",
+                filas, conMapa / 1024, conAlmacen / 1024, fuera / 1024);
+        for (int i = 0; i < placas.length; i++) {
+            placas[i] = String.format("BEN%07d", ThreadLocalRandom.current().nextInt(filas));
+        }
+    }
+
+    @Benchmark
+    public Optional<Vehiculo> buscarPorId() {
+        return repositorio.findById(ThreadLocalRandom.current().nextLong(1, filas + 1));
+    }
+
+    @Benchmark
+    public boolean existePlaca() {
+        return repositorio.existsByPlaca(placas[siguiente++ & (placas.length - 1)]);
+    }
+
+    @Benchmark
+    public List<Vehiculo> paginaPorMarca() {
+        long desde = ThreadLocalRandom.current().nextLong(filas);
+        return repositorio.findByMarcaAndIdGreaterThanOrderByIdAsc("Toyota", desde, Limit.of(21));
+    }
+
+    private long heapConMapa() {
+        long antes = heapUsado();
+        Map<Long, Vehiculo> enHeap = new HashMap<>();
+        for (int i = 0; i < filas; i++) {
+            Vehiculo vehiculo = ContextoBenchmark.vehiculo(i);
+            vehiculo.setId((long) i + 1);
+            vehiculo.setVersion(0L);
+            enHeap.put(vehiculo.getId(), vehiculo);
+        }
+        long usado = heapUsado() - antes;
+        // Sin esto el compilador puede dar el mapa por muerto antes de medirlo
+        Reference.reachabilityFence(enHeap);
+        return usado;
+    }
+
+    private static long heapUsado() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.vehiculosapi.benchmark;
+
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de la cadena de aspectos {@code @CircuitBreaker} + {@code @Retry} que envuelve cada
+ * método de {@code VehiculoService}, aislado del acceso a datos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AspectosResilienciaBenchmark {
+
+    private ConfigurableApplicationContext contexto;
+    private OperacionProtegida proxy;
+    private OperacionProtegida directa;
+    private long valor;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = ContextoBenchmark.iniciar(Configuracion.class);
+        proxy = contexto.getBean(OperacionProtegida.class);
+        directa = new OperacionProtegida();
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public long sinAspectos() {
+        return directa.ejecutar(++valor);
+    }
+
+    @Benchmark
+    public long conCircuitBreakerYRetry() {
+        return proxy.ejecutar(++valor);
+    }
+
+    @Configuration
+    public static class Configuracion {
+        @Bean
+        public OperacionProtegida operacionProtegida() {
+            return new OperacionProtegida();
+        }
+    }
+
+    public static class OperacionProtegida {
+        @CircuitBreaker(name = "vehiculoService")
+        @Retry(name = "vehiculoService")
+        public long ejecutar(long valor) {
+            return valor * 31;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.vehiculosapi.benchmark;
+
+import com.example.vehiculosapi.dto.Cursor;
+import com.example.vehiculosapi.dto.FiltroVehiculos;
+import com.example.vehiculosapi.dto.OrdenBusqueda;
+import com.example.vehiculosapi.dto.Pagina;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.service.VehiculoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsquedas de {@link VehiculoService#buscar} con distintos tamaños de tabla. Si las consultas
+ * usan los índices declarados en {@link Vehiculo}, el tiempo por página apenas crece con la tabla.
+ * Al preparar cada tamaño se comprueba con EXPLAIN que ninguna consulta recorre la tabla entera.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BusquedaBenchmark {
+
+    // Consultas equivalentes a las que genera la búsqueda para cada predicado soportado
+    private static final String[] CONSULTAS = {
+            "select * from vehiculos where marca = 'Toyota' and anio >= 2018 and anio <= 2022 order by id limit 21",
+            "select * from vehiculos where marca = 'Toyota' and id > 5000 order by id limit 21",
+            "select * from vehiculos where modelo = 'Modelo 7' order by id limit 21",
+            "select * from vehiculos where anio >= 2010 and anio <= 2012 order by anio, id limit 21",
+            "select * from vehiculos where precio is not null and (precio > 20000 or (precio = 20000 and id > 100))"
+                    + " order by precio, id limit 21"
+    };
+
+    @Param({"10000", "100000"})
+    private int vehiculos;
+
+    private ConfigurableApplicationContext contexto;
+    private VehiculoService vehiculoService;
+    private FiltroVehiculos toyotasRecientes;
+    private FiltroVehiculos porModelo;
+    private FiltroVehiculos baratos;
+    private Cursor.Posicion mitadPorPrecio;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = ContextoBenchmark.iniciar();
+        vehiculoService = contexto.getBean(VehiculoService.class);
+        List<Vehiculo> lote = new ArrayList<>();
+        for (int i = 0; i < vehiculos; i++) {
+            lote.add(ContextoBenchmark.vehiculo(i));
+            if (lote.size() == 1000) {
+                vehiculoService.crearLote(lote, false);
+                lote = new ArrayList<>();
+            }
+        }
+        comprobarPlanes(contexto.getBean(JdbcTemplate.class));
+        toyotasRecientes = new FiltroVehiculos("Toyota", null, 2018, 2022, null, 50000.0);
+        porModelo = new FiltroVehiculos(null, "Modelo 7", null, null, null, null);
+        baratos = new FiltroVehiculos(null, null, null, null, null, 20000.0);
+        mitadPorPrecio = new Cursor.Posicion("precio", "30000.0", vehiculos / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Pagina<Vehiculo> marcaYRangoDeAnios() {
+        return vehiculoService.buscar(toyotasRecientes, OrdenBusqueda.ID, false, null, 20);
+    }
+
+    @Benchmark
+    public Pagina<Vehiculo> modelo() {
+        return vehiculoService.buscar(porModelo, OrdenBusqueda.ID, false, null, 20);
+    }
+
+    @Benchmark
+    public Pagina<Vehiculo> precioMaximoOrdenadoPorAnio() {
+        return vehiculoService.buscar(baratos, OrdenBusqueda.ANIO, true, null, 20);
+    }
+
+    @Benchmark
+    public Pagina<Vehiculo> paginaIntermediaPorPrecio() {
+        return vehiculoService.buscar(new FiltroVehiculos(null, null, null, null, null, null),
+                OrdenBusqueda.PRECIO, false, mitadPorPrecio, 20);
+    }
+
+    private static void comprobarPlanes(JdbcTemplate jdbcTemplate) {
+        for (String consulta : CONSULTAS) {
+            String plan = jdbcTemplate.queryForObject("explain " + consulta, String.class);
+            if (plan == null || plan.contains("tableScan")) {
+                throw new IllegalStateException("La consulta recorre la tabla completa:\n" + plan);
+            }
+        }
+    }
+}
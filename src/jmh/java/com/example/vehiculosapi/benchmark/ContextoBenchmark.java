@@ -0,0 +1,43 @@
+package com.example.vehiculosapi.benchmark;
+
+import com.example.vehiculosapi.VehiculosApiApplication;
+import com.example.vehiculosapi.model.Vehiculo;
+import de.codecentric.spring.boot.chaos.monkey.configuration.ChaosMonkeySettings;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Arranque de la aplicación para los benchmarks: sin servidor web, sin SQL en consola
+ * y con Chaos Monkey desactivado para que los asaltos no contaminen las mediciones.
+ */
+final class ContextoBenchmark {
+
+    private ContextoBenchmark() {
+    }
+
+    static ConfigurableApplicationContext iniciar(Class<?>... configuracionesExtra) {
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(VehiculosApiApplication.class)
+                .sources(configuracionesExtra)
+                .web(WebApplicationType.NONE)
+                // Como argumentos y no como propiedades por defecto, que application.properties sobrescribiría
+                .run("--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        // JMH ya calienta cada benchmark con sus propias iteraciones
+                        "--vehiculos.calentamiento.activo=false");
+        contexto.getBean(ChaosMonkeySettings.class).getChaosMonkeyProperties().setEnabled(false);
+        return contexto;
+    }
+
+    static Vehiculo vehiculo(int i) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setMarca(i % 3 == 0 ? "Toyota" : i % 3 == 1 ? "Honda" : "Ford");
+        vehiculo.setModelo("Modelo " + (i % 20));
+        vehiculo.setAnio(2000 + i % 25);
+        vehiculo.setColor(i % 2 == 0 ? "Rojo" : "Azul");
+        vehiculo.setPlaca(String.format("BEN%07d", i));
+        vehiculo.setPrecio(10000.0 + (i % 500) * 100);
+        return vehiculo;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.vehiculosapi.benchmark;
+
+import com.example.vehiculosapi.chaos.InyectorFallos;
+import com.example.vehiculosapi.metrics.Operacion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sobrecoste de la inyección de fallos en una operación cuando no hay nada que inyectar.
+ * {@code inyectorDesactivado} y {@code rutaDesactivada} son el camino de todas las peticiones con el
+ * inyector apagado; {@code inyectorActivoSinFallos}, el de una operación sin probabilidad asignada.
+ * {@code proxyVigilante} reproduce lo mínimo que paga un bean vigilado por los watchers de Chaos Monkey
+ * con los asaltos apagados: llamada a través del proxy y comprobación de si está activo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InyectorFallosBenchmark {
+
+    private InyectorFallos desactivado;
+    private InyectorFallos activo;
+    private OperacionVigilada proxy;
+    private volatile boolean vigilanteActivo;
+    private long valor;
+
+    @Setup
+    public void iniciar() {
+        desactivado = new InyectorFallos(new SimpleMeterRegistry(), false, 0.0);
+        activo = new InyectorFallos(new SimpleMeterRegistry(), true, 0.0);
+        BooleanSupplier habilitado = () -> vigilanteActivo;
+        ProxyFactory fabrica = new ProxyFactory(new OperacionVigilada());
+        fabrica.setProxyTargetClass(true);
+        fabrica.addAdvice((MethodInterceptor) invocacion -> {
+            if (habilitado.getAsBoolean()) {
+                throw new IllegalStateException("Asalto");
+            }
+            return invocacion.proceed();
+        });
+        proxy = (OperacionVigilada) fabrica.getProxy();
+    }
+
+    @Benchmark
+    public long sinInyeccion() {
+        return operacion();
+    }
+
+    @Benchmark
+    public long inyectorDesactivado() {
+        desactivado.inyectar(Operacion.OBTENER_POR_ID);
+        return operacion();
+    }
+
+    @Benchmark
+    public long inyectorActivoSinFallos() {
+        activo.inyectar(Operacion.OBTENER_POR_ID);
+        return operacion();
+    }
+
+    @Benchmark
+    public Object rutaDesactivada() {
+        return desactivado.sortearRuta("GET", "/api/vehiculos/42");
+    }
+
+    @Benchmark
+    public long proxyVigilante() {
+        return proxy.ejecutar(++valor);
+    }
+
+    private long operacion() {
+        return ++valor;
+    }
+
+    public static class OperacionVigilada {
+        public long ejecutar(long valor) {
+            return valor * 31;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.vehiculosapi.benchmark;
+
+import com.example.vehiculosapi.config.MetricsConfig;
+import com.example.vehiculosapi.metrics.MedicionOperacionInterceptor;
+import com.example.vehiculosapi.metrics.Medido;
+import com.example.vehiculosapi.metrics.Operacion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sobrecoste de instrumentar una operación del servicio. {@code legado} reproduce la instrumentación
+ * anterior (búsqueda del contador y del timer en el registro, lambda y {@code Timer.Sample} por llamada);
+ * {@code medidoresPrecargados} y {@code interceptorMedido} usan los medidores registrados al arrancar.
+ * Ejecutar con {@code -prof gc} para comparar la tasa de asignación ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MetricsBenchmark {
+
+    private MeterRegistry meterRegistry;
+    private MetricsConfig metricsConfig;
+    private OperacionMedida proxy;
+    private long valor;
+
+    @Setup
+    public void iniciar() {
+        meterRegistry = new SimpleMeterRegistry();
+        metricsConfig = new MetricsConfig(meterRegistry);
+        ProxyFactory fabrica = new ProxyFactory(new OperacionMedida());
+        fabrica.setProxyTargetClass(true);
+        fabrica.addAdvisor(new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forMethodAnnotation(Medido.class),
+                new MedicionOperacionInterceptor(() -> metricsConfig)));
+        proxy = (OperacionMedida) fabrica.getProxy();
+    }
+
+    @Benchmark
+    public long sinMetricas() {
+        return operacion();
+    }
+
+    @Benchmark
+    public long legado() {
+        return registrarComoAntes(() -> {
+            meterRegistry.counter("vehiculo.operacion", "tipo", "consulta_por_id").increment();
+            return operacion();
+        }, "obtenerPorId");
+    }
+
+    @Benchmark
+    public long medidoresPrecargados() {
+        metricsConfig.contar(Operacion.OBTENER_POR_ID);
+        long inicio = System.nanoTime();
+        try {
+            return operacion();
+        } finally {
+            metricsConfig.registrarTiempo(Operacion.OBTENER_POR_ID, System.nanoTime() - inicio);
+        }
+    }
+
+    @Benchmark
+    public long interceptorMedido() {
+        return proxy.ejecutar(++valor);
+    }
+
+    private long operacion() {
+        return ++valor;
+    }
+
+    private <T> T registrarComoAntes(Supplier<T> operacion, String nombre) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return operacion.get();
+        } finally {
+            sample.stop(meterRegistry.timer("vehiculo.operacion.tiempo", "operacion", nombre));
+        }
+    }
+
+    public static class OperacionMedida {
+        @Medido(Operacion.OBTENER_POR_ID)
+        public long ejecutar(long valor) {
+            return valor * 31;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.vehiculosapi.benchmark;
+
+import com.example.vehiculosapi.config.FormatosConfig;
+import com.example.vehiculosapi.dto.Pagina;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización con Jackson de listas de {@link Vehiculo} de distintos tamaños, en JSON y en los
+ * formatos binarios negociables (CBOR y Smile). Los benchmarks {@code lista*} escriben un objeto por
+ * vehículo; los {@code pagina*} escriben la {@link Pagina} como la sirve la API, por columnas en los
+ * formatos binarios. Al preparar cada tamaño se imprimen los bytes que ocupa cada variante.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializacionBenchmark {
+
+    @Param({"20", "1000", "100000"})
+    private int tamano;
+
+    private ObjectWriter writer;
+    private ObjectWriter cbor;
+    private ObjectWriter smile;
+    private ObjectWriter cborColumnar;
+    private ObjectWriter smileColumnar;
+    private List<Vehiculo> vehiculos;
+    private Pagina<Vehiculo> pagina;
+
+    @Setup
+    public void iniciar() throws JsonProcessingException {
+        writer = new ObjectMapper().writer();
+        cbor = new ObjectMapper(new CBORFactory()).writer();
+        smile = new ObjectMapper(FormatosConfig.fabricaSmile()).writer();
+        cborColumnar = new ObjectMapper(new CBORFactory()).registerModule(FormatosConfig.moduloColumnar()).writer();
+        smileColumnar = new ObjectMapper(FormatosConfig.fabricaSmile()).registerModule(FormatosConfig.moduloColumnar()).writer();
+        vehiculos = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            Vehiculo vehiculo = ContextoBenchmark.vehiculo(i);
+            vehiculo.setId((long) i + 1);
+            vehiculo.setVersion(0L);
+            vehiculos.add(vehiculo);
+        }
+        pagina = new Pagina<>(vehiculos, "aWQ6MTAw");
+        System.out.printf("%nBytes con %d vehículos: json=%d cbor=%d smile=%d cborColumnar=%d smileColumnar=%d%n",
+                tamano, json().length, listaCbor().length, listaSmile().length, paginaCbor().length, paginaSmile().length);
+    }
+
+    @Benchmark
+    public byte[] json() throws JsonProcessingException {
+        return writer.writeValueAsBytes(vehiculos);
+    }
+
+    @Benchmark
+    public byte[] listaCbor() throws JsonProcessingException {
+        return cbor.writeValueAsBytes(vehiculos);
+    }
+
+    @Benchmark
+    public byte[] listaSmile() throws JsonProcessingException {
+        return smile.writeValueAsBytes(vehiculos);
+    }
+
+    @Benchmark
+    public byte[] paginaJson() throws JsonProcessingException {
+        return writer.writeValueAsBytes(pagina);
+    }
+
+    @Benchmark
+    public byte[] paginaCbor() throws JsonProcessingException {
+        return cborColumnar.writeValueAsBytes(pagina);
+    }
+
+    @Benchmark
+    public byte[] paginaSmile() throws JsonProcessingException {
+        return smileColumnar.writeValueAsBytes(pagina);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.vehiculosapi.benchmark;
+
+import com.example.vehiculosapi.dto.Pagina;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.service.VehiculoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Operaciones CRUD de {@link VehiculoService} contra H2, incluyendo los aspectos de
+ * Resilience4j, la caché y las métricas tal y como se ejecutan en producción.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VehiculoServiceBenchmark {
+
+    private static final int VEHICULOS = 10_000;
+
+    private ConfigurableApplicationContext contexto;
+    private VehiculoService vehiculoService;
+    private CacheManager cacheManager;
+    private final AtomicInteger secuencia = new AtomicInteger(VEHICULOS);
+    private long primerId;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = ContextoBenchmark.iniciar();
+        vehiculoService = contexto.getBean(VehiculoService.class);
+        cacheManager = contexto.getBean(CacheManager.class);
+        List<Vehiculo> lote = new ArrayList<>();
+        for (int i = 0; i < VEHICULOS; i++) {
+            lote.add(ContextoBenchmark.vehiculo(i));
+            if (lote.size() == 1000) {
+                vehiculoService.crearLote(lote, false);
+                lote = new ArrayList<>();
+            }
+        }
+        primerId = vehiculoService.obtenerTodos(null, null, 1).elementos().get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Vehiculo obtenerPorIdCacheado() {
+        return vehiculoService.obtenerPorId(primerId);
+    }
+
+    @Benchmark
+    public Vehiculo obtenerPorIdSinCache() {
+        cacheManager.getCache("vehiculos").evict(primerId);
+        return vehiculoService.obtenerPorId(primerId);
+    }
+
+    @Benchmark
+    public Pagina<Vehiculo> obtenerPagina() {
+        return vehiculoService.obtenerTodos(null, primerId + VEHICULOS / 2, 20);
+    }
+
+    @Benchmark
+    public Vehiculo crearYEliminar() {
+        Vehiculo creado = vehiculoService.crear(ContextoBenchmark.vehiculo(secuencia.incrementAndGet()));
+        vehiculoService.eliminar(creado.getId());
+        return creado;
+    }
+
+    @Benchmark
+    public Vehiculo actualizar() {
+        Vehiculo cambios = ContextoBenchmark.vehiculo(0);
+        cambios.setColor(secuencia.incrementAndGet() % 2 == 0 ? "Verde" : "Negro");
+        return vehiculoService.actualizar(primerId, cambios, null);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.vehiculosapi.almacen;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Perfil {@code fuera-de-heap}: el catálogo vive en {@link VehiculoRepositoryFueraDelHeap} en lugar
+ * de en H2 a través de Hibernate, que no se configura (ver application-fuera-de-heap.properties).
+ */
+@Configuration
+@Profile("fuera-de-heap")
+public class AlmacenFueraDelHeapConfig {
+
+    // Sustituye al gestor JDBC que Spring Boot crearía para el DataSource, que sólo usa la salud
+    @Bean
+    public PlatformTransactionManager transactionManager() {
+        return new TransaccionesSinRecurso();
+    }
+}
@@ -0,0 +1,567 @@
+package com.example.vehiculosapi.almacen;
+
+import com.example.vehiculosapi.dto.CamposVehiculo;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.repository.CriterioVehiculo;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Catálogo de vehículos en {@link RegistrosVehiculos} con índices hash por ID y por placa.
+ * Cada operación es atómica bajo un cerrojo de lectura/escritura; los vehículos que devuelve son
+ * copias sin relación con el almacén, y para cambiar uno hay que volver a guardarlo. Dentro de una
+ * transacción de {@link TransaccionesSinRecurso} cada escritura anota cómo deshacerse si se revierte.
+ * Las bajas dejan huecos que se compactan cuando superan a los registros vivos y llenan al menos
+ * un segmento.
+ */
+final class AlmacenVehiculos {
+
+    private static final Comparator<Comparable<Object>> NULOS_PRIMERO = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final ReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private final RegistrosVehiculos registros = new RegistrosVehiculos();
+    private final IndiceIds porId = new IndiceIds();
+    private final IndicePlacasRegistros porPlaca = new IndicePlacasRegistros(registros);
+    private final Diccionario marcas = new Diccionario();
+    private final Diccionario modelos = new Diccionario();
+    private final Diccionario colores = new Diccionario();
+    private long ultimoId;
+    private int vivos;
+
+    Vehiculo buscar(long id) {
+        cerrojo.readLock().lock();
+        try {
+            int posicion = porId.buscar(id);
+            return posicion >= 0 ? leer(posicion) : null;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    Long version(long id) {
+        cerrojo.readLock().lock();
+        try {
+            int posicion = porId.buscar(id);
+            return posicion >= 0 ? registros.version(posicion) : null;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    boolean existePlaca(String placa) {
+        byte[] bytes = placa.getBytes(StandardCharsets.UTF_8);
+        cerrojo.readLock().lock();
+        try {
+            return porPlaca.buscar(bytes, RegistrosVehiculos.hashPlaca(bytes)) >= 0;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    List<Vehiculo> buscarPorPlacas(Collection<String> placas) {
+        List<Vehiculo> encontrados = new ArrayList<>();
+        cerrojo.readLock().lock();
+        try {
+            for (String placa : placas) {
+                byte[] bytes = placa.getBytes(StandardCharsets.UTF_8);
+                int posicion = porPlaca.buscar(bytes, RegistrosVehiculos.hashPlaca(bytes));
+                if (posicion >= 0) {
+                    encontrados.add(leer(posicion));
+                }
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        return encontrados;
+    }
+
+    List<String> placas() {
+        cerrojo.readLock().lock();
+        try {
+            List<String> placas = new ArrayList<>(vivos);
+            for (int posicion = 0; posicion < registros.tamano(); posicion++) {
+                if (registros.vivo(posicion)) {
+                    placas.add(registros.placa(posicion));
+                }
+            }
+            return placas;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Hasta {@code limite} vehículos con ID mayor que {@code despuesDeId} en orden de ID, sólo de la
+     * marca indicada si no es nula. La marca se compara por su código, sin leer el resto del registro.
+     */
+    List<Vehiculo> siguientes(String marca, long despuesDeId, int limite) {
+        cerrojo.readLock().lock();
+        try {
+            int codigo = marca != null ? marcas.codigo(marca) : -1;
+            List<Vehiculo> vehiculos = new ArrayList<>(Math.min(limite, 1024));
+            if (marca != null && codigo < 0) {
+                return vehiculos;
+            }
+            for (int posicion = registros.primeraDespuesDe(despuesDeId);
+                 posicion < registros.tamano() && vehiculos.size() < limite; posicion++) {
+                if (registros.vivo(posicion) && (marca == null || registros.marca(posicion) == codigo)) {
+                    vehiculos.add(leer(posicion));
+                }
+            }
+            return vehiculos;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Los vehículos que cumplen el criterio en el orden pedido, saltando los {@code desde} primeros.
+     * Ordenados sólo por ID se recorren los registros en su orden y se para al llegar al límite; con
+     * otro orden hay que recorrerlos todos quedándose con los {@code desde + limite} primeros.
+     */
+    List<Vehiculo> buscar(CriterioVehiculo criterio, Sort sort, long desde, int limite) {
+        int necesarios = (int) Math.min(Integer.MAX_VALUE, desde + limite);
+        Sort.Order porId = sort.getOrderFor("id");
+        boolean soloPorId = sort.isUnsorted() || (porId != null && sort.stream().count() == 1);
+        cerrojo.readLock().lock();
+        try {
+            if (soloPorId) {
+                List<Vehiculo> vehiculos = new ArrayList<>(Math.min(necesarios, 1024));
+                boolean descendente = porId != null && porId.isDescending();
+                int tamano = registros.tamano();
+                for (int i = 0; i < tamano && vehiculos.size() < necesarios; i++) {
+                    int posicion = descendente ? tamano - 1 - i : i;
+                    if (registros.vivo(posicion)) {
+                        Vehiculo vehiculo = leer(posicion);
+                        if (criterio.cumple(vehiculo)) {
+                            vehiculos.add(vehiculo);
+                        }
+                    }
+                }
+                return desde == 0 ? vehiculos : vehiculos.subList((int) Math.min(desde, vehiculos.size()), vehiculos.size());
+            }
+            Comparator<Vehiculo> orden = comparador(sort);
+            PriorityQueue<Vehiculo> primeros = new PriorityQueue<>(orden.reversed());
+            for (int posicion = 0; posicion < registros.tamano(); posicion++) {
+                if (registros.vivo(posicion)) {
+                    Vehiculo vehiculo = leer(posicion);
+                    if (criterio.cumple(vehiculo)) {
+                        primeros.add(vehiculo);
+                        if (primeros.size() > necesarios) {
+                            primeros.poll();
+                        }
+                    }
+                }
+            }
+            List<Vehiculo> vehiculos = new ArrayList<>(primeros);
+            vehiculos.sort(orden);
+            return vehiculos.subList((int) Math.min(desde, vehiculos.size()), vehiculos.size());
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    long contar(CriterioVehiculo criterio) {
+        cerrojo.readLock().lock();
+        try {
+            long total = 0;
+            for (int posicion = 0; posicion < registros.tamano(); posicion++) {
+                if (registros.vivo(posicion) && criterio.cumple(leer(posicion))) {
+                    total++;
+                }
+            }
+            return total;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    long contar() {
+        cerrojo.readLock().lock();
+        try {
+            return vivos;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    Map<String, Long> contarPorMarca() {
+        cerrojo.readLock().lock();
+        try {
+            long[] totales = new long[marcas.tamano()];
+            for (int posicion = 0; posicion < registros.tamano(); posicion++) {
+                if (registros.vivo(posicion)) {
+                    totales[registros.marca(posicion)]++;
+                }
+            }
+            Map<String, Long> porMarca = new LinkedHashMap<>();
+            for (int codigo = 0; codigo < totales.length; codigo++) {
+                if (totales[codigo] > 0) {
+                    porMarca.put(marcas.valor(codigo), totales[codigo]);
+                }
+            }
+            return porMarca;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda los vehículos como una sola operación: o se aplican todos o ninguno. Como Spring Data
+     * con la entidad versionada, los que no tienen versión se dan de alta con un ID nuevo y los demás
+     * se actualizan si su versión coincide con la guardada. A cada vehículo se le asigna su ID y su
+     * nueva versión.
+     * @throws DataIntegrityViolationException si falta un campo obligatorio, se repite una placa o
+     *         un alta trae el ID de un vehículo que ya existe
+     * @throws ObjectOptimisticLockingFailureException si un vehículo ya no existe o ha cambiado
+     */
+    void guardar(Collection<? extends Vehiculo> vehiculos) {
+        List<byte[]> placas = new ArrayList<>(vehiculos.size());
+        for (Vehiculo vehiculo : vehiculos) {
+            placas.add(validar(vehiculo));
+        }
+        boolean enTransaccion = TransaccionesSinRecurso.enTransaccion();
+        cerrojo.writeLock().lock();
+        try {
+            int[] posiciones = comprobar(vehiculos, placas);
+            int i = 0;
+            for (Vehiculo vehiculo : vehiculos) {
+                byte[] placa = placas.get(i);
+                int posicion = posiciones[i++];
+                if (posicion < 0) {
+                    insertar(vehiculo, placa);
+                    if (enTransaccion) {
+                        long id = vehiculo.getId();
+                        TransaccionesSinRecurso.alRevertir(() -> eliminar(List.of(id)));
+                    }
+                } else {
+                    Vehiculo anterior = enTransaccion ? leer(posicion) : null;
+                    vehiculo.setVersion(reescribir(posicion, vehiculo.getId(), vehiculo, placa));
+                    if (enTransaccion) {
+                        long version = vehiculo.getVersion();
+                        TransaccionesSinRecurso.alRevertir(() -> restaurar(anterior, version));
+                    }
+                }
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Actualiza los datos del vehículo sólo si su versión sigue siendo {@code version}.
+     * @return 1 si se actualizó, 0 si no existe o ha cambiado
+     */
+    int actualizarSiVersion(long id, long version, Vehiculo datos) {
+        byte[] placa = validar(datos);
+        cerrojo.writeLock().lock();
+        try {
+            int posicion = porId.buscar(id);
+            if (posicion < 0 || registros.version(posicion) != version) {
+                return 0;
+            }
+            int propietario = porPlaca.buscar(placa, RegistrosVehiculos.hashPlaca(placa));
+            if (propietario >= 0 && propietario != posicion) {
+                throw new DataIntegrityViolationException("Ya existe un vehículo con la placa: " + datos.getPlaca());
+            }
+            Vehiculo anterior = TransaccionesSinRecurso.enTransaccion() ? leer(posicion) : null;
+            long nueva = reescribir(posicion, id, datos, placa);
+            if (anterior != null) {
+                TransaccionesSinRecurso.alRevertir(() -> restaurar(anterior, nueva));
+            }
+            return 1;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return cuántos de los IDs existían
+     */
+    int eliminar(Collection<Long> ids) {
+        boolean enTransaccion = TransaccionesSinRecurso.enTransaccion();
+        cerrojo.writeLock().lock();
+        try {
+            int eliminados = 0;
+            List<Vehiculo> borrados = enTransaccion ? new ArrayList<>() : null;
+            for (Long id : ids) {
+                int posicion = id != null ? porId.buscar(id) : -1;
+                if (posicion >= 0) {
+                    if (enTransaccion) {
+                        borrados.add(leer(posicion));
+                    }
+                    porPlaca.quitar(posicion);
+                    porId.quitar(id);
+                    registros.borrar(posicion);
+                    vivos--;
+                    eliminados++;
+                }
+            }
+            int huecos = registros.tamano() - vivos;
+            if (huecos > vivos && huecos >= RegistrosVehiculos.REGISTROS_POR_SEGMENTO) {
+                compactar();
+            }
+            if (enTransaccion && !borrados.isEmpty()) {
+                TransaccionesSinRecurso.alRevertir(() -> reinsertar(borrados));
+            }
+            return eliminados;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    void eliminarTodos() {
+        boolean enTransaccion = TransaccionesSinRecurso.enTransaccion();
+        cerrojo.writeLock().lock();
+        try {
+            if (enTransaccion) {
+                List<Vehiculo> borrados = siguientes(null, 0L, Integer.MAX_VALUE);
+                TransaccionesSinRecurso.alRevertir(() -> reinsertar(borrados));
+            }
+            registros.truncar(0);
+            porId.limpiar();
+            porPlaca.limpiar();
+            vivos = 0;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    long bytesFueraDelHeap() {
+        cerrojo.readLock().lock();
+        try {
+            return registros.bytesReservados();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    // Lo que la base de datos rechazaría por las restricciones de la tabla
+    private static byte[] validar(Vehiculo vehiculo) {
+        if (vehiculo.getMarca() == null || vehiculo.getModelo() == null || vehiculo.getAnio() == null
+                || vehiculo.getColor() == null || vehiculo.getPlaca() == null) {
+            throw new DataIntegrityViolationException("Faltan campos obligatorios del vehículo");
+        }
+        byte[] placa = vehiculo.getPlaca().getBytes(StandardCharsets.UTF_8);
+        if (placa.length > RegistrosVehiculos.LONGITUD_MAXIMA_PLACA) {
+            throw new IllegalArgumentException("La placa supera los " + RegistrosVehiculos.LONGITUD_MAXIMA_PLACA
+                    + " bytes que admite el almacén: " + vehiculo.getPlaca());
+        }
+        return placa;
+    }
+
+    /**
+     * Posición actual de cada vehículo (-1 para las altas), tras comprobar que todo el lote se puede aplicar.
+     */
+    private int[] comprobar(Collection<? extends Vehiculo> vehiculos, List<byte[]> placas) {
+        int[] posiciones = new int[vehiculos.size()];
+        Set<String> placasDelLote = new HashSet<>();
+        int i = 0;
+        for (Vehiculo vehiculo : vehiculos) {
+            int posicion = -1;
+            if (vehiculo.getVersion() == null) {
+                // Un alta (persist en JPA): el ID que traiga no puede ser el de otro vehículo
+                if (vehiculo.getId() != null && porId.buscar(vehiculo.getId()) >= 0) {
+                    throw new DataIntegrityViolationException("Ya existe un vehículo con ID: " + vehiculo.getId());
+                }
+            } else if (vehiculo.getId() != null) {
+                posicion = porId.buscar(vehiculo.getId());
+                if (posicion < 0 || registros.version(posicion) != vehiculo.getVersion()) {
+                    throw new ObjectOptimisticLockingFailureException(Vehiculo.class, vehiculo.getId());
+                }
+            }
+            byte[] placa = placas.get(i);
+            int propietario = porPlaca.buscar(placa, RegistrosVehiculos.hashPlaca(placa));
+            if (!placasDelLote.add(vehiculo.getPlaca()) || (propietario >= 0 && propietario != posicion)) {
+                throw new DataIntegrityViolationException("Ya existe un vehículo con la placa: " + vehiculo.getPlaca());
+            }
+            posiciones[i++] = posicion;
+        }
+        return posiciones;
+    }
+
+    private void insertar(Vehiculo vehiculo, byte[] placa) {
+        long id = ++ultimoId;
+        int posicion = registros.agregar();
+        escribir(posicion, id, 0L, vehiculo, placa);
+        porId.poner(id, posicion);
+        porPlaca.poner(posicion);
+        vivos++;
+        vehiculo.setId(id);
+        vehiculo.setVersion(0L);
+    }
+
+    /**
+     * @return la nueva versión del registro
+     */
+    private long reescribir(int posicion, long id, Vehiculo datos, byte[] placa) {
+        long version = registros.version(posicion) + 1;
+        porPlaca.quitar(posicion);
+        escribir(posicion, id, version, datos, placa);
+        porPlaca.poner(posicion);
+        return version;
+    }
+
+    private void escribir(int posicion, long id, long version, Vehiculo datos, byte[] placa) {
+        registros.escribir(posicion, id, version, marcas.codificar(datos.getMarca()),
+                modelos.codificar(datos.getModelo()), datos.getAnio(),
+                colores.codificar(datos.getColor()), datos.getPrecio(), placa);
+    }
+
+    /**
+     * Deshace una actualización: vuelve a dejar los datos y la versión de {@code anterior}, salvo
+     * que el vehículo ya no exista o lo haya cambiado otra escritura después ({@code versionEscrita}).
+     */
+    private void restaurar(Vehiculo anterior, long versionEscrita) {
+        byte[] placa = anterior.getPlaca().getBytes(StandardCharsets.UTF_8);
+        cerrojo.writeLock().lock();
+        try {
+            int posicion = porId.buscar(anterior.getId());
+            if (posicion < 0 || registros.version(posicion) != versionEscrita) {
+                return;
+            }
+            comprobarPlacaLibre(placa, posicion, anterior.getPlaca());
+            porPlaca.quitar(posicion);
+            escribir(posicion, anterior.getId(), anterior.getVersion(), anterior, placa);
+            porPlaca.poner(posicion);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deshace bajas: vuelve a poner los vehículos con su ID y su versión, en su sitio según el ID.
+     * Si el hueco sigue ahí se reaprovecha; si ya se compactó, los que faltan se intercalan todos de
+     * una pasada desde el final, desplazando cada registro una sola vez, y se rehacen los índices.
+     */
+    private void reinsertar(List<Vehiculo> vehiculos) {
+        cerrojo.writeLock().lock();
+        try {
+            List<Vehiculo> sinHueco = new ArrayList<>();
+            Set<String> placasDelLote = new HashSet<>();
+            for (Vehiculo vehiculo : vehiculos) {
+                long id = vehiculo.getId();
+                if (porId.buscar(id) >= 0) {
+                    continue;
+                }
+                byte[] placa = vehiculo.getPlaca().getBytes(StandardCharsets.UTF_8);
+                comprobarPlacaLibre(placa, -1, vehiculo.getPlaca());
+                if (!placasDelLote.add(vehiculo.getPlaca())) {
+                    throw new DataIntegrityViolationException("Ya existe un vehículo con la placa: " + vehiculo.getPlaca());
+                }
+                int posicion = registros.primeraDespuesDe(id);
+                if (posicion > 0 && registros.id(posicion - 1) == id) {
+                    escribir(posicion - 1, id, vehiculo.getVersion(), vehiculo, placa);
+                    porId.poner(id, posicion - 1);
+                    porPlaca.poner(posicion - 1);
+                    vivos++;
+                } else {
+                    sinHueco.add(vehiculo);
+                }
+            }
+            if (!sinHueco.isEmpty()) {
+                intercalar(sinHueco);
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    private void intercalar(List<Vehiculo> vehiculos) {
+        vehiculos.sort(Comparator.comparing(Vehiculo::getId));
+        int origen = registros.tamano() - 1;
+        for (int i = 0; i < vehiculos.size(); i++) {
+            registros.agregar();
+        }
+        int destino = registros.tamano() - 1;
+        for (int i = vehiculos.size() - 1; i >= 0; destino--) {
+            Vehiculo vehiculo = vehiculos.get(i);
+            if (origen >= 0 && registros.id(origen) > vehiculo.getId()) {
+                registros.mover(origen--, destino);
+            } else {
+                escribir(destino, vehiculo.getId(), vehiculo.getVersion(), vehiculo,
+                        vehiculo.getPlaca().getBytes(StandardCharsets.UTF_8));
+                i--;
+            }
+        }
+        vivos += vehiculos.size();
+        reindexar();
+    }
+
+    private void comprobarPlacaLibre(byte[] placa, int posicion, String texto) {
+        int propietario = porPlaca.buscar(placa, RegistrosVehiculos.hashPlaca(placa));
+        if (propietario >= 0 && propietario != posicion) {
+            throw new DataIntegrityViolationException("Ya existe un vehículo con la placa: " + texto);
+        }
+    }
+
+    // Mueve los registros vivos al principio conservando su orden y rehace los índices
+    private void compactar() {
+        int destino = 0;
+        for (int posicion = 0; posicion < registros.tamano(); posicion++) {
+            if (registros.vivo(posicion)) {
+                if (posicion != destino) {
+                    registros.mover(posicion, destino);
+                }
+                destino++;
+            }
+        }
+        registros.truncar(destino);
+        reindexar();
+    }
+
+    private void reindexar() {
+        porId.limpiar();
+        porPlaca.limpiar();
+        for (int posicion = 0; posicion < registros.tamano(); posicion++) {
+            if (registros.vivo(posicion)) {
+                porId.poner(registros.id(posicion), posicion);
+                porPlaca.poner(posicion);
+            }
+        }
+    }
+
+    private Vehiculo leer(int posicion) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setId(registros.id(posicion));
+        vehiculo.setVersion(registros.version(posicion));
+        vehiculo.setMarca(marcas.valor(registros.marca(posicion)));
+        vehiculo.setModelo(modelos.valor(registros.modelo(posicion)));
+        vehiculo.setAnio(registros.anio(posicion));
+        vehiculo.setColor(colores.valor(registros.color(posicion)));
+        vehiculo.setPrecio(registros.precio(posicion));
+        vehiculo.setPlaca(registros.placa(posicion));
+        return vehiculo;
+    }
+
+    // Como la base de datos: los nulos primero en orden ascendente; el ID desempata
+    @SuppressWarnings("unchecked")
+    private static Comparator<Vehiculo> comparador(Sort sort) {
+        Comparator<Vehiculo> orden = null;
+        for (Sort.Order criterio : sort) {
+            String propiedad = criterio.getProperty();
+            Comparator<Vehiculo> campo = Comparator.comparing(
+                    vehiculo -> (Comparable<Object>) CamposVehiculo.leer(vehiculo, propiedad), NULOS_PRIMERO);
+            if (criterio.isDescending()) {
+                campo = campo.reversed();
+            }
+            orden = orden == null ? campo : orden.thenComparing(campo);
+        }
+        Comparator<Vehiculo> porId = Comparator.comparing(Vehiculo::getId);
+        return orden == null ? porId : orden.thenComparing(porId);
+    }
+}
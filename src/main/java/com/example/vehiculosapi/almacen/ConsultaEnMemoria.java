@@ -0,0 +1,116 @@
+package com.example.vehiculosapi.almacen;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.repository.CriterioVehiculo;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@code findBy(especificacion, consulta -> ...)} y {@code findBy(ejemplo, consulta -> ...)} sobre el
+ * almacén fuera del heap. Las proyecciones
+ * ({@code project}) se ignoran porque el registro se lee entero de todos modos.
+ */
+final class ConsultaEnMemoria<T> implements JpaSpecificationExecutor.SpecificationFluentQuery<T> {
+
+    private final AlmacenVehiculos almacen;
+    private final CriterioVehiculo criterio;
+    private final Sort sort;
+    private final int limite;
+
+    ConsultaEnMemoria(AlmacenVehiculos almacen, CriterioVehiculo criterio, Sort sort, int limite) {
+        this.almacen = almacen;
+        this.criterio = criterio;
+        this.sort = sort;
+        this.limite = limite;
+    }
+
+    @Override
+    public JpaSpecificationExecutor.SpecificationFluentQuery<T> sortBy(Sort sort) {
+        return new ConsultaEnMemoria<>(almacen, criterio, this.sort.and(sort), limite);
+    }
+
+    @Override
+    public JpaSpecificationExecutor.SpecificationFluentQuery<T> limit(int limite) {
+        return new ConsultaEnMemoria<>(almacen, criterio, sort, limite);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R> JpaSpecificationExecutor.SpecificationFluentQuery<R> as(Class<R> tipo) {
+        if (!tipo.isAssignableFrom(Vehiculo.class)) {
+            throw new UnsupportedOperationException("El almacén fuera del heap sólo devuelve vehículos, no " + tipo.getName());
+        }
+        return (JpaSpecificationExecutor.SpecificationFluentQuery<R>) this;
+    }
+
+    @Override
+    public JpaSpecificationExecutor.SpecificationFluentQuery<T> project(Collection<String> propiedades) {
+        return this;
+    }
+
+    @Override
+    public T oneValue() {
+        List<T> resultado = buscar(0, Math.min(limite, 2));
+        if (resultado.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1);
+        }
+        return resultado.isEmpty() ? null : resultado.get(0);
+    }
+
+    @Override
+    public T firstValue() {
+        List<T> resultado = buscar(0, Math.min(limite, 1));
+        return resultado.isEmpty() ? null : resultado.get(0);
+    }
+
+    @Override
+    public List<T> all() {
+        return buscar(0, limite);
+    }
+
+    @Override
+    public Page<T> page(Pageable pageable) {
+        return page(pageable, criterio);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page<T> page(Pageable pageable, Specification<?> especificacionTotal) {
+        CriterioVehiculo total = CriterioVehiculo.de((Specification<Vehiculo>) especificacionTotal);
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all());
+        }
+        Sort orden = sort.and(pageable.getSort());
+        List<T> contenido = (List<T>) almacen.buscar(criterio, orden, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(contenido, pageable, almacen.contar(total));
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return all().stream();
+    }
+
+    @Override
+    public long count() {
+        return almacen.contar(criterio);
+    }
+
+    @Override
+    public boolean exists() {
+        return !buscar(0, 1).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> buscar(long desde, int maximo) {
+        return (List<T>) almacen.buscar(criterio, sort, desde, maximo);
+    }
+}
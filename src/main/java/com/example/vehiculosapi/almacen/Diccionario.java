@@ -0,0 +1,43 @@
+package com.example.vehiculosapi.almacen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Códigos enteros de los valores de una columna con pocos valores distintos (marca, modelo, color):
+ * los registros guardan el código y cada cadena existe una sola vez en el heap. Los códigos no se
+ * liberan aunque ningún registro los use ya. No es seguro para hilos; lo protege el almacén.
+ */
+final class Diccionario {
+
+    private final Map<String, Integer> codigos = new HashMap<>();
+    private final List<String> valores = new ArrayList<>();
+
+    int codificar(String valor) {
+        Integer codigo = codigos.get(valor);
+        if (codigo == null) {
+            codigo = valores.size();
+            valores.add(valor);
+            codigos.put(valor, codigo);
+        }
+        return codigo;
+    }
+
+    /**
+     * @return el código del valor, o -1 si ningún registro lo ha usado nunca
+     */
+    int codigo(String valor) {
+        Integer codigo = codigos.get(valor);
+        return codigo != null ? codigo : -1;
+    }
+
+    String valor(int codigo) {
+        return valores.get(codigo);
+    }
+
+    int tamano() {
+        return valores.size();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.vehiculosapi.almacen;
+
+import java.util.Arrays;
+
+/**
+ * Índice hash de ID a posición del registro, con direccionamiento abierto y sondeo lineal sobre dos
+ * arrays de primitivos: no crea un objeto por entrada. Los borrados desplazan hacia atrás las
+ * entradas siguientes en lugar de dejar lápidas. No es seguro para hilos; lo protege el almacén.
+ */
+final class IndiceIds {
+
+    private static final long VACIO = 0L;
+
+    private long[] claves;
+    private int[] posiciones;
+    private int mascara;
+    private int tamano;
+
+    IndiceIds() {
+        dimensionar(1024);
+    }
+
+    /**
+     * @return la posición del registro, o -1 si no hay ninguno con ese ID
+     */
+    int buscar(long id) {
+        for (int i = indice(id); ; i = (i + 1) & mascara) {
+            long clave = claves[i];
+            if (clave == id) {
+                return posiciones[i];
+            }
+            if (clave == VACIO) {
+                return -1;
+            }
+        }
+    }
+
+    void poner(long id, int posicion) {
+        if (tamano * 2 >= claves.length) {
+            crecer();
+        }
+        int i = indice(id);
+        while (claves[i] != VACIO && claves[i] != id) {
+            i = (i + 1) & mascara;
+        }
+        if (claves[i] == VACIO) {
+            tamano++;
+        }
+        claves[i] = id;
+        posiciones[i] = posicion;
+    }
+
+    void quitar(long id) {
+        int i = indice(id);
+        while (claves[i] != id) {
+            if (claves[i] == VACIO) {
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        tamano--;
+        // Las entradas de la misma secuencia que no estén ya en su sitio ocupan el hueco
+        for (int j = (i + 1) & mascara; claves[j] != VACIO; j = (j + 1) & mascara) {
+            int origen = indice(claves[j]);
+            if (((j - origen) & mascara) >= ((j - i) & mascara)) {
+                claves[i] = claves[j];
+                posiciones[i] = posiciones[j];
+                i = j;
+            }
+        }
+        claves[i] = VACIO;
+    }
+
+    void limpiar() {
+        Arrays.fill(claves, VACIO);
+        tamano = 0;
+    }
+
+    private void crecer() {
+        long[] anteriores = claves;
+        int[] posicionesAnteriores = posiciones;
+        dimensionar(claves.length * 2);
+        for (int i = 0; i < anteriores.length; i++) {
+            if (anteriores[i] != VACIO) {
+                poner(anteriores[i], posicionesAnteriores[i]);
+            }
+        }
+    }
+
+    private void dimensionar(int capacidad) {
+        claves = new long[capacidad];
+        posiciones = new int[capacidad];
+        mascara = capacidad - 1;
+        tamano = 0;
+    }
+
+    private int indice(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mascara;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.vehiculosapi.almacen;
+
+import java.util.Arrays;
+
+/**
+ * Índice hash de placa a posición del registro. Guarda sólo posiciones (más uno; el cero es un
+ * hueco): la placa se compara y se vuelve a calcular su hash leyendo el propio registro, así que no
+ * hay ninguna cadena en el heap por vehículo. No es seguro para hilos; lo protege el almacén.
+ */
+final class IndicePlacasRegistros {
+
+    private final RegistrosVehiculos registros;
+    private int[] entradas;
+    private int mascara;
+    private int tamano;
+
+    IndicePlacasRegistros(RegistrosVehiculos registros) {
+        this.registros = registros;
+        dimensionar(1024);
+    }
+
+    /**
+     * @return la posición del registro con esa placa, o -1 si no hay ninguno
+     */
+    int buscar(byte[] placa, int hash) {
+        for (int i = hash & mascara; entradas[i] != 0; i = (i + 1) & mascara) {
+            int posicion = entradas[i] - 1;
+            if (registros.placaIgual(posicion, placa)) {
+                return posicion;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Indexa el registro por la placa que tiene escrita, que no debe estar ya en el índice.
+     */
+    void poner(int posicion) {
+        if (tamano * 2 >= entradas.length) {
+            crecer();
+        }
+        int i = registros.hashPlaca(posicion) & mascara;
+        while (entradas[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        entradas[i] = posicion + 1;
+        tamano++;
+    }
+
+    void quitar(int posicion) {
+        int i = registros.hashPlaca(posicion) & mascara;
+        while (entradas[i] != posicion + 1) {
+            if (entradas[i] == 0) {
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        tamano--;
+        for (int j = (i + 1) & mascara; entradas[j] != 0; j = (j + 1) & mascara) {
+            int origen = registros.hashPlaca(entradas[j] - 1) & mascara;
+            if (((j - origen) & mascara) >= ((j - i) & mascara)) {
+                entradas[i] = entradas[j];
+                i = j;
+            }
+        }
+        entradas[i] = 0;
+    }
+
+    void limpiar() {
+        Arrays.fill(entradas, 0);
+        tamano = 0;
+    }
+
+    private void crecer() {
+        int[] anteriores = entradas;
+        dimensionar(entradas.length * 2);
+        for (int entrada : anteriores) {
+            if (entrada != 0) {
+                poner(entrada - 1);
+            }
+        }
+    }
+
+    private void dimensionar(int capacidad) {
+        entradas = new int[capacidad];
+        mascara = capacidad - 1;
+        tamano = 0;
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.vehiculosapi.almacen;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registros de anchura fija en memoria directa, fuera del heap, en segmentos de
+ * {@value #REGISTROS_POR_SEGMENTO} registros. Cada registro ocupa {@value #TAMANO_REGISTRO} bytes:
+ * <pre>
+ * 0  id (long)       8  version (long)   16 precio (double)  24 anio (int)
+ * 28 marca (int)     32 modelo (int)     36 color (int)      40 estado (byte)
+ * 41 longitud de la placa (byte)         42 placa (hasta {@value #LONGITUD_MAXIMA_PLACA} bytes UTF-8)
+ * </pre>
+ * Marca, modelo y color son códigos de {@link Diccionario}. Los registros se añaden siempre al final
+ * con IDs crecientes, así que el orden de las posiciones es el orden por ID; las bajas sólo marcan el
+ * registro hasta que el almacén compacta. No es seguro para hilos; lo protege el almacén.
+ */
+final class RegistrosVehiculos {
+
+    static final int LONGITUD_MAXIMA_PLACA = 32;
+    // 74 bytes redondeados a múltiplo de 8 para que los long queden alineados
+    static final int TAMANO_REGISTRO = 80;
+    static final int REGISTROS_POR_SEGMENTO = 1 << 14;
+
+    private static final int BITS_SEGMENTO = 14;
+    private static final int MASCARA_SEGMENTO = REGISTROS_POR_SEGMENTO - 1;
+
+    private static final int ID = 0;
+    private static final int VERSION = 8;
+    private static final int PRECIO = 16;
+    private static final int ANIO = 24;
+    private static final int MARCA = 28;
+    private static final int MODELO = 32;
+    private static final int COLOR = 36;
+    private static final int ESTADO = 40;
+    private static final int LONGITUD_PLACA = 41;
+    private static final int PLACA = 42;
+
+    private static final byte VIVO = 1;
+    private static final byte SIN_PRECIO = 2;
+
+    private final List<ByteBuffer> segmentos = new ArrayList<>();
+    private int tamano;
+
+    /**
+     * Posiciones ocupadas, contando los registros borrados que aún no se han compactado.
+     */
+    int tamano() {
+        return tamano;
+    }
+
+    long bytesReservados() {
+        return (long) segmentos.size() * REGISTROS_POR_SEGMENTO * TAMANO_REGISTRO;
+    }
+
+    int agregar() {
+        if (tamano == segmentos.size() * REGISTROS_POR_SEGMENTO) {
+            segmentos.add(ByteBuffer.allocateDirect(REGISTROS_POR_SEGMENTO * TAMANO_REGISTRO)
+                    .order(ByteOrder.nativeOrder()));
+        }
+        return tamano++;
+    }
+
+    void escribir(int posicion, long id, long version, int marca, int modelo, int anio, int color,
+                  Double precio, byte[] placa) {
+        ByteBuffer segmento = segmento(posicion);
+        int base = base(posicion);
+        segmento.putLong(base + ID, id);
+        segmento.putLong(base + VERSION, version);
+        segmento.putDouble(base + PRECIO, precio != null ? precio : 0.0);
+        segmento.putInt(base + ANIO, anio);
+        segmento.putInt(base + MARCA, marca);
+        segmento.putInt(base + MODELO, modelo);
+        segmento.putInt(base + COLOR, color);
+        segmento.put(base + ESTADO, precio != null ? VIVO : (byte) (VIVO | SIN_PRECIO));
+        segmento.put(base + LONGITUD_PLACA, (byte) placa.length);
+        segmento.put(base + PLACA, placa);
+    }
+
+    void borrar(int posicion) {
+        ByteBuffer segmento = segmento(posicion);
+        int base = base(posicion);
+        segmento.put(base + ESTADO, (byte) (segmento.get(base + ESTADO) & ~VIVO));
+    }
+
+    boolean vivo(int posicion) {
+        return (segmento(posicion).get(base(posicion) + ESTADO) & VIVO) != 0;
+    }
+
+    long id(int posicion) {
+        return segmento(posicion).getLong(base(posicion) + ID);
+    }
+
+    long version(int posicion) {
+        return segmento(posicion).getLong(base(posicion) + VERSION);
+    }
+
+    void version(int posicion, long version) {
+        segmento(posicion).putLong(base(posicion) + VERSION, version);
+    }
+
+    Double precio(int posicion) {
+        ByteBuffer segmento = segmento(posicion);
+        int base = base(posicion);
+        return (segmento.get(base + ESTADO) & SIN_PRECIO) != 0 ? null : segmento.getDouble(base + PRECIO);
+    }
+
+    int anio(int posicion) {
+        return segmento(posicion).getInt(base(posicion) + ANIO);
+    }
+
+    int marca(int posicion) {
+        return segmento(posicion).getInt(base(posicion) + MARCA);
+    }
+
+    int modelo(int posicion) {
+        return segmento(posicion).getInt(base(posicion) + MODELO);
+    }
+
+    int color(int posicion) {
+        return segmento(posicion).getInt(base(posicion) + COLOR);
+    }
+
+    String placa(int posicion) {
+        ByteBuffer segmento = segmento(posicion);
+        int base = base(posicion);
+        byte[] bytes = new byte[segmento.get(base + LONGITUD_PLACA)];
+        segmento.get(base + PLACA, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    boolean placaIgual(int posicion, byte[] placa) {
+        ByteBuffer segmento = segmento(posicion);
+        int base = base(posicion);
+        if (segmento.get(base + LONGITUD_PLACA) != placa.length) {
+            return false;
+        }
+        for (int i = 0; i < placa.length; i++) {
+            if (segmento.get(base + PLACA + i) != placa[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int hashPlaca(int posicion) {
+        ByteBuffer segmento = segmento(posicion);
+        int base = base(posicion);
+        int longitud = segmento.get(base + LONGITUD_PLACA);
+        int hash = 1;
+        for (int i = 0; i < longitud; i++) {
+            hash = 31 * hash + segmento.get(base + PLACA + i);
+        }
+        return mezclar(hash);
+    }
+
+    static int hashPlaca(byte[] placa) {
+        int hash = 1;
+        for (byte b : placa) {
+            hash = 31 * hash + b;
+        }
+        return mezclar(hash);
+    }
+
+    /**
+     * Primera posición con ID mayor que {@code id} (o {@link #tamano()} si no hay ninguna).
+     * Los registros borrados conservan su ID, así que la búsqueda binaria sigue valiendo.
+     */
+    int primeraDespuesDe(long id) {
+        int desde = 0;
+        int hasta = tamano;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (id(medio) <= id) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        return desde;
+    }
+
+    void mover(int origen, int destino) {
+        ByteBuffer desde = segmento(origen);
+        ByteBuffer hacia = segmento(destino);
+        hacia.put(base(destino), desde, base(origen), TAMANO_REGISTRO);
+    }
+
+    /**
+     * Descarta las posiciones a partir de {@code nuevoTamano} y los segmentos que quedan vacíos;
+     * su memoria se devuelve al sistema cuando el recolector libera el {@link ByteBuffer}.
+     */
+    void truncar(int nuevoTamano) {
+        tamano = nuevoTamano;
+        int necesarios = (nuevoTamano + REGISTROS_POR_SEGMENTO - 1) >>> BITS_SEGMENTO;
+        while (segmentos.size() > necesarios) {
+            segmentos.remove(segmentos.size() - 1);
+        }
+    }
+
+    private ByteBuffer segmento(int posicion) {
+        return segmentos.get(posicion >>> BITS_SEGMENTO);
+    }
+
+    private static int base(int posicion) {
+        return (posicion & MASCARA_SEGMENTO) * TAMANO_REGISTRO;
+    }
+
+    private static int mezclar(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.vehiculosapi.almacen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Gestor de transacciones del almacén fuera del heap. No hay conexión que abrir: cada operación del
+ * almacén se aplica al momento y anota en la transacción en curso cómo deshacerse. Al confirmar se
+ * descartan las anotaciones y al revertir se deshacen en orden inverso. No hay aislamiento: las demás
+ * transacciones ven los cambios antes de que se confirmen, como con READ_UNCOMMITTED.
+ * Sirve para que {@code @Transactional} y las sincronizaciones que se ejecutan al confirmar
+ * (caché, contadores, canal de cambios) sigan funcionando igual que con JPA.
+ */
+final class TransaccionesSinRecurso extends AbstractPlatformTransactionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransaccionesSinRecurso.class);
+
+    // Clave fija en lugar del propio gestor: el almacén anota sin conocer el gestor
+    private static final Object RECURSO = TransaccionesSinRecurso.class;
+
+    /**
+     * Si hay una transacción en curso en este hilo y, por tanto, las escrituras deben anotar cómo deshacerse.
+     */
+    static boolean enTransaccion() {
+        Transaccion transaccion = (Transaccion) TransactionSynchronizationManager.getResource(RECURSO);
+        return transaccion != null && !transaccion.revirtiendo;
+    }
+
+    /**
+     * Anota en la transacción en curso una acción que deshace una escritura ya aplicada.
+     * Fuera de una transacción (o mientras se revierte) no hace nada.
+     */
+    static void alRevertir(Runnable deshacer) {
+        Transaccion transaccion = (Transaccion) TransactionSynchronizationManager.getResource(RECURSO);
+        if (transaccion != null && !transaccion.revirtiendo) {
+            transaccion.deshacer.push(deshacer);
+        }
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Participacion((Transaccion) TransactionSynchronizationManager.getResource(RECURSO));
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaccion) {
+        return ((Participacion) transaccion).transaccion != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaccion, TransactionDefinition definicion) {
+        Participacion participacion = (Participacion) transaccion;
+        participacion.transaccion = new Transaccion();
+        TransactionSynchronizationManager.bindResource(RECURSO, participacion.transaccion);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaccion) {
+        ((Participacion) transaccion).transaccion = null;
+        return TransactionSynchronizationManager.unbindResource(RECURSO);
+    }
+
+    @Override
+    protected void doResume(Object transaccion, Object suspendida) {
+        TransactionSynchronizationManager.bindResource(RECURSO, suspendida);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus estado) {
+        ((Participacion) estado.getTransaction()).transaccion.deshacer.clear();
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus estado) {
+        Transaccion transaccion = ((Participacion) estado.getTransaction()).transaccion;
+        transaccion.revirtiendo = true;
+        RuntimeException primerError = null;
+        while (!transaccion.deshacer.isEmpty()) {
+            try {
+                transaccion.deshacer.pop().run();
+            } catch (RuntimeException e) {
+                // Se sigue con las demás: dejar a medias el resto sería peor que perder una
+                logger.warn("No se pudo deshacer una escritura del almacén fuera del heap", e);
+                if (primerError == null) {
+                    primerError = e;
+                }
+            }
+        }
+        if (primerError != null) {
+            throw new TransactionSystemException("La transacción se revirtió sólo en parte", primerError);
+        }
+    }
+
+    @Override
+    protected void doSetRollbackOnly(DefaultTransactionStatus estado) {
+        ((Participacion) estado.getTransaction()).transaccion.soloRevertir = true;
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaccion) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(RECURSO);
+    }
+
+    private static final class Transaccion {
+        private final Deque<Runnable> deshacer = new ArrayDeque<>();
+        private boolean soloRevertir;
+        private boolean revirtiendo;
+    }
+
+    // Lo que ve cada @Transactional: la transacción que empezó o aquella en la que participa
+    private static final class Participacion implements SmartTransactionObject {
+        private Transaccion transaccion;
+
+        private Participacion(Transaccion transaccion) {
+            this.transaccion = transaccion;
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return transaccion != null && transaccion.soloRevertir;
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package com.example.vehiculosapi.almacen;
+
+import com.example.vehiculosapi.dto.CamposVehiculo;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.repository.CriterioVehiculo;
+import com.example.vehiculosapi.repository.VehiculoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link VehiculoRepository} sobre registros de anchura fija fuera del heap, sin Hibernate ni SQL.
+ * Las consultas por especificación sólo admiten las de
+ * {@link com.example.vehiculosapi.repository.VehiculoEspecificaciones}; ellas y las consultas por
+ * ejemplo se evalúan en memoria. Como H2 en memoria, el catálogo no sobrevive a un reinicio.
+ */
+@Repository
+@Profile("fuera-de-heap")
+public class VehiculoRepositoryFueraDelHeap implements VehiculoRepository {
+
+    // Vehículos leídos de una vez al recorrer todo el catálogo con streamTodos
+    private static final int LOTE_RECORRIDO = 500;
+
+    private final AlmacenVehiculos almacen = new AlmacenVehiculos();
+
+    public VehiculoRepositoryFueraDelHeap(MeterRegistry meterRegistry) {
+        Gauge.builder("vehiculos.almacen.memoria", almacen, AlmacenVehiculos::bytesFueraDelHeap)
+                .description("Bytes reservados fuera del heap para los registros de vehículos")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // Consultas propias de VehiculoRepository
+
+    @Override
+    public boolean existsByPlaca(String placa) {
+        return almacen.existePlaca(placa);
+    }
+
+    @Override
+    public List<Vehiculo> findByPlacaIn(Collection<String> placas) {
+        return almacen.buscarPorPlacas(placas);
+    }
+
+    @Override
+    public List<String> findTodasLasPlacas() {
+        return almacen.placas();
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return Optional.ofNullable(almacen.version(id));
+    }
+
+    @Override
+    public Optional<EstadoVehiculo> findEstadoById(Long id) {
+        return Optional.ofNullable(almacen.buscar(id))
+                .map(vehiculo -> new Estado(vehiculo.getPlaca(), vehiculo.getMarca(), vehiculo.getVersion()));
+    }
+
+    @Override
+    public int actualizarSiVersion(Long id, Long version, Vehiculo datos) {
+        return almacen.actualizarSiVersion(id, version, datos);
+    }
+
+    @Override
+    public List<TotalPorMarca> contarPorMarca() {
+        List<TotalPorMarca> totales = new ArrayList<>();
+        for (Map.Entry<String, Long> fila : almacen.contarPorMarca().entrySet()) {
+            totales.add(new Total(fila.getKey(), fila.getValue()));
+        }
+        return totales;
+    }
+
+    @Override
+    public List<Vehiculo> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit) {
+        return almacen.siguientes(null, id, maximo(limit));
+    }
+
+    @Override
+    public List<Vehiculo> findByMarcaAndIdGreaterThanOrderByIdAsc(String marca, Long id, Limit limit) {
+        return almacen.siguientes(marca, id, maximo(limit));
+    }
+
+    /**
+     * Recorre el catálogo por lotes en orden de ID. Cada lote se lee por separado, así que el
+     * recorrido no bloquea las escrituras y ve las que ocurren por delante de su posición.
+     */
+    @Override
+    public Stream<Vehiculo> streamTodos() {
+        Iterator<Vehiculo> iterador = new Iterator<>() {
+            private List<Vehiculo> lote = List.of();
+            private int siguiente;
+            private long ultimoId;
+            private boolean terminado;
+
+            @Override
+            public boolean hasNext() {
+                if (siguiente < lote.size()) {
+                    return true;
+                }
+                if (terminado) {
+                    return false;
+                }
+                lote = almacen.siguientes(null, ultimoId, LOTE_RECORRIDO);
+                siguiente = 0;
+                terminado = lote.size() < LOTE_RECORRIDO;
+                if (!lote.isEmpty()) {
+                    ultimoId = lote.get(lote.size() - 1).getId();
+                }
+                return !lote.isEmpty();
+            }
+
+            @Override
+            public Vehiculo next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return lote.get(siguiente++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterador,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public List<Vehiculo> findParciales(Specification<Vehiculo> especificacion, Sort sort, CamposVehiculo campos, int limite) {
+        List<Vehiculo> vehiculos = almacen.buscar(CriterioVehiculo.de(especificacion), sort, 0, limite);
+        List<Vehiculo> parciales = new ArrayList<>(vehiculos.size());
+        for (Vehiculo vehiculo : vehiculos) {
+            Vehiculo parcial = new Vehiculo();
+            for (String nombre : campos.nombres()) {
+                CamposVehiculo.asignar(parcial, nombre, CamposVehiculo.leer(vehiculo, nombre));
+            }
+            parciales.add(parcial);
+        }
+        return parciales;
+    }
+
+    // Los vehículos devueltos ya son copias: no hay contexto del que desacoplarlos
+    @Override
+    public void desacoplar(Vehiculo vehiculo) {
+    }
+
+    // CrudRepository y JpaRepository
+
+    @Override
+    public <S extends Vehiculo> S save(S vehiculo) {
+        almacen.guardar(List.of(vehiculo));
+        return vehiculo;
+    }
+
+    @Override
+    public <S extends Vehiculo> List<S> saveAll(Iterable<S> vehiculos) {
+        List<S> lista = new ArrayList<>();
+        vehiculos.forEach(lista::add);
+        almacen.guardar(lista);
+        return lista;
+    }
+
+    @Override
+    public <S extends Vehiculo> S saveAndFlush(S vehiculo) {
+        return save(vehiculo);
+    }
+
+    @Override
+    public <S extends Vehiculo> List<S> saveAllAndFlush(Iterable<S> vehiculos) {
+        return saveAll(vehiculos);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public Optional<Vehiculo> findById(Long id) {
+        return Optional.ofNullable(almacen.buscar(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return almacen.version(id) != null;
+    }
+
+    @Override
+    public List<Vehiculo> findAll() {
+        return almacen.siguientes(null, 0L, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Vehiculo> findAllById(Iterable<Long> ids) {
+        List<Vehiculo> vehiculos = new ArrayList<>();
+        for (Long id : ids) {
+            Vehiculo vehiculo = almacen.buscar(id);
+            if (vehiculo != null) {
+                vehiculos.add(vehiculo);
+            }
+        }
+        return vehiculos;
+    }
+
+    @Override
+    public long count() {
+        return almacen.contar();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        almacen.eliminar(List.of(id));
+    }
+
+    @Override
+    public void delete(Vehiculo vehiculo) {
+        almacen.eliminar(List.of(vehiculo.getId()));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        List<Long> lista = new ArrayList<>();
+        ids.forEach(lista::add);
+        almacen.eliminar(lista);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Vehiculo> vehiculos) {
+        List<Long> ids = new ArrayList<>();
+        vehiculos.forEach(vehiculo -> ids.add(vehiculo.getId()));
+        almacen.eliminar(ids);
+    }
+
+    @Override
+    public void deleteAll() {
+        almacen.eliminarTodos();
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Vehiculo> vehiculos) {
+        deleteAll(vehiculos);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        almacen.eliminarTodos();
+    }
+
+    @Override
+    @Deprecated
+    public Vehiculo getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public Vehiculo getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public Vehiculo getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Vehículo no encontrado con ID: " + id));
+    }
+
+    @Override
+    public List<Vehiculo> findAll(Sort sort) {
+        return almacen.buscar(CriterioVehiculo.de(null), sort, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Page<Vehiculo> findAll(Pageable pageable) {
+        return pagina(CriterioVehiculo.de(null), CriterioVehiculo.de(null), pageable);
+    }
+
+    // JpaSpecificationExecutor
+
+    @Override
+    public Optional<Vehiculo> findOne(Specification<Vehiculo> especificacion) {
+        return Optional.ofNullable(findBy(especificacion, FluentQuery.FetchableFluentQuery::oneValue));
+    }
+
+    @Override
+    public List<Vehiculo> findAll(Specification<Vehiculo> especificacion) {
+        return almacen.buscar(CriterioVehiculo.de(especificacion), Sort.unsorted(), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Page<Vehiculo> findAll(Specification<Vehiculo> especificacion, Pageable pageable) {
+        CriterioVehiculo criterio = CriterioVehiculo.de(especificacion);
+        return pagina(criterio, criterio, pageable);
+    }
+
+    @Override
+    public Page<Vehiculo> findAll(Specification<Vehiculo> especificacion, Specification<Vehiculo> especificacionTotal,
+                                  Pageable pageable) {
+        return pagina(CriterioVehiculo.de(especificacion), CriterioVehiculo.de(especificacionTotal), pageable);
+    }
+
+    @Override
+    public List<Vehiculo> findAll(Specification<Vehiculo> especificacion, Sort sort) {
+        return almacen.buscar(CriterioVehiculo.de(especificacion), sort, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long count(Specification<Vehiculo> especificacion) {
+        return almacen.contar(CriterioVehiculo.de(especificacion));
+    }
+
+    @Override
+    public boolean exists(Specification<Vehiculo> especificacion) {
+        return !almacen.buscar(CriterioVehiculo.de(especificacion), Sort.unsorted(), 0, 1).isEmpty();
+    }
+
+    @Override
+    public long delete(Specification<Vehiculo> especificacion) {
+        List<Long> ids = new ArrayList<>();
+        for (Vehiculo vehiculo : findAll(especificacion)) {
+            ids.add(vehiculo.getId());
+        }
+        return almacen.eliminar(ids);
+    }
+
+    @Override
+    public <S extends Vehiculo, R> R findBy(Specification<Vehiculo> especificacion,
+                                           Function<? super SpecificationFluentQuery<S>, R> consulta) {
+        return consulta.apply(new ConsultaEnMemoria<>(almacen, CriterioVehiculo.de(especificacion),
+                Sort.unsorted(), Integer.MAX_VALUE));
+    }
+
+    // QueryByExampleExecutor: el ejemplo se evalúa en memoria como las especificaciones
+
+    @Override
+    public <S extends Vehiculo> Optional<S> findOne(Example<S> ejemplo) {
+        return Optional.ofNullable(porEjemplo(ejemplo).oneValue());
+    }
+
+    @Override
+    public <S extends Vehiculo> List<S> findAll(Example<S> ejemplo) {
+        return porEjemplo(ejemplo).all();
+    }
+
+    @Override
+    public <S extends Vehiculo> List<S> findAll(Example<S> ejemplo, Sort sort) {
+        return porEjemplo(ejemplo).sortBy(sort).all();
+    }
+
+    @Override
+    public <S extends Vehiculo> Page<S> findAll(Example<S> ejemplo, Pageable pageable) {
+        return porEjemplo(ejemplo).page(pageable);
+    }
+
+    @Override
+    public <S extends Vehiculo> long count(Example<S> ejemplo) {
+        return porEjemplo(ejemplo).count();
+    }
+
+    @Override
+    public <S extends Vehiculo> boolean exists(Example<S> ejemplo) {
+        return porEjemplo(ejemplo).exists();
+    }
+
+    @Override
+    public <S extends Vehiculo, R> R findBy(Example<S> ejemplo, Function<FluentQuery.FetchableFluentQuery<S>, R> consulta) {
+        return consulta.apply(porEjemplo(ejemplo));
+    }
+
+    private <S extends Vehiculo> ConsultaEnMemoria<S> porEjemplo(Example<S> ejemplo) {
+        return new ConsultaEnMemoria<>(almacen, CriterioVehiculo.porEjemplo(ejemplo), Sort.unsorted(), Integer.MAX_VALUE);
+    }
+
+    private Page<Vehiculo> pagina(CriterioVehiculo criterio, CriterioVehiculo criterioTotal, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(almacen.buscar(criterio, pageable.getSort(), 0, Integer.MAX_VALUE));
+        }
+        List<Vehiculo> contenido = almacen.buscar(criterio, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(contenido, pageable, almacen.contar(criterioTotal));
+    }
+
+    private static int maximo(Limit limit) {
+        return limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+    }
+
+    private record Estado(String placa, String marca, Long version) implements EstadoVehiculo {
+
+        @Override
+        public String getPlaca() {
+            return placa;
+        }
+
+        @Override
+        public String getMarca() {
+            return marca;
+        }
+
+        @Override
+        public Long getVersion() {
+            return version;
+        }
+    }
+
+    private record Total(String marca, long total) implements TotalPorMarca {
+
+        @Override
+        public String getMarca() {
+            return marca;
+        }
+
+        @Override
+        public long getTotal() {
+            return total;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.vehiculosapi.cambios;
+
+/**
+ * Cambio publicado en el canal de cambios. {@code datos} es el JSON que se envía tal cual a
+ * todos los suscriptores: el vehículo tras el alta o la actualización, o sólo su ID en las bajas.
+ */
+public record Cambio(long secuencia, Tipo tipo, Long id, String datos) {
+
+    public enum Tipo {
+        CREADO,
+        ACTUALIZADO,
+        ELIMINADO
+    }
+}
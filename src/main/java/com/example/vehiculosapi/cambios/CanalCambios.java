@@ -0,0 +1,201 @@
+package com.example.vehiculosapi.cambios;
+
+import com.example.vehiculosapi.config.FabricaHilos;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Canal de cambios del catálogo para los clientes SSE. Cada alta, actualización o baja confirmada
+ * recibe un número de secuencia creciente y se guarda en un anillo en memoria con los últimos
+ * {@code vehiculos.cambios.capacidad} cambios, de modo que un cliente que se reconecta se reanuda
+ * desde su último evento. El ID de cada evento es {@code <época>-<secuencia>}: la época cambia en cada
+ * arranque, cuando la secuencia vuelve a empezar. Si el cliente viene de otra época o lo que pide ya
+ * no está en el anillo, recibe un evento {@code reinicio} y debe recargar el listado.
+ * Cada suscriptor tiene su cola acotada y, como mucho, un hilo enviando: un cliente lento sólo se
+ * retrasa a sí mismo. Se desconecta si llena su cola o si un envío lleva bloqueado más de
+ * {@code vehiculos.cambios.tiempo-maximo-envio}.
+ */
+@Component
+public class CanalCambios {
+
+    private final ObjectMapper objectMapper;
+    private final int capacidadPorSuscriptor;
+    private final long tiempoMaximoEnvioNanos;
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+    private final ExecutorService envio;
+    private final ScheduledThreadPoolExecutor latido;
+    private final Counter desconectados;
+
+    // Protegidos por this: el anillo y la lista se actualizan a la vez para no perder ni repetir cambios
+    private final Cambio[] anillo;
+    private final List<SuscriptorCambios> suscriptores = new ArrayList<>();
+    private long ultimaSecuencia;
+    private volatile int numeroSuscriptores;
+
+    public CanalCambios(ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        FabricaHilos fabricaHilos,
+                        @Value("${vehiculos.cambios.capacidad:10000}") int capacidad,
+                        @Value("${vehiculos.cambios.capacidad-por-suscriptor:4096}") int capacidadPorSuscriptor,
+                        @Value("${vehiculos.cambios.tiempo-maximo-envio:10s}") Duration tiempoMaximoEnvio,
+                        @Value("${vehiculos.cambios.latido:15s}") Duration latido) {
+        this.objectMapper = objectMapper;
+        this.anillo = new Cambio[capacidad];
+        this.capacidadPorSuscriptor = capacidadPorSuscriptor;
+        this.tiempoMaximoEnvioNanos = tiempoMaximoEnvio.toNanos();
+        // Sin límite de hilos: un envío bloqueado por un cliente que no lee sólo retiene el suyo
+        this.envio = Executors.newCachedThreadPool(fabricaHilos.hilosNumerados("envio-cambios"));
+        this.latido = new ScheduledThreadPoolExecutor(1, fabricaHilos.hilos("latido-cambios"));
+        // El latido detecta las conexiones muertas y evita que los proxies cierren las inactivas
+        this.latido.scheduleWithFixedDelay(this::latir, latido.toMillis(), latido.toMillis(), TimeUnit.MILLISECONDS);
+        this.desconectados = Counter.builder("vehiculos.cambios.desconectados")
+                .description("Suscriptores del canal de cambios desconectados por no leer a tiempo")
+                .register(meterRegistry);
+        Gauge.builder("vehiculos.cambios.suscriptores", this, c -> c.numeroSuscriptores)
+                .description("Clientes conectados al canal de cambios")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publica el cambio cuando se confirme la transacción en curso (o de inmediato si no hay).
+     * El vehículo se serializa ahora, con el estado que tiene al escribirse.
+     */
+    public void publicar(Cambio.Tipo tipo, Vehiculo vehiculo) {
+        String datos = serializar(tipo == Cambio.Tipo.ELIMINADO ? Map.of("id", vehiculo.getId()) : vehiculo);
+        Long id = vehiculo.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            difundir(tipo, id, datos);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                difundir(tipo, id, datos);
+            }
+        });
+    }
+
+    /**
+     * Conecta un cliente cuyo último evento recibido es {@code ultimoEvento}, con la forma
+     * {@code <época>-<secuencia>} (o ninguno si es nulo: sólo recibirá los siguientes).
+     * @throws IllegalArgumentException si {@code ultimoEvento} no tiene esa forma
+     */
+    public SseEmitter suscribir(String ultimoEvento) {
+        Long desde = null;
+        boolean otraEpoca = false;
+        if (ultimoEvento != null) {
+            int guion = ultimoEvento.lastIndexOf('-');
+            try {
+                desde = Long.parseLong(ultimoEvento.substring(guion + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("ID de evento inválido: " + ultimoEvento, e);
+            }
+            // Sin época (IDs de versiones anteriores) tampoco se sabe a qué secuencia se refiere
+            otraEpoca = guion < 0 || !ultimoEvento.substring(0, guion).equals(epoca);
+        }
+        // Sin límite de tiempo: la conexión vive hasta que el cliente se va o se queda atrás
+        SseEmitter emitter = new SseEmitter(0L);
+        SuscriptorCambios suscriptor;
+        synchronized (this) {
+            long primera = Math.max(1, ultimaSecuencia - anillo.length + 1);
+            List<Cambio> atrasados = new ArrayList<>();
+            Long reinicio = null;
+            if (desde != null && (otraEpoca || desde < primera - 1 || desde > ultimaSecuencia)) {
+                reinicio = primera;
+                desde = primera - 1;
+            }
+            if (desde != null) {
+                for (long secuencia = desde + 1; secuencia <= ultimaSecuencia; secuencia++) {
+                    atrasados.add(anillo[posicion(secuencia)]);
+                }
+            }
+            suscriptor = new SuscriptorCambios(emitter, envio, epoca, capacidadPorSuscriptor, atrasados, reinicio);
+            suscriptores.add(suscriptor);
+            numeroSuscriptores = suscriptores.size();
+        }
+        Runnable quitar = () -> quitar(suscriptor);
+        emitter.onCompletion(quitar);
+        emitter.onTimeout(quitar);
+        emitter.onError(error -> quitar.run());
+        suscriptor.programar();
+        return emitter;
+    }
+
+    @PreDestroy
+    public void detener() {
+        latido.shutdownNow();
+        envio.shutdownNow();
+    }
+
+    private synchronized void difundir(Cambio.Tipo tipo, Long id, String datos) {
+        Cambio cambio = new Cambio(++ultimaSecuencia, tipo, id, datos);
+        anillo[posicion(cambio.secuencia())] = cambio;
+        boolean alguienDesconectado = false;
+        for (SuscriptorCambios suscriptor : suscriptores) {
+            if (!suscriptor.encolar(cambio)) {
+                alguienDesconectado = true;
+                desconectados.increment();
+            }
+        }
+        if (alguienDesconectado) {
+            suscriptores.removeIf(SuscriptorCambios::isCerrado);
+            numeroSuscriptores = suscriptores.size();
+        }
+    }
+
+    private synchronized void quitar(SuscriptorCambios suscriptor) {
+        suscriptor.cerrar();
+        suscriptores.remove(suscriptor);
+        numeroSuscriptores = suscriptores.size();
+    }
+
+    private synchronized void latir() {
+        long ahora = System.nanoTime();
+        boolean alguienDesconectado = false;
+        for (SuscriptorCambios suscriptor : suscriptores) {
+            if (suscriptor.enviandoDesdeHaceMas(ahora, tiempoMaximoEnvioNanos)) {
+                // Su hilo sigue bloqueado hasta que el contenedor corte la escritura; la conexión ya no se usa
+                suscriptor.cerrar();
+                alguienDesconectado = true;
+                desconectados.increment();
+            } else {
+                suscriptor.latir();
+            }
+        }
+        if (alguienDesconectado) {
+            suscriptores.removeIf(SuscriptorCambios::isCerrado);
+            numeroSuscriptores = suscriptores.size();
+        }
+    }
+
+    private int posicion(long secuencia) {
+        return (int) (secuencia % anillo.length);
+    }
+
+    private String serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el cambio", e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.vehiculosapi.cambios;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Conexión SSE de un cliente del canal de cambios. Los cambios se encolan sin bloquear a quien
+ * los publica y los envía un hilo del ejecutor, uno por suscriptor como mucho; si la cola se llena
+ * o un envío se queda bloqueado porque el cliente no lee a tiempo, se cierra la conexión y el
+ * cliente se reanuda con {@code Last-Event-ID}.
+ */
+final class SuscriptorCambios {
+
+    private final SseEmitter emitter;
+    private final Executor envio;
+    private final String epoca;
+    private final int capacidad;
+    private final AtomicBoolean enviando = new AtomicBoolean();
+
+    // Protegidos por this. Los atrasados (reanudación desde el anillo) no cuentan para la capacidad
+    private final Deque<Cambio> atrasados;
+    private final Deque<Cambio> pendientes = new ArrayDeque<>();
+    private boolean latidoPendiente;
+    private Long reinicioDesde;
+
+    private volatile boolean cerrado;
+    private volatile boolean terminado;
+    // System.nanoTime() al empezar el envío en curso, o 0 si no hay ninguno
+    private volatile long envioEmpezado;
+
+    SuscriptorCambios(SseEmitter emitter, Executor envio, String epoca, int capacidad, List<Cambio> atrasados,
+                      Long reinicioDesde) {
+        this.emitter = emitter;
+        this.envio = envio;
+        this.epoca = epoca;
+        this.capacidad = capacidad;
+        this.atrasados = new ArrayDeque<>(atrasados);
+        this.reinicioDesde = reinicioDesde;
+    }
+
+    /**
+     * @return {@code false} si el cliente va demasiado retrasado; a partir de ahí no recibe más cambios
+     */
+    boolean encolar(Cambio cambio) {
+        synchronized (this) {
+            if (pendientes.size() >= capacidad) {
+                cerrado = true;
+            } else {
+                pendientes.addLast(cambio);
+            }
+        }
+        programar();
+        return !cerrado;
+    }
+
+    void latir() {
+        synchronized (this) {
+            latidoPendiente = true;
+        }
+        programar();
+    }
+
+    boolean isCerrado() {
+        return cerrado;
+    }
+
+    void cerrar() {
+        synchronized (this) {
+            // Lo pendiente ya no se enviará: el cliente lo recupera del anillo al reconectar
+            atrasados.clear();
+            pendientes.clear();
+        }
+        cerrado = true;
+    }
+
+    boolean enviandoDesdeHaceMas(long ahora, long limiteNanos) {
+        long empezado = envioEmpezado;
+        return empezado != 0 && ahora - empezado > limiteNanos;
+    }
+
+    // Como mucho un envío en curso por suscriptor, así los eventos salen en orden
+    void programar() {
+        if (enviando.compareAndSet(false, true)) {
+            envio.execute(this::enviar);
+        }
+    }
+
+    private void enviar() {
+        try {
+            while (true) {
+                if (cerrado) {
+                    terminado = true;
+                    emitter.complete();
+                    return;
+                }
+                SseEmitter.SseEventBuilder evento = siguiente();
+                if (evento == null) {
+                    return;
+                }
+                envioEmpezado = System.nanoTime();
+                try {
+                    emitter.send(evento);
+                } finally {
+                    envioEmpezado = 0;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Conexión cerrada por el cliente o ya completada: el contenedor se encarga de terminarla
+            cerrado = true;
+            terminado = true;
+        } finally {
+            enviando.set(false);
+            // Lo encolado (o el cierre) mientras se terminaba este envío no se ha visto todavía
+            if (!terminado && (cerrado || hayAlgoQueEnviar())) {
+                programar();
+            }
+        }
+    }
+
+    private synchronized SseEmitter.SseEventBuilder siguiente() {
+        if (reinicioDesde != null) {
+            // Los cambios pedidos ya no están en el anillo: el cliente debe recargar el listado completo
+            // Con ID: si se reconecta antes del siguiente cambio, se reanuda en esta época sin otro reinicio
+            SseEmitter.SseEventBuilder reinicio = SseEmitter.event()
+                    .id(epoca + "-" + (reinicioDesde - 1))
+                    .name("reinicio")
+                    .data("{\"epoca\":\"" + epoca + "\",\"primeraSecuencia\":" + reinicioDesde + "}");
+            reinicioDesde = null;
+            return reinicio;
+        }
+        Cambio cambio = !atrasados.isEmpty() ? atrasados.pollFirst() : pendientes.pollFirst();
+        if (cambio != null) {
+            latidoPendiente = false;
+            return SseEmitter.event()
+                    .id(epoca + "-" + cambio.secuencia())
+                    .name(cambio.tipo().name())
+                    .data(cambio.datos());
+        }
+        if (latidoPendiente) {
+            latidoPendiente = false;
+            return SseEmitter.event().comment("latido");
+        }
+        return null;
+    }
+
+    private synchronized boolean hayAlgoQueEnviar() {
+        return reinicioDesde != null || !atrasados.isEmpty() || !pendientes.isEmpty() || latidoPendiente;
+    }
+}
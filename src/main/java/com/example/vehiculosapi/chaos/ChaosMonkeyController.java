@@ -1,10 +1,13 @@
 package com.example.vehiculosapi.chaos;
 
+import com.example.vehiculosapi.metrics.Operacion;
 import de.codecentric.spring.boot.chaos.monkey.configuration.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,9 +19,11 @@ import java.util.Collections;
 public class ChaosMonkeyController {
 
     private final ChaosMonkeySettings chaosMonkeySettings;
+    private final InyectorFallos inyectorFallos;
 
-    public ChaosMonkeyController(ChaosMonkeySettings chaosMonkeySettings) {
+    public ChaosMonkeyController(ChaosMonkeySettings chaosMonkeySettings, InyectorFallos inyectorFallos) {
         this.chaosMonkeySettings = chaosMonkeySettings;
+        this.inyectorFallos = inyectorFallos;
     }
 
     @GetMapping("/status")
@@ -227,4 +232,66 @@ public class ChaosMonkeyController {
         
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/inyector")
+    @Operation(summary = "Obtener el estado del inyector de fallos propio")
+    public ResponseEntity<Map<String, Object>> getInyector() {
+        Map<String, Object> estado = new HashMap<>();
+        estado.put("enabled", inyectorFallos.isActivo());
+        estado.put("operaciones", inyectorFallos.operaciones());
+        estado.put("rutas", inyectorFallos.rutas());
+        return ResponseEntity.ok(estado);
+    }
+
+    @PostMapping("/inyector/enable")
+    @Operation(summary = "Habilitar el inyector de fallos")
+    public ResponseEntity<Map<String, Object>> enableInyector() {
+        inyectorFallos.activar(true);
+        return getInyector();
+    }
+
+    @PostMapping("/inyector/disable")
+    @Operation(summary = "Deshabilitar el inyector de fallos")
+    public ResponseEntity<Map<String, Object>> disableInyector() {
+        inyectorFallos.activar(false);
+        return getInyector();
+    }
+
+    @PostMapping("/inyector/operaciones/{operacion}")
+    @Operation(summary = "Configurar la probabilidad de error de una operación del servicio")
+    public ResponseEntity<Map<String, Object>> configurarOperacion(
+            @PathVariable Operacion operacion,
+            @RequestParam double probabilidadError) {
+        try {
+            inyectorFallos.configurarOperacion(operacion, probabilidadError);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return getInyector();
+    }
+
+    @PostMapping("/inyector/rutas")
+    @Operation(summary = "Configurar errores y latencia para una ruta (patrón como /api/vehiculos/{id})")
+    public ResponseEntity<Map<String, Object>> configurarRuta(
+            @RequestParam(required = false) String metodo,
+            @RequestParam String ruta,
+            @RequestParam(defaultValue = "0") double probabilidadError,
+            @RequestParam(defaultValue = "0") double probabilidadLatencia,
+            @RequestParam(defaultValue = "1000") long latenciaMinima,
+            @RequestParam(defaultValue = "3000") long latenciaMaxima) {
+        try {
+            inyectorFallos.configurarRuta(new ReglaRuta(metodo, ruta, probabilidadError, probabilidadLatencia,
+                    latenciaMinima, latenciaMaxima));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return getInyector();
+    }
+
+    @DeleteMapping("/inyector/reglas")
+    @Operation(summary = "Quitar todas las reglas del inyector de fallos")
+    public ResponseEntity<Map<String, Object>> limpiarInyector() {
+        inyectorFallos.limpiar();
+        return getInyector();
+    }
 }
@@ -0,0 +1,17 @@
+package com.example.vehiculosapi.chaos;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Error provocado a propósito por {@link InyectorFallos}. Para el circuit breaker, los reintentos
+ * y los fallbacks es un fallo más del servicio.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class FalloInyectadoException extends RuntimeException {
+
+    public FalloInyectadoException(String mensaje) {
+        // Sin traza: se lanza por sorteo en caminos calientes y su origen ya está en el mensaje
+        super(mensaje, null, false, false);
+    }
+}
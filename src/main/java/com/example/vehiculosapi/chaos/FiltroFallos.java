@@ -0,0 +1,89 @@
+package com.example.vehiculosapi.chaos;
+
+import com.example.vehiculosapi.config.FabricaHilos;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica las reglas por ruta de {@link InyectorFallos}. La latencia no bloquea el hilo del
+ * contenedor: la petición pasa a modo asíncrono y un temporizador la reanuda (o responde 503)
+ * al vencer el retardo. Sin reglas activas sólo se consulta el plan del inyector.
+ */
+@Component
+@Profile("!reactive")
+public class FiltroFallos extends OncePerRequestFilter {
+
+    // Margen sobre el retardo para que el contenedor no dé la petición por caducada mientras espera
+    private static final long MARGEN_ASINCRONO_MS = 10_000;
+
+    private final InyectorFallos inyectorFallos;
+    private final ObjectMapper objectMapper;
+    private final ScheduledThreadPoolExecutor temporizador;
+
+    public FiltroFallos(InyectorFallos inyectorFallos, ObjectMapper objectMapper, FabricaHilos fabricaHilos) {
+        this.inyectorFallos = inyectorFallos;
+        this.objectMapper = objectMapper;
+        this.temporizador = new ScheduledThreadPoolExecutor(1, fabricaHilos.hilos("retardo-fallos"));
+        this.temporizador.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        InyectorFallos.Sorteo sorteo = inyectorFallos.sortearRuta(request.getMethod(), request.getRequestURI());
+        if (sorteo == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (sorteo.retardoMs() == 0) {
+            responderError(request, response);
+            return;
+        }
+        // Al reanudarse, la petición vuelve a recorrer la cadena como despacho asíncrono, que este filtro no sortea
+        AsyncContext contexto = request.startAsync();
+        contexto.setTimeout(sorteo.retardoMs() + MARGEN_ASINCRONO_MS);
+        temporizador.schedule(() -> {
+            if (!sorteo.error()) {
+                contexto.dispatch();
+                return;
+            }
+            try {
+                responderError((HttpServletRequest) contexto.getRequest(), (HttpServletResponse) contexto.getResponse());
+            } catch (IOException e) {
+                logger.debug("No se pudo enviar el error inyectado", e);
+            } finally {
+                contexto.complete();
+            }
+        }, sorteo.retardoMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        temporizador.shutdownNow();
+    }
+
+    private void responderError(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ProblemDetail detalle = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE,
+                "Fallo inyectado en " + request.getMethod() + " " + request.getRequestURI());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), detalle);
+    }
+}
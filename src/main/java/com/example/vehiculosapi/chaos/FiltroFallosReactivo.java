@@ -0,0 +1,41 @@
+package com.example.vehiculosapi.chaos;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Equivalente de {@link FiltroFallos} para la variante reactiva: la latencia es un {@code Mono.delay}.
+ */
+@Component
+@Profile("reactive")
+public class FiltroFallosReactivo implements WebFilter {
+
+    private final InyectorFallos inyectorFallos;
+
+    public FiltroFallosReactivo(InyectorFallos inyectorFallos) {
+        this.inyectorFallos = inyectorFallos;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String ruta = request.getPath().pathWithinApplication().value();
+        InyectorFallos.Sorteo sorteo = inyectorFallos.sortearRuta(request.getMethod().name(), ruta);
+        if (sorteo == null) {
+            return chain.filter(exchange);
+        }
+        Mono<Void> continuacion = sorteo.error()
+                ? Mono.error(new FalloInyectadoException("Fallo inyectado en " + request.getMethod() + " " + ruta))
+                : Mono.defer(() -> chain.filter(exchange));
+        return sorteo.retardoMs() > 0
+                ? Mono.delay(Duration.ofMillis(sorteo.retardoMs())).then(continuacion)
+                : continuacion;
+    }
+}
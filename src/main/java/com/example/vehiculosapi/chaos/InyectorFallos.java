@@ -0,0 +1,177 @@
+package com.example.vehiculosapi.chaos;
+
+import com.example.vehiculosapi.metrics.Operacion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Inyección de fallos propia, sin proxies alrededor de los beans. El servicio llama a
+ * {@link #inyectar(Operacion)} al empezar cada operación y los filtros de fallos consultan
+ * {@link #sortearRuta(String, String)} en cada petición. Las tablas de probabilidades forman un
+ * {@link Plan} inmutable que se sustituye entero al cambiar algo, así que con la inyección
+ * desactivada el coste es leer un campo volátil y comparar. Los sorteos usan
+ * {@link ThreadLocalRandom}, sin estado compartido entre hilos.
+ */
+@Component
+public class InyectorFallos {
+
+    private final Counter errores;
+    private final Counter latencias;
+
+    private volatile Plan plan;
+
+    public InyectorFallos(MeterRegistry meterRegistry,
+                          @Value("${vehiculos.fallos.activo:false}") boolean activo,
+                          @Value("${vehiculos.fallos.probabilidad-error:0.0}") double probabilidadError) {
+        this.errores = Counter.builder("vehiculos.fallos.inyectados")
+                .description("Fallos provocados por el inyector de fallos")
+                .tag("tipo", "error")
+                .register(meterRegistry);
+        this.latencias = Counter.builder("vehiculos.fallos.inyectados")
+                .description("Fallos provocados por el inyector de fallos")
+                .tag("tipo", "latencia")
+                .register(meterRegistry);
+        validarProbabilidad(probabilidadError);
+        double[] porOperacion = new double[Operacion.values().length];
+        Arrays.fill(porOperacion, probabilidadError);
+        this.plan = new Plan(activo, porOperacion, new RutaCompilada[0]);
+    }
+
+    /**
+     * Lanza {@link FalloInyectadoException} con la probabilidad configurada para la operación.
+     */
+    public void inyectar(Operacion operacion) {
+        Plan actual = plan;
+        if (!actual.activo()) {
+            return;
+        }
+        double probabilidad = actual.porOperacion()[operacion.ordinal()];
+        if (probabilidad > 0 && ThreadLocalRandom.current().nextDouble() < probabilidad) {
+            errores.increment();
+            throw new FalloInyectadoException("Fallo inyectado en " + operacion.getNombre());
+        }
+    }
+
+    /**
+     * Sortea los fallos de la primera regla que coincide con la petición.
+     * @return {@code null} si no hay que inyectar nada
+     */
+    public Sorteo sortearRuta(String metodo, String ruta) {
+        Plan actual = plan;
+        if (!actual.activo() || actual.rutas().length == 0) {
+            return null;
+        }
+        PathContainer camino = PathContainer.parsePath(ruta);
+        for (RutaCompilada compilada : actual.rutas()) {
+            ReglaRuta regla = compilada.regla();
+            if ((regla.metodo() == null || regla.metodo().equals(metodo)) && compilada.patron().matches(camino)) {
+                return sortear(regla);
+            }
+        }
+        return null;
+    }
+
+    public boolean isActivo() {
+        return plan.activo();
+    }
+
+    public Map<Operacion, Double> operaciones() {
+        Plan actual = plan;
+        Map<Operacion, Double> operaciones = new EnumMap<>(Operacion.class);
+        for (Operacion operacion : Operacion.values()) {
+            operaciones.put(operacion, actual.porOperacion()[operacion.ordinal()]);
+        }
+        return operaciones;
+    }
+
+    public List<ReglaRuta> rutas() {
+        List<ReglaRuta> rutas = new ArrayList<>();
+        for (RutaCompilada compilada : plan.rutas()) {
+            rutas.add(compilada.regla());
+        }
+        return rutas;
+    }
+
+    public synchronized void activar(boolean activo) {
+        plan = new Plan(activo, plan.porOperacion(), plan.rutas());
+    }
+
+    public synchronized void configurarOperacion(Operacion operacion, double probabilidadError) {
+        validarProbabilidad(probabilidadError);
+        double[] porOperacion = plan.porOperacion().clone();
+        porOperacion[operacion.ordinal()] = probabilidadError;
+        plan = new Plan(plan.activo(), porOperacion, plan.rutas());
+    }
+
+    /**
+     * Añade la regla o sustituye la que ya hubiera para el mismo método y ruta.
+     */
+    public synchronized void configurarRuta(ReglaRuta regla) {
+        List<RutaCompilada> rutas = new ArrayList<>();
+        for (RutaCompilada compilada : plan.rutas()) {
+            ReglaRuta existente = compilada.regla();
+            if (!(existente.ruta().equals(regla.ruta())
+                    && Objects.equals(existente.metodo(), regla.metodo()))) {
+                rutas.add(compilada);
+            }
+        }
+        rutas.add(new RutaCompilada(regla, PathPatternParser.defaultInstance.parse(regla.ruta())));
+        plan = new Plan(plan.activo(), plan.porOperacion(), rutas.toArray(RutaCompilada[]::new));
+    }
+
+    /**
+     * Quita todas las reglas sin cambiar si la inyección está activa.
+     */
+    public synchronized void limpiar() {
+        plan = new Plan(plan.activo(), new double[Operacion.values().length], new RutaCompilada[0]);
+    }
+
+    static void validarProbabilidad(double probabilidad) {
+        if (!(probabilidad >= 0 && probabilidad <= 1)) {
+            throw new IllegalArgumentException("La probabilidad debe estar entre 0 y 1: " + probabilidad);
+        }
+    }
+
+    private Sorteo sortear(ReglaRuta regla) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        boolean error = regla.probabilidadError() > 0 && aleatorio.nextDouble() < regla.probabilidadError();
+        long retardoMs = 0;
+        if (regla.probabilidadLatencia() > 0 && aleatorio.nextDouble() < regla.probabilidadLatencia()) {
+            retardoMs = regla.latenciaMinimaMs() == regla.latenciaMaximaMs()
+                    ? regla.latenciaMinimaMs()
+                    : aleatorio.nextLong(regla.latenciaMinimaMs(), regla.latenciaMaximaMs() + 1);
+        }
+        if (error) {
+            errores.increment();
+        }
+        if (retardoMs > 0) {
+            latencias.increment();
+        }
+        return error || retardoMs > 0 ? new Sorteo(retardoMs, error) : null;
+    }
+
+    /**
+     * Lo que toca a una petición: esperar {@code retardoMs} (sin ocupar el hilo) y, si {@code error}, responder 503.
+     */
+    public record Sorteo(long retardoMs, boolean error) {
+    }
+
+    private record Plan(boolean activo, double[] porOperacion, RutaCompilada[] rutas) {
+    }
+
+    private record RutaCompilada(ReglaRuta regla, PathPattern patron) {
+    }
+}
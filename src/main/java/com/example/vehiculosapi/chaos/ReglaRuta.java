@@ -0,0 +1,27 @@
+package com.example.vehiculosapi.chaos;
+
+/**
+ * Fallos a inyectar en las peticiones a una ruta. {@code ruta} es un patrón como los de
+ * {@code @RequestMapping} ({@code /api/vehiculos/{id}}) y {@code metodo} nulo vale para cualquiera.
+ * La latencia, entre {@code latenciaMinimaMs} y {@code latenciaMaximaMs}, se aplica antes de
+ * atender la petición; el error responde 503 sin llegar a atenderla.
+ */
+public record ReglaRuta(String metodo,
+                        String ruta,
+                        double probabilidadError,
+                        double probabilidadLatencia,
+                        long latenciaMinimaMs,
+                        long latenciaMaximaMs) {
+
+    public ReglaRuta {
+        InyectorFallos.validarProbabilidad(probabilidadError);
+        InyectorFallos.validarProbabilidad(probabilidadLatencia);
+        if (ruta == null || !ruta.startsWith("/")) {
+            throw new IllegalArgumentException("La ruta debe empezar por '/': " + ruta);
+        }
+        if (latenciaMinimaMs < 0 || latenciaMaximaMs < latenciaMinimaMs) {
+            throw new IllegalArgumentException("Rango de latencia inválido: " + latenciaMinimaMs + "-" + latenciaMaximaMs);
+        }
+        metodo = metodo == null || metodo.isBlank() ? null : metodo.toUpperCase();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.vehiculosapi.concurrencia;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bulkhead de Resilience4j ({@code resilience4j.bulkhead.instances.<nombre>}) en el que se ejecuta
+ * el método, precedido del limitador adaptativo. A diferencia de {@code @Bulkhead}, se aplica por
+ * fuera del reintento y del circuit breaker, así que un rechazo no se reintenta ni abre el circuito.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Compartimento {
+
+    String value();
+}
@@ -0,0 +1,81 @@
+package com.example.vehiculosapi.concurrencia;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Aplica a los métodos anotados con {@link Compartimento} primero el {@link LimitadorAdaptativo}
+ * (si está activo) y después su bulkhead. Lo que no cabe se rechaza al momento con
+ * {@link SobrecargaException} o {@link BulkheadFullException}, sin ocupar hilos del servicio.
+ */
+public class ControlConcurrenciaInterceptor implements MethodInterceptor {
+
+    // El advisor se crea antes que el registro de métricas; sus dependencias se resuelven en la primera llamada
+    private final Supplier<LimitadorAdaptativo> proveedorLimitador;
+    private final Supplier<BulkheadRegistry> proveedorBulkheads;
+    private final ConcurrentMap<Method, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private volatile boolean resuelto;
+    private LimitadorAdaptativo limitador;
+    private BulkheadRegistry bulkheadRegistry;
+
+    public ControlConcurrenciaInterceptor(Supplier<LimitadorAdaptativo> proveedorLimitador,
+                                          Supplier<BulkheadRegistry> proveedorBulkheads) {
+        this.proveedorLimitador = proveedorLimitador;
+        this.proveedorBulkheads = proveedorBulkheads;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!resuelto) {
+            resolver();
+        }
+        if (limitador == null) {
+            return enCompartimento(invocation);
+        }
+        if (!limitador.adquirir()) {
+            throw new SobrecargaException("Servicio de vehículos saturado: límite de "
+                    + (int) limitador.getLimite() + " llamadas concurrentes alcanzado");
+        }
+        long inicio = System.nanoTime();
+        try {
+            return enCompartimento(invocation);
+        } finally {
+            limitador.liberar(System.nanoTime() - inicio);
+        }
+    }
+
+    private Object enCompartimento(MethodInvocation invocation) throws Throwable {
+        Bulkhead bulkhead = bulkhead(invocation.getMethod());
+        bulkhead.acquirePermission();
+        try {
+            return invocation.proceed();
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    private Bulkhead bulkhead(Method metodo) {
+        Bulkhead bulkhead = bulkheads.get(metodo);
+        if (bulkhead == null) {
+            bulkhead = bulkheads.computeIfAbsent(metodo,
+                    m -> bulkheadRegistry.bulkhead(m.getAnnotation(Compartimento.class).value()));
+        }
+        return bulkhead;
+    }
+
+    private synchronized void resolver() {
+        if (!resuelto) {
+            limitador = proveedorLimitador.get();
+            bulkheadRegistry = proveedorBulkheads.get();
+            resuelto = true;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.vehiculosapi.concurrencia;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite de peticiones concurrentes que se ajusta con la latencia observada (AIMD):
+ * mientras las llamadas terminan por debajo de {@code latenciaMaxima} el límite crece en
+ * uno por cada "ronda" completa de llamadas, y cuando una la supera se reduce un
+ * {@code factorReduccion}, como mucho una vez por cada {@code latenciaMaxima} para no
+ * hundirlo con todas las llamadas lentas de la misma ráfaga.
+ * Lo que excede el límite se rechaza al momento en lugar de encolarse.
+ */
+public class LimitadorAdaptativo {
+
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final long latenciaMaximaNanos;
+    private final double factorReduccion;
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final Counter rechazos;
+    private volatile double limite;
+    private long ultimaReduccion;
+
+    public LimitadorAdaptativo(int limiteInicial, int limiteMinimo, int limiteMaximo,
+                               long latenciaMaximaNanos, double factorReduccion, MeterRegistry meterRegistry) {
+        this.limite = limiteInicial;
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.latenciaMaximaNanos = latenciaMaximaNanos;
+        this.factorReduccion = factorReduccion;
+        this.ultimaReduccion = System.nanoTime() - latenciaMaximaNanos;
+        Gauge.builder("vehiculos.concurrencia.limite", this, LimitadorAdaptativo::getLimite)
+                .description("Límite adaptativo de llamadas concurrentes al servicio de vehículos")
+                .register(meterRegistry);
+        Gauge.builder("vehiculos.concurrencia.en.curso", enCurso, AtomicInteger::get)
+                .description("Llamadas al servicio de vehículos en curso")
+                .register(meterRegistry);
+        this.rechazos = Counter.builder("vehiculos.concurrencia.rechazos")
+                .description("Llamadas rechazadas por superar el límite de concurrencia")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return {@code false} si ya hay tantas llamadas en curso como permite el límite
+     */
+    public boolean adquirir() {
+        int actual;
+        do {
+            actual = enCurso.get();
+            if (actual >= (int) limite) {
+                rechazos.increment();
+                return false;
+            }
+        } while (!enCurso.compareAndSet(actual, actual + 1));
+        return true;
+    }
+
+    public void liberar(long latenciaNanos) {
+        int enVuelo = enCurso.getAndDecrement();
+        ajustar(latenciaNanos, enVuelo);
+    }
+
+    private synchronized void ajustar(long latenciaNanos, int enVuelo) {
+        if (latenciaNanos > latenciaMaximaNanos) {
+            long ahora = System.nanoTime();
+            if (ahora - ultimaReduccion >= latenciaMaximaNanos) {
+                limite = Math.max(limiteMinimo, limite * factorReduccion);
+                ultimaReduccion = ahora;
+            }
+        } else if (enVuelo * 2 >= limite) {
+            // Sólo se amplía si el límite se está usando; si no, crecería sin haberse probado
+            limite = Math.min(limiteMaximo, limite + 1 / limite);
+        }
+    }
+
+    public double getLimite() {
+        return limite;
+    }
+
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+}
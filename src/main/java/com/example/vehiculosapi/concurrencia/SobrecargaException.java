@@ -0,0 +1,12 @@
+package com.example.vehiculosapi.concurrencia;
+
+/**
+ * La llamada se rechazó sin ejecutarse porque el servicio está saturado.
+ * Se responde con 503 para que el cliente reintente más tarde.
+ */
+public class SobrecargaException extends RuntimeException {
+
+    public SobrecargaException(String mensaje) {
+        super(mensaje);
+    }
+}
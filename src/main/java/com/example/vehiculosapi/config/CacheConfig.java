@@ -0,0 +1,15 @@
+package com.example.vehiculosapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caché de lectura de vehículos por ID. El proveedor, el tamaño y el TTL se definen con
+ * {@code spring.cache.*}; el perfil {@code sin-cache} la desactiva para comparar latencias.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CACHE_VEHICULOS = "vehiculos";
+}
@@ -0,0 +1,55 @@
+package com.example.vehiculosapi.config;
+
+import com.example.vehiculosapi.concurrencia.Compartimento;
+import com.example.vehiculosapi.concurrencia.ControlConcurrenciaInterceptor;
+import com.example.vehiculosapi.concurrencia.LimitadorAdaptativo;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Bulkheads de lecturas y escrituras ({@link Compartimento}) con un limitador de concurrencia
+ * adaptativo delante, que se puede desactivar con {@code vehiculos.concurrencia.activo=false}.
+ */
+@Configuration
+public class ConcurrenciaConfig {
+
+    // Por fuera de todos los aspectos de Resilience4j (el reintento, el más externo, usa LOWEST_PRECEDENCE - 4)
+    private static final int ORDEN_CONTROL_CONCURRENCIA = Ordered.LOWEST_PRECEDENCE - 6;
+
+    @Bean
+    @ConditionalOnProperty(name = "vehiculos.concurrencia.activo", havingValue = "true", matchIfMissing = true)
+    public LimitadorAdaptativo limitadorAdaptativo(
+            @Value("${vehiculos.concurrencia.limite-inicial:20}") int limiteInicial,
+            @Value("${vehiculos.concurrencia.limite-minimo:2}") int limiteMinimo,
+            @Value("${vehiculos.concurrencia.limite-maximo:200}") int limiteMaximo,
+            @Value("${vehiculos.concurrencia.latencia-maxima:500ms}") Duration latenciaMaxima,
+            @Value("${vehiculos.concurrencia.factor-reduccion:0.9}") double factorReduccion,
+            MeterRegistry meterRegistry) {
+        return new LimitadorAdaptativo(limiteInicial, limiteMinimo, limiteMaximo,
+                latenciaMaxima.toNanos(), factorReduccion, meterRegistry);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor controlConcurrenciaAdvisor(ObjectProvider<LimitadorAdaptativo> limitador,
+                                                     ObjectProvider<BulkheadRegistry> bulkheadRegistry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(Compartimento.class),
+                new ControlConcurrenciaInterceptor(limitador::getIfAvailable, bulkheadRegistry::getObject));
+        advisor.setOrder(ORDEN_CONTROL_CONCURRENCIA);
+        return advisor;
+    }
+}
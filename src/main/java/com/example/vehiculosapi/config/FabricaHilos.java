@@ -0,0 +1,70 @@
+package com.example.vehiculosapi.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hilos de los ejecutores propios de la aplicación (drenado, salud, canal de cambios, registro,
+ * coberturas...). Con {@code spring.threads.virtual.enabled} en Java 21 o superior son virtuales,
+ * igual que los de Tomcat; si no, de plataforma y daemon, para no retener la JVM al parar.
+ */
+@Component
+public class FabricaHilos {
+
+    private final boolean virtuales;
+
+    public FabricaHilos(Environment environment) {
+        this.virtuales = Threading.VIRTUAL.isActive(environment);
+    }
+
+    public boolean isVirtuales() {
+        return virtuales;
+    }
+
+    /**
+     * Todos los hilos con el mismo nombre: para los ejecutores de un solo hilo.
+     */
+    public ThreadFactory hilos(String nombre) {
+        if (virtuales) {
+            return virtual(nombre, null);
+        }
+        return tarea -> plataforma(tarea, nombre);
+    }
+
+    /**
+     * Hilos {@code <prefijo>-1}, {@code <prefijo>-2}...
+     */
+    public ThreadFactory hilosNumerados(String prefijo) {
+        if (virtuales) {
+            return virtual(prefijo + "-", 1L);
+        }
+        AtomicInteger secuencia = new AtomicInteger();
+        return tarea -> plataforma(tarea, prefijo + "-" + secuencia.incrementAndGet());
+    }
+
+    private static Thread plataforma(Runnable tarea, String nombre) {
+        Thread hilo = new Thread(tarea, nombre);
+        hilo.setDaemon(true);
+        return hilo;
+    }
+
+    // Thread.ofVirtual() no existe al compilar para Java 17: se llega a él por reflexión
+    private static ThreadFactory virtual(String nombre, Long primero) {
+        try {
+            Class<?> constructor = Class.forName("java.lang.Thread$Builder");
+            Object hilos = Thread.class.getMethod("ofVirtual").invoke(null);
+            hilos = primero == null
+                    ? constructor.getMethod("name", String.class).invoke(hilos, nombre)
+                    : constructor.getMethod("name", String.class, long.class).invoke(hilos, nombre, primero);
+            return (ThreadFactory) constructor.getMethod("factory").invoke(hilos);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+                 | InvocationTargetException e) {
+            throw new IllegalStateException("No se pudo crear la fábrica de hilos virtuales", e);
+        }
+    }
+}
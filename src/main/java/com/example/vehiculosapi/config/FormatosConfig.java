@@ -0,0 +1,50 @@
+package com.example.vehiculosapi.config;
+
+import com.example.vehiculosapi.dto.PaginaColumnarSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formatos binarios que se sirven con {@code Accept: application/cbor} o
+ * {@code Accept: application/x-jackson-smile}; sin ellos se sigue respondiendo JSON. Usan la misma
+ * configuración de Jackson que JSON y escriben las páginas de vehículos por columnas.
+ * Spring Boot coloca estos convertidores en el lugar de los predeterminados, detrás del de JSON.
+ */
+@Configuration
+public class FormatosConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder
+                .factory(new CBORFactory())
+                .postConfigurer(mapper -> mapper.registerModule(moduloColumnar()))
+                .build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder
+                .factory(fabricaSmile())
+                .postConfigurer(mapper -> mapper.registerModule(moduloColumnar()))
+                .build());
+    }
+
+    public static Module moduloColumnar() {
+        return new SimpleModule("paginaColumnar").addSerializer(new PaginaColumnarSerializer());
+    }
+
+    // Con valores compartidos, las marcas, modelos y colores repetidos se envían como referencias
+    public static SmileFactory fabricaSmile() {
+        return SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.vehiculosapi.config;
 
 import com.example.vehiculosapi.health.AppHealthIndicator;
+import com.example.vehiculosapi.health.IndicadoresSaludEnSegundoPlano;
 import org.springframework.boot.availability.LivenessState;
 import org.springframework.boot.availability.ReadinessState;
 import org.springframework.boot.availability.AvailabilityChangeEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.jdbc.DataSourceHealthIndicator;
@@ -18,6 +20,12 @@ import javax.sql.DataSource;
 @Configuration
 public class HealthConfig {
 
+    // Estático: los post-procesadores se crean antes que el resto de beans de la configuración
+    @Bean
+    public static IndicadoresSaludEnSegundoPlano indicadoresSaludEnSegundoPlano(Environment environment) {
+        return new IndicadoresSaludEnSegundoPlano(environment);
+    }
+
     @Bean
     public HealthIndicator dbHealthIndicator(DataSource dataSource) {
         DataSourceHealthIndicator indicator = new DataSourceHealthIndicator(dataSource);
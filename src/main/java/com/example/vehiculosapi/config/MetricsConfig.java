@@ -1,59 +1,67 @@
 package com.example.vehiculosapi.config;
 
+import com.example.vehiculosapi.metrics.MedicionOperacionInterceptor;
+import com.example.vehiculosapi.metrics.Medido;
+import com.example.vehiculosapi.metrics.Operacion;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Supplier;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
-@EnableScheduling
 public class MetricsConfig {
 
-    private final AtomicInteger activeVehicles = new AtomicInteger(0);
-    private final MeterRegistry meterRegistry;
+    // Medidores por operación registrados al arrancar e indexados por ordinal:
+    // en el camino caliente no hay búsquedas en el registro ni arrays de tags
+    private final Timer[] timers;
+    private final Counter[] contadores;
 
     public MetricsConfig(MeterRegistry meterRegistry) {
-        this.meterRegistry = meterRegistry;
+        Operacion[] operaciones = Operacion.values();
+        this.timers = new Timer[operaciones.length];
+        this.contadores = new Counter[operaciones.length];
+        for (Operacion operacion : operaciones) {
+            timers[operacion.ordinal()] = Timer.builder("vehiculo.operacion.tiempo")
+                    .description("Tiempo de operaciones de vehículos")
+                    .tag("operacion", operacion.getNombre())
+                    .register(meterRegistry);
+            contadores[operacion.ordinal()] = Counter.builder("vehiculo.operacion")
+                    .description("Operaciones de vehículos ejecutadas")
+                    .tag("tipo", operacion.getTipo())
+                    .register(meterRegistry);
+        }
     }
 
+    // Por debajo de los aspectos de resiliencia (circuit breaker, reintento) y por encima de caché y transacción
     @Bean
-    public Timer vehicleOperationTimer() {
-        return Timer.builder("vehiculo.operacion.tiempo")
-                .description("Tiempo de operaciones de vehículos")
-                .tags("tipo", "operacion")
-                .register(meterRegistry);
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor medicionOperacionAdvisor(ObjectProvider<MetricsConfig> metricsConfig) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(Medido.class),
+                new MedicionOperacionInterceptor(metricsConfig::getObject));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return advisor;
     }
 
-    @Bean
-    public AtomicInteger activeVehiclesGauge() {
-        return meterRegistry.gauge("vehiculos.activos", activeVehicles);
+    public Timer timer(Operacion operacion) {
+        return timers[operacion.ordinal()];
     }
 
-    @Scheduled(fixedRate = 30000) // Actualiza cada 30 segundos
-    public void updateActiveVehicles() {
-        // Aquí podrías implementar la lógica para obtener el número real de vehículos activos
-        // Por ahora, solo incrementamos el contador para demostración
-        activeVehicles.set((activeVehicles.get() + 1) % 100);
+    public void contar(Operacion operacion) {
+        contadores[operacion.ordinal()].increment();
     }
 
-    public <T> T recordOperationTime(Supplier<T> operation, String operationName) {
-        Timer.Sample sample = Timer.start(meterRegistry);
-        try {
-            return operation.get();
-        } finally {
-            sample.stop(meterRegistry.timer("vehiculo.operacion.tiempo", "operacion", operationName));
-        }
-    }
-    
-    public void recordOperationTime(Runnable operation, String operationName) {
-        recordOperationTime(() -> {
-            operation.run();
-            return null;
-        }, operationName);
+    public void registrarTiempo(Operacion operacion, long nanos) {
+        timers[operacion.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
     }
 }
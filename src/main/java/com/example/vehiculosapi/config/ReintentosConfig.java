@@ -0,0 +1,99 @@
+package com.example.vehiculosapi.config;
+
+import com.example.vehiculosapi.concurrencia.SobrecargaException;
+import com.example.vehiculosapi.diferido.EscrituraDiferidaException;
+import com.example.vehiculosapi.diferido.EscriturasPendientesException;
+import com.example.vehiculosapi.resiliencia.PresupuestoReintentos;
+import com.example.vehiculosapi.resiliencia.PresupuestoReintentosInterceptor;
+import com.example.vehiculosapi.service.VersionConflictoException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.common.retry.configuration.RetryConfigCustomizer;
+import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Políticas de reintento por operación (las esperas se configuran en {@code resilience4j.retry.instances.*})
+ * y el presupuesto global que limita los reintentos a un porcentaje del tráfico.
+ */
+@Configuration
+public class ReintentosConfig {
+
+    public static final String REINTENTO_LECTURAS = "vehiculoLecturas";
+    public static final String REINTENTO_ESCRITURAS_IDEMPOTENTES = "vehiculoEscriturasIdempotentes";
+
+    // Justo por fuera del aspecto de reintento (LOWEST_PRECEDENCE - 4) y por dentro del control de concurrencia
+    private static final int ORDEN_PRESUPUESTO = Ordered.LOWEST_PRECEDENCE - 5;
+
+    // Errores del cliente o rechazos deliberados: reintentarlos no cambia el resultado
+    private static final List<Class<? extends Throwable>> NO_REINTENTABLES = List.of(
+            IllegalArgumentException.class,
+            EntityNotFoundException.class,
+            VersionConflictoException.class,
+            CallNotPermittedException.class,
+            BulkheadFullException.class,
+            SobrecargaException.class,
+            EscrituraDiferidaException.class,
+            EscriturasPendientesException.class);
+
+    @Bean
+    public PresupuestoReintentos presupuestoReintentos(
+            @Value("${vehiculos.reintentos.presupuesto.porcentaje:10}") double porcentaje,
+            @Value("${vehiculos.reintentos.presupuesto.saldo-inicial:10}") int saldoInicial,
+            @Value("${vehiculos.reintentos.presupuesto.maximo-acumulado:100}") int maximoAcumulado,
+            MeterRegistry meterRegistry) {
+        return new PresupuestoReintentos(porcentaje, saldoInicial, maximoAcumulado, meterRegistry);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor presupuestoReintentosAdvisor(ObjectProvider<PresupuestoReintentos> presupuesto) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(Retry.class),
+                new PresupuestoReintentosInterceptor(presupuesto::getObject));
+        advisor.setOrder(ORDEN_PRESUPUESTO);
+        return advisor;
+    }
+
+    @Bean
+    public RetryConfigCustomizer reintentoLecturas(PresupuestoReintentos presupuesto) {
+        return RetryConfigCustomizer.of(REINTENTO_LECTURAS,
+                builder -> builder.retryOnException(reintentable(presupuesto, builder.build().getMaxAttempts())));
+    }
+
+    @Bean
+    public RetryConfigCustomizer reintentoEscriturasIdempotentes(PresupuestoReintentos presupuesto) {
+        return RetryConfigCustomizer.of(REINTENTO_ESCRITURAS_IDEMPOTENTES,
+                builder -> builder.retryOnException(reintentable(presupuesto, builder.build().getMaxAttempts())));
+    }
+
+    // Sólo consume presupuesto si el error admite reintento y quedan intentos: resilience4j evalúa este
+    // predicado antes que ignore-exceptions y que el número de intentos. El customizer se aplica después
+    // de las propiedades, así que el builder ya trae max-attempts
+    private static Predicate<Throwable> reintentable(PresupuestoReintentos presupuesto, int maximoIntentos) {
+        return e -> esReintentable(e) && presupuesto.reintentar(maximoIntentos);
+    }
+
+    private static boolean esReintentable(Throwable e) {
+        for (Class<? extends Throwable> tipo : NO_REINTENTABLES) {
+            if (tipo.isInstance(e)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.vehiculosapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadsConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    // Spring Boot ignora spring.threads.virtual.enabled por debajo de Java 21 sin avisar
+    @EventListener(ApplicationReadyEvent.class)
+    public void verificarHilosVirtuales() {
+        if (Runtime.version().feature() < 21) {
+            logger.warn("Perfil virtual-threads activo en Java {}: se siguen usando hilos de plataforma. "
+                    + "Compile y ejecute con Java 21 (mvn -Pjava21)", Runtime.version().feature());
+        } else {
+            logger.info("Atendiendo peticiones y tareas en segundo plano con hilos virtuales");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.vehiculosapi.controller;
+
+import com.example.vehiculosapi.diferido.EscrituraDiferidaException;
+import com.example.vehiculosapi.diferido.EscriturasPendientesException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Las escrituras anotadas en el diario mientras la base de datos no está disponible se responden
+ * con 202 Accepted y la secuencia asignada: se aplicarán cuando el servicio se recupere. Las que no
+ * se pueden anotar ni adelantar al diario se responden con 503 y {@code Retry-After}: la próxima
+ * pasada del drenado.
+ */
+@RestControllerAdvice
+public class ManejadorEscrituraDiferida {
+
+    private final String reintentarTrasSegundos;
+
+    public ManejadorEscrituraDiferida(
+            @Value("${vehiculos.escritura-diferida.intervalo-drenado:500ms}") Duration intervaloDrenado) {
+        this.reintentarTrasSegundos = Long.toString(Math.max(1, intervaloDrenado.plusMillis(999).toSeconds()));
+    }
+
+    @ExceptionHandler(EscrituraDiferidaException.class)
+    public ResponseEntity<Map<String, Object>> diferida(EscrituraDiferidaException e) {
+        return ResponseEntity.accepted().body(Map.of(
+                "estado", "PENDIENTE",
+                "operacion", e.getTipo(),
+                "secuencia", e.getSecuencia()));
+    }
+
+    @ExceptionHandler(EscriturasPendientesException.class)
+    public ResponseEntity<ProblemDetail> pendientes(EscriturasPendientesException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, reintentarTrasSegundos)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.vehiculosapi.controller;
+
+import com.example.vehiculosapi.concurrencia.SobrecargaException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Las llamadas rechazadas por el limitador de concurrencia o por un bulkhead se responden
+ * de inmediato con 503 y {@code Retry-After}, en lugar de quedarse esperando turno.
+ */
+@RestControllerAdvice
+public class ManejadorSobrecarga {
+
+    private static final String REINTENTAR_TRAS_SEGUNDOS = "1";
+
+    @ExceptionHandler({SobrecargaException.class, BulkheadFullException.class})
+    public ResponseEntity<ProblemDetail> sobrecarga(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, REINTENTAR_TRAS_SEGUNDOS)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+}
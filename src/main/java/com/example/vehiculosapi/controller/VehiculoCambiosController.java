@@ -0,0 +1,43 @@
+package com.example.vehiculosapi.controller;
+
+import com.example.vehiculosapi.cambios.CanalCambios;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/vehiculos")
+@Tag(name = "Vehículos", description = "API para la gestión de vehículos")
+public class VehiculoCambiosController {
+
+    private final CanalCambios canalCambios;
+
+    public VehiculoCambiosController(CanalCambios canalCambios) {
+        this.canalCambios = canalCambios;
+    }
+
+    // EventSource reenvía Last-Event-ID al reconectar; desde permite reanudar a clientes que no lo hacen
+    @GetMapping(value = "/cambios", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Canal de cambios (SSE) con altas, actualizaciones y bajas, reanudable por ID de evento")
+    public SseEmitter cambios(
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEvento,
+            @RequestParam(required = false) String desde) {
+        String reanudarDesde = ultimoEvento != null && !ultimoEvento.isBlank() ? ultimoEvento.trim()
+                : desde != null && !desde.isBlank() ? desde.trim() : null;
+        try {
+            return canalCambios.suscribir(reanudarDesde);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
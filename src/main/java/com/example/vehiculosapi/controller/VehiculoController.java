@@ -1,47 +1,167 @@
 package com.example.vehiculosapi.controller;
 
+import com.example.vehiculosapi.dto.CamposVehiculo;
+import com.example.vehiculosapi.dto.Cursor;
+import com.example.vehiculosapi.dto.FiltroVehiculos;
+import com.example.vehiculosapi.dto.OrdenBusqueda;
+import com.example.vehiculosapi.dto.Pagina;
+import com.example.vehiculosapi.dto.ResultadoLote;
 import com.example.vehiculosapi.model.Vehiculo;
 import com.example.vehiculosapi.service.VehiculoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/vehiculos")
 @Tag(name = "Vehículos", description = "API para la gestión de vehículos")
 public class VehiculoController {
 
+    private static final String CABECERA_INSTANTANEA = "X-Instantanea-Actualizada";
+
     @Autowired
     private VehiculoService vehiculoService;
 
+    @Value("${vehiculos.paginacion.limite-maximo:100}")
+    private int limiteMaximo;
+
+    @Value("${vehiculos.lote.tamano-maximo:1000}")
+    private int tamanoMaximoLote;
+
     @GetMapping
-    @Operation(summary = "Obtener todos los vehículos")
-    public ResponseEntity<List<Vehiculo>> obtenerTodos() {
-        return ResponseEntity.ok(vehiculoService.obtenerTodos());
+    @Operation(summary = "Obtener los vehículos paginados por cursor")
+    public ResponseEntity<Pagina<?>> obtenerTodos(
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "${vehiculos.paginacion.limite-por-defecto:20}") int limite,
+            @RequestParam(required = false) String fields) {
+        Long despuesDeId;
+        CamposVehiculo campos;
+        try {
+            despuesDeId = Cursor.decodificar(cursor);
+            campos = CamposVehiculo.de(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        int limiteEfectivo = Math.max(1, Math.min(limite, limiteMaximo));
+        Pagina<Vehiculo> pagina = campos != null
+                ? vehiculoService.obtenerTodos(marca, despuesDeId, limiteEfectivo, campos)
+                : vehiculoService.obtenerTodos(marca, despuesDeId, limiteEfectivo);
+        return antigua(ResponseEntity.ok(), pagina.instantanea()).body(proyectar(pagina, campos));
+    }
+
+    @GetMapping("/buscar")
+    @Operation(summary = "Buscar vehículos por marca, modelo, rango de años y de precio")
+    public ResponseEntity<Pagina<?>> buscar(
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) String modelo,
+            @RequestParam(required = false) Integer anioDesde,
+            @RequestParam(required = false) Integer anioHasta,
+            @RequestParam(required = false) Double precioMinimo,
+            @RequestParam(required = false) Double precioMaximo,
+            @RequestParam(defaultValue = "id") String orden,
+            @RequestParam(defaultValue = "asc") String direccion,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "${vehiculos.paginacion.limite-por-defecto:20}") int limite,
+            @RequestParam(required = false) String fields) {
+        OrdenBusqueda ordenBusqueda;
+        Cursor.Posicion despuesDe;
+        CamposVehiculo campos;
+        try {
+            ordenBusqueda = OrdenBusqueda.dePropiedad(orden);
+            campos = CamposVehiculo.de(fields);
+            despuesDe = Cursor.decodificarPosicion(cursor);
+            if (despuesDe != null) {
+                if (!despuesDe.campo().equals(ordenBusqueda.getPropiedad())) {
+                    throw new IllegalArgumentException("El cursor no corresponde al orden por " + orden);
+                }
+                ordenBusqueda.convertir(despuesDe.valor());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        if (!direccion.equalsIgnoreCase("asc") && !direccion.equalsIgnoreCase("desc")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Dirección inválida: " + direccion);
+        }
+        FiltroVehiculos filtro = new FiltroVehiculos(marca, modelo, anioDesde, anioHasta, precioMinimo, precioMaximo);
+        int limiteEfectivo = Math.max(1, Math.min(limite, limiteMaximo));
+        boolean descendente = direccion.equalsIgnoreCase("desc");
+        Pagina<Vehiculo> pagina = campos != null
+                ? vehiculoService.buscar(filtro, ordenBusqueda, descendente, despuesDe, limiteEfectivo, campos)
+                : vehiculoService.buscar(filtro, ordenBusqueda, descendente, despuesDe, limiteEfectivo);
+        return ResponseEntity.ok(proyectar(pagina, campos));
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Obtener un vehículo por ID")
-    public ResponseEntity<Vehiculo> obtenerPorId(@PathVariable Long id) {
-        return ResponseEntity.ok(vehiculoService.obtenerPorId(id));
+    @Operation(summary = "Obtener un vehículo por ID (admite If-None-Match)")
+    public ResponseEntity<?> obtenerPorId(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestParam(required = false) String fields) {
+        CamposVehiculo campos;
+        try {
+            campos = CamposVehiculo.de(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        // Revalidación: basta con la versión (de la caché o de una consulta de una columna) para responder 304
+        if (ifNoneMatch != null) {
+            Long version = vehiculoService.obtenerVersion(id);
+            if (version != null && coincide(ifNoneMatch, version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(version)).build();
+            }
+        }
+        if (campos == null) {
+            return conEtag(vehiculoService.obtenerPorId(id));
+        }
+        Vehiculo vehiculo = vehiculoService.obtenerPorId(id, campos);
+        return conEtag(vehiculo, vehiculo.getId() != null ? campos.proyectar(vehiculo) : vehiculo);
     }
 
     @PostMapping
     @Operation(summary = "Crear un nuevo vehículo")
     public ResponseEntity<Vehiculo> crear(@RequestBody Vehiculo vehiculo) {
-        return ResponseEntity.ok(vehiculoService.crear(vehiculo));
+        return conEtag(vehiculoService.crear(vehiculo));
+    }
+
+    @PostMapping("/lote")
+    @Operation(summary = "Crear o actualizar (upsert) vehículos en lote")
+    public ResponseEntity<ResultadoLote> crearLote(
+            @RequestBody List<Vehiculo> vehiculos,
+            @RequestParam(defaultValue = "false") boolean upsert) {
+        if (vehiculos.size() > tamanoMaximoLote) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El lote supera el máximo de " + tamanoMaximoLote + " vehículos");
+        }
+        return ResponseEntity.ok(vehiculoService.crearLote(vehiculos, upsert));
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Actualizar un vehículo existente")
+    @Operation(summary = "Actualizar un vehículo existente (admite If-Match)")
     public ResponseEntity<Vehiculo> actualizar(
             @PathVariable Long id, 
-            @RequestBody Vehiculo vehiculo) {
-        return ResponseEntity.ok(vehiculoService.actualizar(id, vehiculo));
+            @RequestBody Vehiculo vehiculo,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long versionEsperada = null;
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            versionEsperada = version(ifMatch);
+            if (versionEsperada == null) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match no corresponde a ninguna versión: " + ifMatch);
+            }
+        }
+        return conEtag(vehiculoService.actualizar(id, vehiculo, versionEsperada));
     }
 
     @DeleteMapping("/{id}")
@@ -50,4 +170,68 @@ public class VehiculoController {
         vehiculoService.eliminar(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static ResponseEntity<Vehiculo> conEtag(Vehiculo vehiculo) {
+        return conEtag(vehiculo, vehiculo);
+    }
+
+    private static <T> ResponseEntity<T> conEtag(Vehiculo vehiculo, T cuerpo) {
+        ResponseEntity.BodyBuilder respuesta = antigua(ResponseEntity.ok(), vehiculo.getInstantanea());
+        if (vehiculo.getVersion() == null) {
+            return respuesta.body(cuerpo);
+        }
+        return respuesta.eTag(etag(vehiculo.getVersion())).body(cuerpo);
+    }
+
+    // Con fields= sólo se escriben los campos pedidos, aunque el vehículo venga completo (caché, instantánea)
+    private static Pagina<?> proyectar(Pagina<Vehiculo> pagina, CamposVehiculo campos) {
+        if (campos == null) {
+            return pagina;
+        }
+        return new Pagina<>(campos.proyectar(pagina.elementos()), pagina.siguienteCursor(), pagina.instantanea());
+    }
+
+    // Respuesta servida desde la instantánea en memoria porque la base de datos no responde:
+    // Warning 110 (RFC 7234), Age y el momento del último cambio que recoge la instantánea
+    private static ResponseEntity.BodyBuilder antigua(ResponseEntity.BodyBuilder respuesta, Instant instantanea) {
+        if (instantanea == null) {
+            return respuesta;
+        }
+        long segundos = Math.max(0, Duration.between(instantanea, Instant.now()).toSeconds());
+        return respuesta
+                .header(HttpHeaders.WARNING, "110 - \"Response is Stale\"")
+                .header(HttpHeaders.AGE, Long.toString(segundos))
+                .header(CABECERA_INSTANTANEA, instantanea.toString());
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // If-None-Match admite "*" o una lista de ETags, fuertes o débiles (comparación débil)
+    private static boolean coincide(String ifNoneMatch, long version) {
+        for (String valor : ifNoneMatch.split(",")) {
+            String etag = valor.trim();
+            if (etag.equals("*") || Long.valueOf(version).equals(version(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Versión contenida en un ETag emitido por esta API, o null si no lo es (If-Match sólo admite uno)
+    private static Long version(String etag) {
+        String valor = etag.trim();
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        if (valor.length() < 3 || !valor.startsWith("\"") || !valor.endsWith("\"")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(valor.substring(1, valor.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.example.vehiculosapi.controller;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.service.VehiculoService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/vehiculos")
+@Tag(name = "Vehículos", description = "API para la gestión de vehículos")
+public class VehiculoExportController {
+
+    private final VehiculoService vehiculoService;
+    private final ObjectWriter vehiculoWriter;
+
+    public VehiculoExportController(VehiculoService vehiculoService, ObjectMapper objectMapper) {
+        this.vehiculoService = vehiculoService;
+        this.vehiculoWriter = objectMapper.writerFor(Vehiculo.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Exportar el catálogo completo como JSON delimitado por saltos de línea")
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = vehiculoWriter.getFactory().createGenerator(salida);
+                 SequenceWriter secuencia = vehiculoWriter.writeValues(generador)) {
+                long escritos = vehiculoService.exportar(vehiculo -> {
+                    try {
+                        secuencia.write(vehiculo);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (escritos > 0) {
+                    generador.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
+    }
+}
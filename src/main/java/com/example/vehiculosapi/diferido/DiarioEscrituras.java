@@ -0,0 +1,270 @@
+package com.example.vehiculosapi.diferido;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.service.IndicePlacas;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de sólo anexado en disco con las escrituras aceptadas mientras la base de datos no
+ * estaba disponible. Cada registro es {@code [longitud][crc32][json]} y lleva un número de
+ * secuencia creciente; un segundo archivo guarda la última secuencia ya aplicada. Al arrancar se
+ * vuelven a cargar las posteriores y se descarta un posible registro a medio escribir al final.
+ * Cuando no queda nada pendiente el diario se trunca.
+ */
+@Component
+public class DiarioEscrituras {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiarioEscrituras.class);
+
+    private static final String ARCHIVO_DIARIO = "escrituras.diario";
+    private static final String ARCHIVO_APLICADAS = "escrituras.aplicadas";
+    private static final int CABECERA_REGISTRO = Integer.BYTES * 2;
+    private static final int TAMANO_MAXIMO_REGISTRO = 1 << 20;
+
+    private final ObjectMapper objectMapper;
+    private final IndicePlacas indicePlacas;
+    private final boolean activo;
+    private final Path directorio;
+    private final boolean sincronizar;
+    private final int capacidad;
+
+    // Protegidos por this: el orden del diario es el orden en que se aplicarán las escrituras
+    private final Deque<EscrituraPendiente> pendientes = new ArrayDeque<>();
+    private FileChannel canal;
+    private long siguienteSecuencia;
+    // Aplicadas en la base de datos cuya marca aún no se pudo guardar: siguen pendientes para no
+    // dar paso a escrituras directas que, tras un reinicio, quedarían pisadas al repetirlas
+    private long aplicadaSinMarca;
+    private volatile int numeroPendientes;
+
+    public DiarioEscrituras(ObjectMapper objectMapper,
+                            IndicePlacas indicePlacas,
+                            MeterRegistry meterRegistry,
+                            @Value("${vehiculos.escritura-diferida.activo:false}") boolean activo,
+                            @Value("${vehiculos.escritura-diferida.directorio:${java.io.tmpdir}/vehiculos-api}") Path directorio,
+                            @Value("${vehiculos.escritura-diferida.sincronizar:true}") boolean sincronizar,
+                            @Value("${vehiculos.escritura-diferida.capacidad:10000}") int capacidad) {
+        this.objectMapper = objectMapper;
+        this.indicePlacas = indicePlacas;
+        this.activo = activo;
+        this.directorio = directorio;
+        this.sincronizar = sincronizar;
+        this.capacidad = capacidad;
+        Gauge.builder("vehiculos.escritura.diferida.pendientes", this, d -> d.numeroPendientes)
+                .description("Escrituras del diario pendientes de aplicar")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void abrir() throws IOException {
+        if (!activo) {
+            return;
+        }
+        Files.createDirectories(directorio);
+        Path archivo = directorio.resolve(ARCHIVO_DIARIO);
+        long aplicadaHasta = leerAplicadas();
+        siguienteSecuencia = aplicadaHasta + 1;
+        long valido = Files.exists(archivo) ? recuperar(archivo, aplicadaHasta) : 0;
+        canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (canal.size() > valido) {
+            logger.warn("Descartados {} bytes incompletos al final del diario de escrituras", canal.size() - valido);
+            canal.truncate(valido);
+        }
+        canal.position(valido);
+        // Las placas de las altas pendientes siguen comprometidas aunque aún no estén en la base de datos
+        for (EscrituraPendiente escritura : pendientes) {
+            if (escritura.tipo() == EscrituraPendiente.Tipo.CREAR) {
+                indicePlacas.reservar(escritura.vehiculo().getPlaca());
+            }
+        }
+        numeroPendientes = pendientes.size();
+        logger.info("Diario de escrituras abierto en {} con {} escrituras pendientes", archivo, pendientes.size());
+    }
+
+    public boolean isActivo() {
+        return activo;
+    }
+
+    /**
+     * Si cabe otra escritura. El límite es orientativo: dos llamadas simultáneas pueden superarlo en una.
+     */
+    public boolean hayCapacidad() {
+        return activo && numeroPendientes < capacidad;
+    }
+
+    public boolean hayPendientes() {
+        return numeroPendientes > 0;
+    }
+
+    /**
+     * Anexa la escritura al diario y la deja pendiente. Cuando termina ya está en disco
+     * (con {@code sincronizar}, también fuera de la caché del sistema operativo).
+     * @return número de secuencia asignado
+     */
+    public synchronized long registrar(EscrituraPendiente.Tipo tipo, Long id, Vehiculo vehiculo) {
+        EscrituraPendiente escritura = new EscrituraPendiente(siguienteSecuencia, tipo, id, vehiculo);
+        try {
+            byte[] datos = objectMapper.writeValueAsBytes(escritura);
+            ByteBuffer registro = ByteBuffer.allocate(CABECERA_REGISTRO + datos.length);
+            registro.putInt(datos.length).putInt(crc(datos)).put(datos).flip();
+            while (registro.hasRemaining()) {
+                canal.write(registro);
+            }
+            if (sincronizar) {
+                canal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo anotar la escritura en el diario", e);
+        }
+        siguienteSecuencia++;
+        pendientes.addLast(escritura);
+        numeroPendientes = pendientes.size();
+        return escritura.secuencia();
+    }
+
+    /**
+     * Las primeras {@code maximo} escrituras pendientes, en orden de secuencia, sin retirarlas.
+     * Si la marca de una confirmación anterior no llegó a disco se reintenta antes y, mientras
+     * siga fallando, no se devuelve nada.
+     */
+    public synchronized List<EscrituraPendiente> siguientes(int maximo) {
+        if (aplicadaSinMarca > 0 && !guardarMarca(aplicadaSinMarca)) {
+            return List.of();
+        }
+        List<EscrituraPendiente> lote = new ArrayList<>(Math.min(maximo, pendientes.size()));
+        Iterator<EscrituraPendiente> iterador = pendientes.iterator();
+        while (iterador.hasNext() && lote.size() < maximo) {
+            lote.add(iterador.next());
+        }
+        return lote;
+    }
+
+    /**
+     * Marca como aplicadas las escrituras hasta {@code secuencia} incluida. Sólo se retiran una vez
+     * la marca está en disco, y la marca se guarda antes de truncar el diario, de modo que una
+     * caída en cualquier punto no repite nada que ya se haya adelantado otra escritura.
+     */
+    public synchronized void confirmar(long secuencia) {
+        if (!guardarMarca(secuencia)) {
+            aplicadaSinMarca = Math.max(aplicadaSinMarca, secuencia);
+        }
+    }
+
+    private boolean guardarMarca(long secuencia) {
+        try {
+            escribirAplicadas(secuencia);
+        } catch (IOException e) {
+            logger.warn("No se pudo registrar la secuencia aplicada {} del diario; se reintentará", secuencia, e);
+            return false;
+        }
+        aplicadaSinMarca = 0;
+        while (!pendientes.isEmpty() && pendientes.peekFirst().secuencia() <= secuencia) {
+            pendientes.removeFirst();
+        }
+        numeroPendientes = pendientes.size();
+        if (pendientes.isEmpty()) {
+            try {
+                canal.truncate(0);
+                canal.position(0);
+            } catch (IOException e) {
+                // La marca ya cubre todo el diario: al reiniciar se descartará sin aplicar nada
+                logger.warn("No se pudo truncar el diario de escrituras", e);
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public synchronized void cerrar() throws IOException {
+        if (canal != null) {
+            canal.close();
+        }
+    }
+
+    private long recuperar(Path archivo, long aplicadaHasta) throws IOException {
+        long valido = 0;
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            while (true) {
+                int longitud;
+                int crc;
+                byte[] datos;
+                try {
+                    longitud = entrada.readInt();
+                    crc = entrada.readInt();
+                    if (longitud <= 0 || longitud > TAMANO_MAXIMO_REGISTRO) {
+                        break;
+                    }
+                    datos = new byte[longitud];
+                    entrada.readFully(datos);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (crc(datos) != crc) {
+                    break;
+                }
+                EscrituraPendiente escritura = objectMapper.readValue(datos, EscrituraPendiente.class);
+                valido += CABECERA_REGISTRO + longitud;
+                siguienteSecuencia = Math.max(siguienteSecuencia, escritura.secuencia() + 1);
+                if (escritura.secuencia() > aplicadaHasta) {
+                    pendientes.addLast(escritura);
+                }
+            }
+        }
+        return valido;
+    }
+
+    private long leerAplicadas() throws IOException {
+        Path archivo = directorio.resolve(ARCHIVO_APLICADAS);
+        if (!Files.exists(archivo)) {
+            return 0;
+        }
+        byte[] datos = Files.readAllBytes(archivo);
+        return datos.length == Long.BYTES ? ByteBuffer.wrap(datos).getLong() : 0;
+    }
+
+    // Se escribe aparte y se sustituye de forma atómica para no dejar nunca una marca a medias
+    private void escribirAplicadas(long secuencia) throws IOException {
+        Path temporal = directorio.resolve(ARCHIVO_APLICADAS + ".tmp");
+        try (FileChannel salida = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            salida.write(ByteBuffer.allocate(Long.BYTES).putLong(0, secuencia));
+            if (sincronizar) {
+                salida.force(false);
+            }
+        }
+        Files.move(temporal, directorio.resolve(ARCHIVO_APLICADAS),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int crc(byte[] datos) {
+        CRC32 crc = new CRC32();
+        crc.update(datos);
+        return (int) crc.getValue();
+    }
+}
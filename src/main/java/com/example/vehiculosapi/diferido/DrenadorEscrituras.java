@@ -0,0 +1,331 @@
+package com.example.vehiculosapi.diferido;
+
+import com.example.vehiculosapi.cambios.Cambio;
+import com.example.vehiculosapi.cambios.CanalCambios;
+import com.example.vehiculosapi.config.CacheConfig;
+import com.example.vehiculosapi.config.FabricaHilos;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.repository.VehiculoRepository;
+import com.example.vehiculosapi.service.ContadorFlota;
+import com.example.vehiculosapi.service.IndicePlacas;
+import com.example.vehiculosapi.service.InstantaneaFlota;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica en segundo plano las escrituras del {@link DiarioEscrituras} en cuanto el circuit breaker
+ * del servicio deja de estar abierto. Cada lote se agrupa por vehículo (sólo cuenta la última
+ * escritura sobre cada uno, y una baja prevalece sobre lo anterior) y se aplica en una única
+ * transacción con INSERT y UPDATE en lotes JDBC. Las escrituras son idempotentes: un alta cuya
+ * placa ya existe y los cambios sobre vehículos que ya no existen se omiten, de modo que repetir
+ * un lote tras una caída no cambia el resultado.
+ */
+@Component
+public class DrenadorEscrituras {
+
+    private static final Logger logger = LoggerFactory.getLogger(DrenadorEscrituras.class);
+    private static final String CIRCUITO = "vehiculoService";
+
+    private final DiarioEscrituras diario;
+    private final VehiculoRepository vehiculoRepository;
+    private final TransactionTemplate transaccion;
+    private final IndicePlacas indicePlacas;
+    private final ContadorFlota contadorFlota;
+    private final InstantaneaFlota instantaneaFlota;
+    private final CacheManager cacheManager;
+    private final CanalCambios canalCambios;
+    private final CircuitBreaker circuitBreaker;
+    private final FabricaHilos fabricaHilos;
+    private final Counter aplicadas;
+    private final Counter descartadas;
+    private final Duration intervalo;
+    private final int tamanoLote;
+    private ScheduledExecutorService planificador;
+
+    public DrenadorEscrituras(DiarioEscrituras diario,
+                              VehiculoRepository vehiculoRepository,
+                              PlatformTransactionManager transactionManager,
+                              IndicePlacas indicePlacas,
+                              ContadorFlota contadorFlota,
+                              InstantaneaFlota instantaneaFlota,
+                              CacheManager cacheManager,
+                              CanalCambios canalCambios,
+                              CircuitBreakerRegistry circuitBreakerRegistry,
+                              MeterRegistry meterRegistry,
+                              FabricaHilos fabricaHilos,
+                              @Value("${vehiculos.escritura-diferida.intervalo-drenado:500ms}") Duration intervalo,
+                              @Value("${vehiculos.escritura-diferida.tamano-lote:500}") int tamanoLote) {
+        this.diario = diario;
+        this.vehiculoRepository = vehiculoRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.indicePlacas = indicePlacas;
+        this.contadorFlota = contadorFlota;
+        this.instantaneaFlota = instantaneaFlota;
+        this.cacheManager = cacheManager;
+        this.canalCambios = canalCambios;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUITO);
+        this.fabricaHilos = fabricaHilos;
+        this.intervalo = intervalo;
+        this.tamanoLote = tamanoLote;
+        this.aplicadas = Counter.builder("vehiculos.escritura.diferida.aplicadas")
+                .description("Escrituras del diario aplicadas en la base de datos")
+                .register(meterRegistry);
+        this.descartadas = Counter.builder("vehiculos.escritura.diferida.descartadas")
+                .description("Escrituras del diario descartadas por no ser ya válidas")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!diario.isActivo()) {
+            return;
+        }
+        planificador = Executors.newSingleThreadScheduledExecutor(fabricaHilos.hilos("drenado-escrituras"));
+        long periodo = intervalo.toMillis();
+        planificador.scheduleWithFixedDelay(this::drenarSinFallar, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+        }
+    }
+
+    /**
+     * Aplica lotes mientras queden escrituras pendientes y el circuit breaker lo permita. Cada lote
+     * cuenta como una llamada del circuito: con el circuito semiabierto el propio drenado sirve de
+     * prueba para cerrarlo, y si la base de datos vuelve a fallar se deja para la siguiente pasada.
+     */
+    public void drenar() {
+        List<EscrituraPendiente> lote;
+        while (!(lote = diario.siguientes(tamanoLote)).isEmpty() && circuitBreaker.tryAcquirePermission()) {
+            Collection<EscrituraPendiente> agrupadas = agrupar(lote);
+            long inicio = System.nanoTime();
+            try {
+                if (!agrupadas.isEmpty()) {
+                    transaccion.executeWithoutResult(estado -> aplicar(agrupadas));
+                }
+                circuitBreaker.onSuccess(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            } catch (RuntimeException e) {
+                if (esTransitorio(e)) {
+                    circuitBreaker.onError(System.nanoTime() - inicio, TimeUnit.NANOSECONDS, e);
+                    logger.warn("No se pudo aplicar el lote de {} escrituras diferidas; se reintentará", lote.size(), e);
+                    return;
+                }
+                // La base de datos responde, pero alguna escritura dejó de ser válida: se aíslan aplicándolas una a una
+                circuitBreaker.onSuccess(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                if (!aplicarUnaAUna(agrupadas)) {
+                    return;
+                }
+            }
+            diario.confirmar(lote.get(lote.size() - 1).secuencia());
+        }
+    }
+
+    private void drenarSinFallar() {
+        try {
+            drenar();
+        } catch (RuntimeException e) {
+            logger.error("Error inesperado drenando el diario de escrituras", e);
+        }
+    }
+
+    // Las escrituras incompletas (de un diario anterior a la validación, o editado a mano) se descartan aquí
+    private Collection<EscrituraPendiente> agrupar(List<EscrituraPendiente> lote) {
+        Map<String, EscrituraPendiente> porVehiculo = new LinkedHashMap<>();
+        for (EscrituraPendiente escritura : lote) {
+            if (!escritura.esAplicable()) {
+                descartar(escritura, "faltan datos obligatorios");
+                continue;
+            }
+            EscrituraPendiente anterior = porVehiculo.get(escritura.clave());
+            if (anterior == null || anterior.tipo() != EscrituraPendiente.Tipo.ELIMINAR) {
+                porVehiculo.put(escritura.clave(), escritura);
+            }
+        }
+        return porVehiculo.values();
+    }
+
+    private boolean aplicarUnaAUna(Collection<EscrituraPendiente> escrituras) {
+        for (EscrituraPendiente escritura : escrituras) {
+            try {
+                transaccion.executeWithoutResult(estado -> aplicar(List.of(escritura)));
+            } catch (RuntimeException e) {
+                if (esTransitorio(e)) {
+                    logger.warn("No se pudo aplicar la escritura diferida {}; se reintentará", escritura.secuencia(), e);
+                    return false;
+                }
+                descartar(escritura, e instanceof DataAccessException acceso
+                        ? acceso.getMostSpecificCause().toString() : e.toString());
+                if (escritura.tipo() == EscrituraPendiente.Tipo.CREAR
+                        && !vehiculoRepository.existsByPlaca(escritura.vehiculo().getPlaca())) {
+                    indicePlacas.liberar(escritura.vehiculo().getPlaca());
+                }
+            }
+        }
+        return true;
+    }
+
+    private void descartar(EscrituraPendiente escritura, String motivo) {
+        logger.warn("Descartada la escritura diferida {} {}: {}", escritura.secuencia(), escritura.tipo(), motivo);
+        descartadas.increment();
+    }
+
+    /**
+     * Sólo los fallos de acceso a la base de datos que pueden desaparecer solos (sin conexión, tiempo
+     * agotado, bloqueos) justifican conservar el lote y avisar al circuit breaker. Cualquier otro error
+     * se repetiría en cada pasada y bloquearía el diario para siempre.
+     */
+    private static boolean esTransitorio(Throwable e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    private void aplicar(Collection<EscrituraPendiente> escrituras) {
+        Set<String> placasNuevas = new HashSet<>();
+        Set<Long> ids = new HashSet<>();
+        for (EscrituraPendiente escritura : escrituras) {
+            if (escritura.tipo() == EscrituraPendiente.Tipo.CREAR) {
+                placasNuevas.add(escritura.vehiculo().getPlaca());
+            } else {
+                ids.add(escritura.id());
+            }
+        }
+        Set<String> yaCreadas = new HashSet<>();
+        if (!placasNuevas.isEmpty()) {
+            for (Vehiculo existente : vehiculoRepository.findByPlacaIn(placasNuevas)) {
+                yaCreadas.add(existente.getPlaca());
+            }
+        }
+        Map<Long, Vehiculo> existentes = new HashMap<>();
+        for (Vehiculo existente : vehiculoRepository.findAllById(ids)) {
+            existentes.put(existente.getId(), existente);
+        }
+
+        List<Vehiculo> nuevos = new ArrayList<>();
+        List<Vehiculo> actualizados = new ArrayList<>();
+        List<Vehiculo> eliminados = new ArrayList<>();
+        List<String> liberadas = new ArrayList<>();
+        for (EscrituraPendiente escritura : escrituras) {
+            Vehiculo datos = escritura.vehiculo();
+            switch (escritura.tipo()) {
+                case CREAR -> {
+                    if (!yaCreadas.contains(datos.getPlaca())) {
+                        // Copia: si la transacción se revierte, la escritura pendiente no debe quedarse con ID
+                        Vehiculo nuevo = new Vehiculo();
+                        copiarDatos(datos, nuevo);
+                        nuevos.add(nuevo);
+                    }
+                }
+                case ACTUALIZAR -> {
+                    Vehiculo actual = existentes.get(escritura.id());
+                    if (actual == null) {
+                        continue;
+                    }
+                    if (!actual.getPlaca().equals(datos.getPlaca())) {
+                        if (!indicePlacas.reservar(datos.getPlaca())) {
+                            throw new DataIntegrityViolationException("Ya existe un vehículo con la placa: " + datos.getPlaca());
+                        }
+                        indicePlacas.liberarSiSeRevierte(List.of(datos.getPlaca()));
+                        liberadas.add(actual.getPlaca());
+                    }
+                    contadorFlota.cambioDeMarca(actual.getMarca(), datos.getMarca());
+                    copiarDatos(datos, actual);
+                    actualizados.add(actual);
+                }
+                case ELIMINAR -> {
+                    Vehiculo actual = existentes.get(escritura.id());
+                    if (actual != null) {
+                        eliminados.add(actual);
+                        liberadas.add(actual.getPlaca());
+                    }
+                }
+            }
+        }
+
+        vehiculoRepository.saveAll(nuevos);
+        // Con JPA ya están gestionadas y esto no hace nada; un almacén sin contexto de persistencia las necesita
+        vehiculoRepository.saveAll(actualizados);
+        vehiculoRepository.deleteAllInBatch(eliminados);
+        vehiculoRepository.flush();
+
+        List<String> marcasNuevas = new ArrayList<>(nuevos.size());
+        for (Vehiculo nuevo : nuevos) {
+            marcasNuevas.add(nuevo.getMarca());
+        }
+        contadorFlota.altas(marcasNuevas);
+        List<Vehiculo> guardados = new ArrayList<>(nuevos);
+        guardados.addAll(actualizados);
+        instantaneaFlota.guardarTodos(guardados);
+        nuevos.forEach(nuevo -> canalCambios.publicar(Cambio.Tipo.CREADO, nuevo));
+        actualizados.forEach(actualizado -> canalCambios.publicar(Cambio.Tipo.ACTUALIZADO, actualizado));
+        for (Vehiculo eliminado : eliminados) {
+            contadorFlota.baja(eliminado.getMarca());
+            instantaneaFlota.eliminar(eliminado.getId());
+            canalCambios.publicar(Cambio.Tipo.ELIMINADO, eliminado);
+        }
+        alConfirmar(() -> {
+            liberadas.forEach(indicePlacas::liberar);
+            Cache cache = cacheManager.getCache(CacheConfig.CACHE_VEHICULOS);
+            if (cache != null) {
+                actualizados.forEach(vehiculo -> cache.evict(vehiculo.getId()));
+                eliminados.forEach(vehiculo -> cache.evict(vehiculo.getId()));
+            }
+            aplicadas.increment(escrituras.size());
+        });
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    private static void copiarDatos(Vehiculo origen, Vehiculo destino) {
+        destino.setMarca(origen.getMarca());
+        destino.setModelo(origen.getModelo());
+        destino.setAnio(origen.getAnio());
+        destino.setColor(origen.getColor());
+        destino.setPlaca(origen.getPlaca());
+        destino.setPrecio(origen.getPrecio());
+    }
+}
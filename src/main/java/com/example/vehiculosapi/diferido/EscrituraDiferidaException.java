@@ -0,0 +1,25 @@
+package com.example.vehiculosapi.diferido;
+
+/**
+ * La escritura no se aplicó todavía: quedó registrada en el diario y se aplicará cuando la base
+ * de datos vuelva a estar disponible. Se responde con 202 Accepted.
+ */
+public class EscrituraDiferidaException extends RuntimeException {
+
+    private final long secuencia;
+    private final EscrituraPendiente.Tipo tipo;
+
+    public EscrituraDiferidaException(long secuencia, EscrituraPendiente.Tipo tipo) {
+        super("Escritura " + tipo + " aceptada con secuencia " + secuencia + "; se aplicará más tarde");
+        this.secuencia = secuencia;
+        this.tipo = tipo;
+    }
+
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    public EscrituraPendiente.Tipo getTipo() {
+        return tipo;
+    }
+}
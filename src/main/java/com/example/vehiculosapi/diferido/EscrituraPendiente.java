@@ -0,0 +1,35 @@
+package com.example.vehiculosapi.diferido;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.service.VehiculoService;
+
+/**
+ * Escritura aceptada mientras la base de datos no estaba disponible, tal como se guarda en el diario.
+ * Las altas se identifican por placa (aún no tienen ID); actualizaciones y bajas, por ID.
+ * Aplicar dos veces la misma escritura deja la base de datos igual que aplicarla una vez.
+ */
+public record EscrituraPendiente(long secuencia, Tipo tipo, Long id, Vehiculo vehiculo) {
+
+    public enum Tipo {
+        CREAR,
+        ACTUALIZAR,
+        ELIMINAR
+    }
+
+    // Las altas y actualizaciones llevan el vehículo completo; actualizaciones y bajas, además, el ID
+    boolean esAplicable() {
+        if (tipo == null) {
+            return false;
+        }
+        return switch (tipo) {
+            case CREAR -> vehiculo != null && VehiculoService.esValido(vehiculo);
+            case ACTUALIZAR -> id != null && vehiculo != null && VehiculoService.esValido(vehiculo);
+            case ELIMINAR -> id != null;
+        };
+    }
+
+    // Clave con la que se agrupan las escrituras sobre el mismo vehículo dentro de un lote
+    String clave() {
+        return tipo == Tipo.CREAR ? "placa:" + vehiculo.getPlaca() : "id:" + id;
+    }
+}
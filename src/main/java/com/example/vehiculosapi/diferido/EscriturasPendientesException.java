@@ -0,0 +1,14 @@
+package com.example.vehiculosapi.diferido;
+
+/**
+ * La escritura no puede anotarse en el diario (una actualización con If-Match, un lote con upsert)
+ * y tampoco puede aplicarse ya: el drenado copiaría después encima las escrituras más antiguas que
+ * siguen pendientes. Se responde con 503 para que el cliente reintente cuando se haya vaciado.
+ */
+public class EscriturasPendientesException extends RuntimeException {
+
+    public EscriturasPendientesException(String operacion) {
+        super("Hay escrituras diferidas pendientes de aplicar; " + operacion
+                + " no puede adelantarse a ellas. Reintente en unos instantes");
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.vehiculosapi.dto;
+
+import com.example.vehiculosapi.model.Vehiculo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Columnas de {@link Vehiculo} pedidas con {@code fields=} (sparse fieldset). Sólo esas columnas se
+ * seleccionan en la base de datos y sólo ellas se escriben en la respuesta. El ID se incluye siempre:
+ * identifica el vehículo y es la posición de los cursores.
+ */
+public final class CamposVehiculo {
+
+    private static final Map<String, Campo> CAMPOS = new LinkedHashMap<>();
+
+    static {
+        CAMPOS.put("id", new Campo(Vehiculo::getId, (v, valor) -> v.setId((Long) valor)));
+        CAMPOS.put("marca", new Campo(Vehiculo::getMarca, (v, valor) -> v.setMarca((String) valor)));
+        CAMPOS.put("modelo", new Campo(Vehiculo::getModelo, (v, valor) -> v.setModelo((String) valor)));
+        CAMPOS.put("anio", new Campo(Vehiculo::getAnio, (v, valor) -> v.setAnio((Integer) valor)));
+        CAMPOS.put("color", new Campo(Vehiculo::getColor, (v, valor) -> v.setColor((String) valor)));
+        CAMPOS.put("placa", new Campo(Vehiculo::getPlaca, (v, valor) -> v.setPlaca((String) valor)));
+        CAMPOS.put("precio", new Campo(Vehiculo::getPrecio, (v, valor) -> v.setPrecio((Double) valor)));
+        CAMPOS.put("version", new Campo(Vehiculo::getVersion, (v, valor) -> v.setVersion((Long) valor)));
+    }
+
+    private final Set<String> nombres;
+
+    private CamposVehiculo(Set<String> nombres) {
+        this.nombres = Collections.unmodifiableSet(nombres);
+    }
+
+    /**
+     * @param lista nombres separados por comas, p. ej. {@code placa,precio}
+     * @return {@code null} si no se pide ningún campo (respuesta completa)
+     */
+    public static CamposVehiculo de(String lista) {
+        if (lista == null || lista.isBlank()) {
+            return null;
+        }
+        Set<String> nombres = new LinkedHashSet<>();
+        nombres.add("id");
+        for (String nombre : lista.split(",")) {
+            String campo = nombre.trim();
+            if (!CAMPOS.containsKey(campo)) {
+                throw new IllegalArgumentException("Campo desconocido: " + campo);
+            }
+            nombres.add(campo);
+        }
+        return new CamposVehiculo(nombres);
+    }
+
+    public Set<String> nombres() {
+        return nombres;
+    }
+
+    /**
+     * Los nombres de todas las columnas de {@link Vehiculo}.
+     */
+    public static Set<String> todos() {
+        return Collections.unmodifiableSet(CAMPOS.keySet());
+    }
+
+    /**
+     * Los mismos campos más los que necesita el servicio aunque el cliente no los pida
+     * (el campo de orden para el cursor, la versión para el ETag).
+     */
+    public CamposVehiculo con(String... adicionales) {
+        Set<String> ampliados = new LinkedHashSet<>(nombres);
+        Collections.addAll(ampliados, adicionales);
+        return new CamposVehiculo(ampliados);
+    }
+
+    public Map<String, Object> proyectar(Vehiculo vehiculo) {
+        Map<String, Object> fila = new LinkedHashMap<>();
+        for (String nombre : nombres) {
+            fila.put(nombre, CAMPOS.get(nombre).lector().apply(vehiculo));
+        }
+        return fila;
+    }
+
+    public List<Map<String, Object>> proyectar(List<Vehiculo> vehiculos) {
+        List<Map<String, Object>> filas = new ArrayList<>(vehiculos.size());
+        for (Vehiculo vehiculo : vehiculos) {
+            filas.add(proyectar(vehiculo));
+        }
+        return filas;
+    }
+
+    /**
+     * Valor de la propiedad {@code nombre} del vehículo.
+     */
+    public static Object leer(Vehiculo vehiculo, String nombre) {
+        Campo campo = CAMPOS.get(nombre);
+        if (campo == null) {
+            throw new IllegalArgumentException("Campo desconocido: " + nombre);
+        }
+        return campo.lector().apply(vehiculo);
+    }
+
+    /**
+     * Asigna al vehículo el valor leído de la columna {@code nombre}.
+     */
+    public static void asignar(Vehiculo vehiculo, String nombre, Object valor) {
+        CAMPOS.get(nombre).escritor().accept(vehiculo, valor);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", nombres);
+    }
+
+    private record Campo(Function<Vehiculo, Object> lector, BiConsumer<Vehiculo, Object> escritor) {
+    }
+}
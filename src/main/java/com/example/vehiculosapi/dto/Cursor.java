@@ -0,0 +1,69 @@
+package com.example.vehiculosapi.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Codifica y decodifica los cursores opacos que se entregan a los clientes.
+ * El contenido es el último ID devuelto (o, en las búsquedas ordenadas, el campo de orden, su valor
+ * y el ID), pero el cliente no debe depender de ello.
+ */
+public final class Cursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private Cursor() {
+    }
+
+    public static String codificar(Long ultimoId) {
+        if (ultimoId == null) {
+            return null;
+        }
+        return ENCODER.encodeToString(("id:" + ultimoId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String valor = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            if (!valor.startsWith("id:")) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            return Long.parseLong(valor.substring(3));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+        }
+    }
+
+    /**
+     * Posición de la última fila entregada en una búsqueda ordenada por {@code campo}.
+     */
+    public record Posicion(String campo, String valor, long id) {
+    }
+
+    public static String codificar(String campo, Object valor, Long ultimoId) {
+        if (ultimoId == null) {
+            return null;
+        }
+        String contenido = "k:" + campo + ":" + ultimoId + ":" + valor;
+        return ENCODER.encodeToString(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Posicion decodificarPosicion(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] partes = new String(DECODER.decode(cursor), StandardCharsets.UTF_8).split(":", 4);
+            if (partes.length != 4 || !partes[0].equals("k")) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            return new Posicion(partes[1], partes[3], Long.parseLong(partes[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor, e);
+        }
+    }
+}
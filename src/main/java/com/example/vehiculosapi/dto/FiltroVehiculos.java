@@ -0,0 +1,13 @@
+package com.example.vehiculosapi.dto;
+
+/**
+ * Criterios de búsqueda combinables. Los campos nulos no filtran; los rangos son inclusivos.
+ */
+public record FiltroVehiculos(
+        String marca,
+        String modelo,
+        Integer anioDesde,
+        Integer anioHasta,
+        Double precioMinimo,
+        Double precioMaximo) {
+}
@@ -0,0 +1,49 @@
+package com.example.vehiculosapi.dto;
+
+import com.example.vehiculosapi.model.Vehiculo;
+
+import java.util.function.Function;
+
+/**
+ * Campos por los que se puede ordenar una búsqueda. El ID se añade siempre como desempate,
+ * de modo que el par (campo, id) identifica una posición única para la paginación keyset.
+ * Al ordenar por precio se excluyen los vehículos sin precio.
+ */
+public enum OrdenBusqueda {
+    ID("id", Long::valueOf, Vehiculo::getId),
+    MARCA("marca", valor -> valor, Vehiculo::getMarca),
+    ANIO("anio", Integer::valueOf, Vehiculo::getAnio),
+    PRECIO("precio", Double::valueOf, Vehiculo::getPrecio);
+
+    private final String propiedad;
+    private final Function<String, Comparable<?>> conversor;
+    private final Function<Vehiculo, Comparable<?>> extractor;
+
+    OrdenBusqueda(String propiedad, Function<String, Comparable<?>> conversor,
+                  Function<Vehiculo, Comparable<?>> extractor) {
+        this.propiedad = propiedad;
+        this.conversor = conversor;
+        this.extractor = extractor;
+    }
+
+    public String getPropiedad() {
+        return propiedad;
+    }
+
+    public Comparable<?> convertir(String valor) {
+        return conversor.apply(valor);
+    }
+
+    public Comparable<?> valorDe(Vehiculo vehiculo) {
+        return extractor.apply(vehiculo);
+    }
+
+    public static OrdenBusqueda dePropiedad(String propiedad) {
+        for (OrdenBusqueda orden : values()) {
+            if (orden.propiedad.equalsIgnoreCase(propiedad)) {
+                return orden;
+            }
+        }
+        throw new IllegalArgumentException("No se puede ordenar por: " + propiedad);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.vehiculosapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Página de resultados con paginación por cursor (keyset).
+ * {@code siguienteCursor} es nulo cuando no hay más elementos.
+ * {@code instantanea} sólo se informa cuando la página sale de la copia en memoria del catálogo
+ * en lugar de la base de datos; no forma parte del cuerpo, el controlador la publica en cabeceras.
+ */
+public record Pagina<T>(List<T> elementos, String siguienteCursor, @JsonIgnore Instant instantanea) {
+
+    public Pagina(List<T> elementos, String siguienteCursor) {
+        this(elementos, siguienteCursor, null);
+    }
+
+    public static <T> Pagina<T> vacia() {
+        return new Pagina<>(List.of(), null);
+    }
+}
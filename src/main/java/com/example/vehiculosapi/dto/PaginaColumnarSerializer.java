@@ -0,0 +1,88 @@
+package com.example.vehiculosapi.dto;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Serializa una {@link Pagina} de vehículos por columnas: una lista por campo en lugar de un
+ * objeto por vehículo, de modo que cada nombre de campo aparece una sola vez por página.
+ * <pre>{"filas":2,"id":[1,2],"marca":["Toyota","Ford"],...,"siguienteCursor":"..."}</pre>
+ * Los valores nulos se mantienen en su posición. Se usa en los formatos binarios; JSON conserva
+ * la forma habitual ({@code elementos}).
+ */
+public class PaginaColumnarSerializer extends StdSerializer<Pagina<?>> {
+
+    private static final List<Columna> COLUMNAS = List.of(
+            new Columna("id", Vehiculo::getId),
+            new Columna("marca", Vehiculo::getMarca),
+            new Columna("modelo", Vehiculo::getModelo),
+            new Columna("anio", Vehiculo::getAnio),
+            new Columna("color", Vehiculo::getColor),
+            new Columna("placa", Vehiculo::getPlaca),
+            new Columna("precio", Vehiculo::getPrecio),
+            new Columna("version", Vehiculo::getVersion));
+
+    @SuppressWarnings("unchecked")
+    public PaginaColumnarSerializer() {
+        super((Class<Pagina<?>>) (Class<?>) Pagina.class);
+    }
+
+    @Override
+    public void serialize(Pagina<?> pagina, JsonGenerator generador, SerializerProvider proveedor) throws IOException {
+        List<?> elementos = pagina.elementos();
+        if (!sonVehiculos(elementos)) {
+            generador.writeStartObject(pagina);
+            proveedor.defaultSerializeField("elementos", elementos, generador);
+            generador.writeStringField("siguienteCursor", pagina.siguienteCursor());
+            generador.writeEndObject();
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Vehiculo> vehiculos = (List<Vehiculo>) elementos;
+        generador.writeStartObject(pagina);
+        generador.writeNumberField("filas", vehiculos.size());
+        for (Columna columna : COLUMNAS) {
+            // Con la longitud por delante CBOR escribe listas de tamaño fijo en lugar de indefinidas
+            generador.writeFieldName(columna.nombre());
+            generador.writeStartArray(vehiculos, vehiculos.size());
+            for (Vehiculo vehiculo : vehiculos) {
+                escribir(generador, columna.valor().apply(vehiculo));
+            }
+            generador.writeEndArray();
+        }
+        generador.writeStringField("siguienteCursor", pagina.siguienteCursor());
+        generador.writeEndObject();
+    }
+
+    private static boolean sonVehiculos(List<?> elementos) {
+        for (Object elemento : elementos) {
+            if (!(elemento instanceof Vehiculo)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void escribir(JsonGenerator generador, Object valor) throws IOException {
+        if (valor == null) {
+            generador.writeNull();
+        } else if (valor instanceof Long numero) {
+            generador.writeNumber(numero);
+        } else if (valor instanceof Integer numero) {
+            generador.writeNumber(numero);
+        } else if (valor instanceof Double numero) {
+            generador.writeNumber(numero);
+        } else {
+            generador.writeString(valor.toString());
+        }
+    }
+
+    private record Columna(String nombre, Function<Vehiculo, Object> valor) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.vehiculosapi.dto;
+
+import java.util.List;
+
+/**
+ * Informe de una operación de alta/actualización masiva, con el resultado de cada elemento
+ * en el mismo orden en que se recibieron.
+ */
+public record ResultadoLote(int creados, int actualizados, int rechazados, List<Item> items) {
+
+    public enum Estado {
+        CREADO,
+        ACTUALIZADO,
+        DUPLICADO,
+        INVALIDO
+    }
+
+    public record Item(int indice, String placa, Estado estado, Long id, String mensaje) {
+    }
+
+    public static ResultadoLote de(List<Item> items) {
+        int creados = 0;
+        int actualizados = 0;
+        for (Item item : items) {
+            if (item.estado() == Estado.CREADO) {
+                creados++;
+            } else if (item.estado() == Estado.ACTUALIZADO) {
+                actualizados++;
+            }
+        }
+        return new ResultadoLote(creados, actualizados, items.size() - creados - actualizados, items);
+    }
+}
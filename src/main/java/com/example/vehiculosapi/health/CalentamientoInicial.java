@@ -0,0 +1,327 @@
+package com.example.vehiculosapi.health;
+
+import com.example.vehiculosapi.config.CacheConfig;
+import com.example.vehiculosapi.dto.CamposVehiculo;
+import com.example.vehiculosapi.dto.FiltroVehiculos;
+import com.example.vehiculosapi.dto.OrdenBusqueda;
+import com.example.vehiculosapi.dto.Pagina;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.reactive.VehiculoReactivoRepository;
+import com.example.vehiculosapi.repository.VehiculoEspecificaciones;
+import com.example.vehiculosapi.repository.VehiculoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import de.codecentric.spring.boot.chaos.monkey.configuration.ChaosMonkeySettings;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calentamiento antes de aceptar tráfico. Llena el pool de conexiones, precarga la caché de
+ * vehículos por ID y repite las consultas de lectura del perfil activo con la serialización de sus
+ * respuestas hasta completar {@code vehiculos.calentamiento.iteraciones} o agotar
+ * {@code vehiculos.calentamiento.duracion-maxima}, para que el JIT compile los caminos calientes
+ * antes de que llegue la primera petición real. Con el perfil {@code reactive} las consultas van por
+ * R2DBC y se serializan con los codecs de WebFlux; si no, por {@link VehiculoRepository} y los
+ * convertidores de Spring MVC.
+ * Se llama directamente al repositorio y no al servicio: estas lecturas no cuentan en
+ * {@code @Medido}, el circuit breaker, los reintentos, los compartimentos ni las lecturas con cobertura.
+ */
+@Component
+public class CalentamientoInicial {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalentamientoInicial.class);
+
+    private static final int LIMITE_PAGINA = 20;
+    private static final FiltroVehiculos FILTRO = new FiltroVehiculos(null, null, 2000, 2030, 0.0, null);
+
+    private final VehiculoRepository vehiculoRepository;
+    private final ObjectProvider<VehiculoReactivoRepository> vehiculoReactivoRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<AbstractJackson2HttpMessageConverter> convertidores;
+    private final ObjectProvider<ServerCodecConfigurer> codecs;
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final ObjectProvider<DataSource> dataSource;
+    private final ObjectProvider<ChaosMonkeySettings> chaosMonkey;
+    private final TransactionTemplate lectura;
+    private final boolean activo;
+    private final int iteraciones;
+    private final Duration duracionMaxima;
+    private final int precargaCache;
+
+    private volatile long duracionMs;
+    private volatile int iteracionesCompletadas;
+
+    public CalentamientoInicial(VehiculoRepository vehiculoRepository,
+                                ObjectProvider<VehiculoReactivoRepository> vehiculoReactivoRepository,
+                                ObjectMapper objectMapper,
+                                ObjectProvider<AbstractJackson2HttpMessageConverter> convertidores,
+                                ObjectProvider<ServerCodecConfigurer> codecs,
+                                ObjectProvider<CacheManager> cacheManager,
+                                ObjectProvider<DataSource> dataSource,
+                                ObjectProvider<ChaosMonkeySettings> chaosMonkey,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${vehiculos.calentamiento.activo:true}") boolean activo,
+                                @Value("${vehiculos.calentamiento.iteraciones:1000}") int iteraciones,
+                                @Value("${vehiculos.calentamiento.duracion-maxima:15s}") Duration duracionMaxima,
+                                @Value("${vehiculos.calentamiento.precarga-cache:1000}") int precargaCache) {
+        this.vehiculoRepository = vehiculoRepository;
+        this.vehiculoReactivoRepository = vehiculoReactivoRepository;
+        this.objectMapper = objectMapper;
+        this.convertidores = convertidores;
+        this.codecs = codecs;
+        this.cacheManager = cacheManager;
+        this.dataSource = dataSource;
+        this.chaosMonkey = chaosMonkey;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.activo = activo;
+        this.iteraciones = iteraciones;
+        this.duracionMaxima = duracionMaxima;
+        this.precargaCache = precargaCache;
+        TimeGauge.builder("vehiculos.calentamiento.duracion", this, TimeUnit.MILLISECONDS, c -> c.duracionMs)
+                .description("Duración del calentamiento previo a aceptar tráfico")
+                .register(meterRegistry);
+        Gauge.builder("vehiculos.calentamiento.iteraciones", this, c -> c.iteracionesCompletadas)
+                .description("Iteraciones de lectura completadas durante el calentamiento")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Bloquea hasta terminar. Los fallos no impiden arrancar: se registran y el calentamiento sigue.
+     */
+    public void calentar() {
+        if (!activo) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        long limite = inicio + duracionMaxima.toNanos();
+        // Los ataques de Chaos Monkey a los repositorios sólo alargarían el arranque
+        ChaosMonkeySettings settings = chaosMonkey.getIfAvailable();
+        boolean chaosMonkeyActivo = settings != null && settings.getChaosMonkeyProperties().isEnabled();
+        if (chaosMonkeyActivo) {
+            settings.getChaosMonkeyProperties().setEnabled(false);
+        }
+        VehiculoReactivoRepository reactivo = vehiculoReactivoRepository.getIfAvailable();
+        int fallos = 0;
+        try {
+            llenarPool();
+            List<Long> ids = reactivo != null ? precargarIds(reactivo, limite) : precargarCache(limite);
+            List<ObjectMapper> mappers = mappers();
+            List<AbstractJackson2Encoder> codificadores = codificadores();
+            int i = 0;
+            for (; i < iteraciones && System.nanoTime() < limite; i++) {
+                try {
+                    List<Object> respuestas = reactivo != null ? leer(reactivo, i, ids) : leer(i, ids);
+                    serializar(respuestas, mappers, codificadores);
+                } catch (RuntimeException | IOException e) {
+                    if (fallos++ == 0) {
+                        logger.warn("Fallo durante el calentamiento", e);
+                    }
+                }
+            }
+            iteracionesCompletadas = i;
+        } finally {
+            if (chaosMonkeyActivo) {
+                settings.getChaosMonkeyProperties().setEnabled(true);
+            }
+            duracionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        }
+        logger.info("Calentamiento terminado en {} ms: {} iteraciones, {} fallos", duracionMs, iteracionesCompletadas, fallos);
+    }
+
+    // Hikari crea las conexiones que faltan al pedirlas; sin esto, las primeras peticiones esperan a abrirlas
+    private void llenarPool() {
+        DataSource origen = dataSource.getIfAvailable();
+        if (origen == null) {
+            return;
+        }
+        List<Connection> conexiones = new ArrayList<>();
+        try {
+            int objetivo = 1;
+            if (origen.isWrapperFor(HikariDataSource.class)) {
+                HikariDataSource hikari = origen.unwrap(HikariDataSource.class);
+                objetivo = Math.min(hikari.getMinimumIdle(), hikari.getMaximumPoolSize());
+            }
+            for (int i = 0; i < objetivo; i++) {
+                conexiones.add(origen.getConnection());
+            }
+        } catch (SQLException e) {
+            logger.warn("No se pudo llenar el pool de conexiones durante el calentamiento", e);
+        } finally {
+            for (Connection conexion : conexiones) {
+                try {
+                    conexion.close();
+                } catch (SQLException e) {
+                    logger.debug("Error al devolver una conexión al pool", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recorre el catálogo por ID hasta {@code precarga-cache} vehículos y los guarda en la caché,
+     * como haría la primera lectura de cada uno. Devuelve sus IDs para las lecturas por ID del calentamiento.
+     */
+    private List<Long> precargarCache(long limite) {
+        CacheManager caches = cacheManager.getIfAvailable();
+        Cache cache = caches != null ? caches.getCache(CacheConfig.CACHE_VEHICULOS) : null;
+        List<Long> ids = new ArrayList<>();
+        long despuesDeId = 0L;
+        while (ids.size() < precargaCache && System.nanoTime() < limite) {
+            long desde = despuesDeId;
+            Limit limit = Limit.of(Math.min(100, precargaCache - ids.size()));
+            List<Vehiculo> vehiculos = lectura.execute(estado ->
+                    vehiculoRepository.findByIdGreaterThanOrderByIdAsc(desde, limit));
+            for (Vehiculo vehiculo : vehiculos) {
+                if (cache != null) {
+                    cache.put(vehiculo.getId(), vehiculo);
+                }
+                ids.add(vehiculo.getId());
+            }
+            if (vehiculos.size() < limit.max()) {
+                break;
+            }
+            despuesDeId = ids.get(ids.size() - 1);
+        }
+        return ids;
+    }
+
+    // El servicio reactivo no usa la caché: sólo se recogen los IDs para las lecturas por ID
+    private List<Long> precargarIds(VehiculoReactivoRepository reactivo, long limite) {
+        List<Long> ids = new ArrayList<>();
+        long despuesDeId = 0L;
+        while (ids.size() < precargaCache && System.nanoTime() < limite) {
+            Limit limit = Limit.of(Math.min(100, precargaCache - ids.size()));
+            List<Vehiculo> vehiculos = reactivo.findByIdGreaterThanOrderByIdAsc(despuesDeId, limit).collectList().block();
+            if (vehiculos == null) {
+                break;
+            }
+            vehiculos.forEach(vehiculo -> ids.add(vehiculo.getId()));
+            if (vehiculos.size() < limit.max()) {
+                break;
+            }
+            despuesDeId = ids.get(ids.size() - 1);
+        }
+        return ids;
+    }
+
+    // Las mismas consultas que el listado, la búsqueda y la lectura por ID de VehiculoService
+    private List<Object> leer(int i, List<Long> ids) {
+        CamposVehiculo campos = CamposVehiculo.de("placa,precio");
+        OrdenBusqueda orden = OrdenBusqueda.values()[i % OrdenBusqueda.values().length];
+        Sort sort = Sort.by(i % 2 == 1 ? Sort.Direction.DESC : Sort.Direction.ASC,
+                orden == OrdenBusqueda.ID ? new String[]{"id"} : new String[]{orden.getPropiedad(), "id"});
+        Long id = ids.isEmpty() ? null : ids.get(i % ids.size());
+        return lectura.execute(estado -> {
+            List<Object> respuestas = new ArrayList<>();
+            List<Vehiculo> todos = vehiculoRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(LIMITE_PAGINA + 1));
+            respuestas.add(new Pagina<>(todos, null));
+            String marca = todos.isEmpty() ? null : todos.get(0).getMarca();
+            respuestas.add(new Pagina<>(vehiculoRepository.findParciales(
+                    VehiculoEspecificaciones.de(new FiltroVehiculos(marca, null, null, null, null, null), OrdenBusqueda.ID)
+                            .and(VehiculoEspecificaciones.despuesDe(OrdenBusqueda.ID, null, 0L, false)),
+                    Sort.by("id"), campos, LIMITE_PAGINA + 1), null));
+            respuestas.add(new Pagina<>(vehiculoRepository.findBy(VehiculoEspecificaciones.de(FILTRO, orden),
+                    consulta -> consulta.sortBy(sort).limit(LIMITE_PAGINA + 1).all()), null));
+            respuestas.add(new Pagina<>(vehiculoRepository.findParciales(VehiculoEspecificaciones.de(FILTRO, orden),
+                    sort, campos.con(orden.getPropiedad()), LIMITE_PAGINA + 1), null));
+            if (id != null) {
+                vehiculoRepository.findById(id).ifPresent(respuestas::add);
+                respuestas.addAll(vehiculoRepository.findParciales(VehiculoEspecificaciones.conId(id), Sort.unsorted(),
+                        campos.con("version"), 1));
+            }
+            return respuestas;
+        });
+    }
+
+    // Las mismas consultas que VehiculoReactivoService
+    private List<Object> leer(VehiculoReactivoRepository reactivo, int i, List<Long> ids) {
+        List<Object> respuestas = new ArrayList<>();
+        Limit limit = Limit.of(LIMITE_PAGINA + 1);
+        List<Vehiculo> todos = reactivo.findByIdGreaterThanOrderByIdAsc(0L, limit).collectList().block();
+        respuestas.add(new Pagina<>(todos, null));
+        if (todos != null && !todos.isEmpty()) {
+            respuestas.add(new Pagina<>(reactivo.findByMarcaAndIdGreaterThanOrderByIdAsc(todos.get(0).getMarca(), 0L, limit)
+                    .collectList().block(), null));
+        }
+        if (!ids.isEmpty()) {
+            Vehiculo vehiculo = reactivo.findById(ids.get(i % ids.size())).block();
+            if (vehiculo != null) {
+                respuestas.add(vehiculo);
+            }
+        }
+        return respuestas;
+    }
+
+    private static void serializar(List<Object> respuestas, List<ObjectMapper> mappers,
+                                   List<AbstractJackson2Encoder> codificadores) throws IOException {
+        for (ObjectMapper mapper : mappers) {
+            for (Object respuesta : respuestas) {
+                mapper.writeValue(OutputStream.nullOutputStream(), respuesta);
+            }
+        }
+        for (AbstractJackson2Encoder codificador : codificadores) {
+            for (Object respuesta : respuestas) {
+                DataBufferUtils.release(codificador.encodeValue(respuesta, DefaultDataBufferFactory.sharedInstance,
+                        ResolvableType.forInstance(respuesta), codificador.getEncodableMimeTypes().get(0), null));
+            }
+        }
+    }
+
+    // Spring MVC: JSON y, si están registrados, los formatos binarios de la negociación de contenido
+    private List<ObjectMapper> mappers() {
+        List<ObjectMapper> mappers = new ArrayList<>();
+        mappers.add(objectMapper);
+        convertidores.orderedStream()
+                .map(AbstractJackson2HttpMessageConverter::getObjectMapper)
+                .filter(mapper -> !mappers.contains(mapper))
+                .forEach(mappers::add);
+        return mappers;
+    }
+
+    // WebFlux: los codificadores de Jackson registrados en los codecs del servidor (sólo en el perfil reactive)
+    private List<AbstractJackson2Encoder> codificadores() {
+        ServerCodecConfigurer configurer = codecs.getIfAvailable();
+        if (configurer == null || vehiculoReactivoRepository.getIfAvailable() == null) {
+            return List.of();
+        }
+        List<AbstractJackson2Encoder> codificadores = new ArrayList<>();
+        configurer.getWriters().forEach(escritor -> {
+            if (escritor instanceof EncoderHttpMessageWriter<?> encoder
+                    && encoder.getEncoder() instanceof AbstractJackson2Encoder jackson) {
+                codificadores.add(jackson);
+            }
+        });
+        return codificadores;
+    }
+}
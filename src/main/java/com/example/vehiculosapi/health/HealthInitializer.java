@@ -9,15 +9,18 @@ import org.springframework.stereotype.Component;
 public class HealthInitializer implements CommandLineRunner {
 
     private final AppHealthIndicator healthIndicator;
+    private final CalentamientoInicial calentamiento;
 
-    public HealthInitializer(AppHealthIndicator healthIndicator) {
+    public HealthInitializer(AppHealthIndicator healthIndicator, CalentamientoInicial calentamiento) {
         this.healthIndicator = healthIndicator;
+        this.calentamiento = calentamiento;
     }
 
     @Override
     public void run(String... args) {
-        // Por defecto, la aplicación inicia como lista (ready) y viva (live)
-        healthIndicator.setReady(true);
+        // Viva desde el arranque, pero no lista (ready) hasta terminar el calentamiento
         healthIndicator.setLive(true);
+        calentamiento.calentar();
+        healthIndicator.setReady(true);
     }
 }
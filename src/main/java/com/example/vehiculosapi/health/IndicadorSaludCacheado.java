@@ -0,0 +1,122 @@
+package com.example.vehiculosapi.health;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Envuelve un indicador de salud y responde con su último resultado sin volver a evaluarlo.
+ * {@link IndicadoresSaludEnSegundoPlano} lo refresca cada {@code intervalo}; una evaluación que
+ * tarda más de {@code tiempoMaximo} cuenta como DOWN. Si el resultado supera {@code obsoletoTras}
+ * (el evaluador sigue colgado o no ha llegado a ejecutarse) también se responde DOWN. Hasta la
+ * primera evaluación se responde OUT_OF_SERVICE: no se sabe si el componente funciona y UNKNOWN no
+ * cuenta al agregar, así que la aplicación aparecería UP sin haberlo comprobado.
+ */
+final class IndicadorSaludCacheado implements HealthIndicator {
+
+    private final String nombre;
+    private final HealthIndicator indicador;
+    private final Duration intervalo;
+    private final Duration tiempoMaximo;
+    private final Duration obsoletoTras;
+    // Mientras la evaluación anterior no termina de verdad no se lanza otra, aunque ya haya agotado su tiempo
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    private volatile Resultado ultimo;
+
+    IndicadorSaludCacheado(String nombre, HealthIndicator indicador, Duration intervalo, Duration tiempoMaximo,
+                           Duration obsoletoTras) {
+        this.nombre = nombre;
+        this.indicador = indicador;
+        this.intervalo = intervalo;
+        this.tiempoMaximo = tiempoMaximo;
+        this.obsoletoTras = obsoletoTras;
+    }
+
+    String nombre() {
+        return nombre;
+    }
+
+    Duration intervalo() {
+        return intervalo;
+    }
+
+    /**
+     * Milisegundos desde la última evaluación, o -1 si aún no hay ninguna.
+     */
+    long antiguedadMs() {
+        Resultado resultado = ultimo;
+        return resultado == null ? -1 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - resultado.nanos());
+    }
+
+    @Override
+    public Health health() {
+        Resultado resultado = ultimo;
+        if (resultado == null) {
+            return Health.outOfService()
+                    .withDetail("info", "Pendiente de la primera evaluación")
+                    .withDetail("obsoletoTrasMs", obsoletoTras.toMillis())
+                    .build();
+        }
+        long antiguedadMs = antiguedadMs();
+        Health.Builder salud;
+        if (antiguedadMs > obsoletoTras.toMillis()) {
+            salud = Health.down()
+                    .withDetail("error", "Resultado obsoleto")
+                    .withDetail("estadoAnterior", resultado.salud().getStatus().getCode());
+        } else {
+            salud = Health.status(resultado.salud().getStatus());
+        }
+        return salud.withDetails(resultado.salud().getDetails())
+                .withDetail("comprobado", resultado.instante().toString())
+                .withDetail("antiguedadMs", antiguedadMs)
+                .withDetail("obsoletoTrasMs", obsoletoTras.toMillis())
+                .build();
+    }
+
+    void refrescar(Executor evaluacion) {
+        if (!enCurso.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture<Health> salud;
+        try {
+            salud = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return indicador.health();
+                } finally {
+                    enCurso.set(false);
+                }
+            }, evaluacion);
+        } catch (RuntimeException e) {
+            enCurso.set(false);
+            throw e;
+        }
+        salud.orTimeout(tiempoMaximo.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((resultado, error) -> guardar(resultado != null ? resultado : caida(error)));
+    }
+
+    private Health caida(Throwable error) {
+        Throwable causa = error.getCause() != null ? error.getCause() : error;
+        if (causa instanceof TimeoutException) {
+            return Health.down()
+                    .withDetail("error", "Sin respuesta en " + tiempoMaximo.toMillis() + " ms")
+                    .build();
+        }
+        return Health.down(causa instanceof Exception excepcion ? excepcion : new IllegalStateException(causa))
+                .build();
+    }
+
+    private void guardar(Health salud) {
+        ultimo = new Resultado(salud, Instant.now(), System.nanoTime());
+    }
+
+    private record Resultado(Health salud, Instant instante, long nanos) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.vehiculosapi.health;
+
+import com.example.vehiculosapi.config.FabricaHilos;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.availability.AvailabilityStateHealthIndicator;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.PingHealthIndicator;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.core.env.Environment;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustituye los indicadores de salud por {@link IndicadorSaludCacheado} y los refresca en segundo
+ * plano, cada uno con su intervalo ({@code vehiculos.salud.cache.<nombre>.intervalo}, o el general).
+ * Así las sondas y los scrapes de {@code /actuator/health} responden en tiempo constante y no
+ * compiten con las peticiones por las conexiones a la base de datos. Los reactivos (R2DBC) también:
+ * se evalúan bloqueando en un hilo de evaluación, nunca en el event loop. Los de liveness, readiness
+ * y ping no se envuelven: ya son constantes y deben reflejar los cambios de estado al momento.
+ */
+public class IndicadoresSaludEnSegundoPlano implements BeanPostProcessor, SmartInitializingSingleton,
+        DisposableBean, BeanFactoryAware {
+
+    private static final String PREFIJO = "vehiculos.salud.cache.";
+    private static final String SUFIJO_BEAN = "HealthIndicator";
+
+    private final Environment environment;
+    private final boolean activo;
+    private final Set<String> excluidos;
+    private final List<IndicadorSaludCacheado> indicadores = new ArrayList<>();
+    private BeanFactory beanFactory;
+    private ScheduledThreadPoolExecutor programador;
+    private ExecutorService evaluacion;
+
+    public IndicadoresSaludEnSegundoPlano(Environment environment) {
+        this.environment = environment;
+        this.activo = environment.getProperty(PREFIJO + "activo", Boolean.class, true);
+        this.excluidos = Set.of(environment.getProperty(PREFIJO + "excluidos", String[].class, new String[0]));
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!activo || bean instanceof AvailabilityStateHealthIndicator || bean instanceof PingHealthIndicator) {
+            return bean;
+        }
+        HealthIndicator indicador;
+        if (bean instanceof HealthIndicator bloqueante) {
+            indicador = bloqueante;
+        } else if (bean instanceof ReactiveHealthIndicator reactivo) {
+            indicador = () -> reactivo.health().block();
+        } else {
+            return bean;
+        }
+        // El mismo nombre que le da Actuator al componente: el del bean sin el sufijo
+        String nombre = beanName.endsWith(SUFIJO_BEAN) && beanName.length() > SUFIJO_BEAN.length()
+                ? beanName.substring(0, beanName.length() - SUFIJO_BEAN.length())
+                : beanName;
+        if (excluidos.contains(nombre)) {
+            return bean;
+        }
+        Duration intervalo = duracion(nombre, "intervalo", Duration.ofSeconds(10));
+        Duration tiempoMaximo = duracion(nombre, "tiempo-maximo", Duration.ofSeconds(2));
+        Duration obsoletoTras = duracion(nombre, "obsoleto-tras", intervalo.multipliedBy(3).plus(tiempoMaximo));
+        IndicadorSaludCacheado cacheado = new IndicadorSaludCacheado(nombre, indicador, intervalo, tiempoMaximo,
+                obsoletoTras);
+        synchronized (indicadores) {
+            indicadores.add(cacheado);
+        }
+        if (bean instanceof ReactiveHealthIndicator) {
+            return (ReactiveHealthIndicator) () -> Mono.fromSupplier(cacheado::health);
+        }
+        return cacheado;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        synchronized (indicadores) {
+            if (indicadores.isEmpty()) {
+                return;
+            }
+            // Se crea aquí y no se inyecta: un BeanPostProcessor no debe adelantar la creación de otros beans
+            FabricaHilos fabricaHilos = new FabricaHilos(environment);
+            programador = new ScheduledThreadPoolExecutor(1, fabricaHilos.hilos("salud-programador"));
+            // Sin límite de hilos: una evaluación colgada no debe retrasar a las de otros indicadores
+            evaluacion = Executors.newCachedThreadPool(fabricaHilos.hilosNumerados("salud-evaluacion"));
+            MeterRegistry meterRegistry = beanFactory.getBeanProvider(MeterRegistry.class).getIfAvailable();
+            for (IndicadorSaludCacheado indicador : indicadores) {
+                programador.scheduleAtFixedRate(() -> indicador.refrescar(evaluacion),
+                        0, indicador.intervalo().toMillis(), TimeUnit.MILLISECONDS);
+                if (meterRegistry != null) {
+                    TimeGauge.builder("vehiculos.salud.antiguedad", indicador, TimeUnit.MILLISECONDS,
+                                    IndicadorSaludCacheado::antiguedadMs)
+                            .description("Tiempo desde la última evaluación del indicador de salud")
+                            .tag("indicador", indicador.nombre())
+                            .register(meterRegistry);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (programador != null) {
+            programador.shutdownNow();
+            evaluacion.shutdownNow();
+        }
+    }
+
+    private Duration duracion(String nombre, String propiedad, Duration porDefecto) {
+        Duration general = environment.getProperty(PREFIJO + propiedad, Duration.class, porDefecto);
+        return environment.getProperty(PREFIJO + nombre + "." + propiedad, Duration.class, general);
+    }
+}
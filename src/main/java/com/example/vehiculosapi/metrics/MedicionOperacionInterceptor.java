@@ -0,0 +1,53 @@
+package com.example.vehiculosapi.metrics;
+
+import com.example.vehiculosapi.config.MetricsConfig;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Instrumenta los métodos anotados con {@link Medido}. Se registra como advisor por debajo del
+ * circuit breaker y del reintento, así que mide cada intento por separado, igual que hacía
+ * {@code recordOperationTime}. Es un {@link MethodInterceptor} en lugar de un {@code @Aspect}
+ * para no construir un {@code JoinPoint} ni su firma en cada llamada: la operación se resuelve una
+ * vez por método y sólo se incrementa un contador y se registra una duración ya registrados.
+ */
+public class MedicionOperacionInterceptor implements MethodInterceptor {
+
+    // El advisor se crea antes que el registro de métricas; MetricsConfig se resuelve en la primera llamada
+    private final Supplier<MetricsConfig> proveedor;
+    private final ConcurrentMap<Method, Operacion> operaciones = new ConcurrentHashMap<>();
+    private MetricsConfig metricsConfig;
+
+    public MedicionOperacionInterceptor(Supplier<MetricsConfig> proveedor) {
+        this.proveedor = proveedor;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MetricsConfig metricsConfig = this.metricsConfig;
+        if (metricsConfig == null) {
+            metricsConfig = this.metricsConfig = proveedor.get();
+        }
+        Operacion operacion = operacion(invocation.getMethod());
+        metricsConfig.contar(operacion);
+        long inicio = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            metricsConfig.registrarTiempo(operacion, System.nanoTime() - inicio);
+        }
+    }
+
+    private Operacion operacion(Method metodo) {
+        Operacion operacion = operaciones.get(metodo);
+        if (operacion == null) {
+            operacion = operaciones.computeIfAbsent(metodo, m -> m.getAnnotation(Medido.class).value());
+        }
+        return operacion;
+    }
+}
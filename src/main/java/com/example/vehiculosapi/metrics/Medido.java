@@ -0,0 +1,16 @@
+package com.example.vehiculosapi.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un método de servicio para contar sus ejecuciones y medir su duración
+ * con los medidores precargados de la {@link Operacion} indicada.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Medido {
+    Operacion value();
+}
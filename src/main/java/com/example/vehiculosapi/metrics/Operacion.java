@@ -0,0 +1,34 @@
+package com.example.vehiculosapi.metrics;
+
+/**
+ * Operaciones instrumentadas del servicio de vehículos. Cada una tiene su temporizador
+ * ({@code vehiculo.operacion.tiempo{operacion}}) y su contador ({@code vehiculo.operacion{tipo}})
+ * registrados una sola vez al arrancar.
+ */
+public enum Operacion {
+    OBTENER_TODOS("obtenerTodos", "consulta"),
+    OBTENER_POR_ID("obtenerPorId", "consulta_por_id"),
+    OBTENER_VERSION("obtenerVersion", "consulta_version"),
+    BUSCAR("buscar", "busqueda"),
+    CREAR("crear", "crear"),
+    CREAR_LOTE("crearLote", "crear_lote"),
+    ACTUALIZAR("actualizar", "actualizar"),
+    ELIMINAR("eliminar", "eliminar"),
+    EXPORTAR("exportar", "exportar");
+
+    private final String nombre;
+    private final String tipo;
+
+    Operacion(String nombre, String tipo) {
+        this.nombre = nombre;
+        this.tipo = tipo;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+}
@@ -1,14 +1,29 @@
 package com.example.vehiculosapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.time.Instant;
+
+// Las anotaciones de Spring Data Relational sólo las usa la variante reactiva (R2DBC)
 @Data
 @Entity
-@Table(name = "vehiculos")
+// Índices de los predicados de búsqueda; los que acaban en id sirven también al orden keyset (campo, id)
+@Table(name = "vehiculos", indexes = {
+        @Index(name = "idx_vehiculos_marca_id", columnList = "marca, id"),
+        @Index(name = "idx_vehiculos_marca_anio", columnList = "marca, anio"),
+        @Index(name = "idx_vehiculos_modelo", columnList = "modelo"),
+        @Index(name = "idx_vehiculos_anio_id", columnList = "anio, id"),
+        @Index(name = "idx_vehiculos_precio_id", columnList = "precio, id")
+})
+@org.springframework.data.relational.core.mapping.Table("vehiculos")
 public class Vehiculo {
+    // Secuencia con asignación agrupada para que Hibernate pueda agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @org.springframework.data.annotation.Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vehiculos_seq")
+    @SequenceGenerator(name = "vehiculos_seq", sequenceName = "vehiculos_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -27,4 +42,15 @@ public class Vehiculo {
     private String placa;
     
     private Double precio;
+
+    // Se incrementa en cada actualización; se expone como ETag y se comprueba con If-Match
+    // En la variante reactiva la mantiene ReactivoConfig (Spring Data JPA no admite la anotación de Spring Data)
+    @Version
+    private Long version;
+
+    // Sólo en las copias servidas desde InstantaneaFlota: momento de la instantánea, publicado en cabeceras
+    @Transient
+    @org.springframework.data.annotation.Transient
+    @JsonIgnore
+    private Instant instantanea;
 }
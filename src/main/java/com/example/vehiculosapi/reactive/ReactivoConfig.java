@@ -0,0 +1,60 @@
+package com.example.vehiculosapi.reactive;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactivoConfig {
+
+    /**
+     * Spring Boot no configura el DataSource JDBC cuando existe una ConnectionFactory de R2DBC.
+     * Se declara explícitamente para que JPA (esquema, servicio bloqueante, health de BD) siga disponible.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Con Tomcat en el classpath Spring Boot lo elegiría también para WebFlux; se fuerza Netty (event loop)
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * R2DBC no genera identificadores: se toma el siguiente valor de la misma secuencia que usa JPA.
+     * Con el optimizador pooled de Hibernate cada valor de la secuencia reserva un rango que termina
+     * en ese valor, así que usarlo directamente como ID nunca colisiona con los IDs de JPA.
+     * También mantiene la versión que JPA usa como ETag: 0 al crear y +1 en cada actualización.
+     */
+    @Bean
+    public BeforeConvertCallback<Vehiculo> asignarIdVehiculo(DatabaseClient databaseClient) {
+        return (vehiculo, tabla) -> {
+            if (vehiculo.getId() != null) {
+                vehiculo.setVersion(vehiculo.getVersion() != null ? vehiculo.getVersion() + 1 : 0L);
+                return Mono.just(vehiculo);
+            }
+            vehiculo.setVersion(0L);
+            return databaseClient.sql("SELECT NEXT VALUE FOR vehiculos_seq")
+                    .map(fila -> fila.get(0, Long.class))
+                    .one()
+                    .map(id -> {
+                        vehiculo.setId(id);
+                        return vehiculo;
+                    });
+        };
+    }
+}
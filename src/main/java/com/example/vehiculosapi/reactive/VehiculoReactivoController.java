@@ -0,0 +1,74 @@
+package com.example.vehiculosapi.reactive;
+
+import com.example.vehiculosapi.dto.Cursor;
+import com.example.vehiculosapi.dto.Pagina;
+import com.example.vehiculosapi.model.Vehiculo;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Misma API que {@link com.example.vehiculosapi.controller.VehiculoController} sobre WebFlux,
+ * para poder lanzar los mismos scripts de k6 contra ambas pilas.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/vehiculos")
+@Tag(name = "Vehículos", description = "API para la gestión de vehículos")
+public class VehiculoReactivoController {
+
+    private final VehiculoReactivoService vehiculoService;
+
+    @Value("${vehiculos.paginacion.limite-maximo:100}")
+    private int limiteMaximo;
+
+    public VehiculoReactivoController(VehiculoReactivoService vehiculoService) {
+        this.vehiculoService = vehiculoService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Obtener los vehículos paginados por cursor")
+    public Mono<Pagina<Vehiculo>> obtenerTodos(
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "${vehiculos.paginacion.limite-por-defecto:20}") int limite) {
+        Long despuesDeId;
+        try {
+            despuesDeId = Cursor.decodificar(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e));
+        }
+        int limiteEfectivo = Math.max(1, Math.min(limite, limiteMaximo));
+        return vehiculoService.obtenerTodos(marca, despuesDeId, limiteEfectivo);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Obtener un vehículo por ID")
+    public Mono<Vehiculo> obtenerPorId(@PathVariable Long id) {
+        return vehiculoService.obtenerPorId(id);
+    }
+
+    @PostMapping
+    @Operation(summary = "Crear un nuevo vehículo")
+    public Mono<Vehiculo> crear(@RequestBody Vehiculo vehiculo) {
+        return vehiculoService.crear(vehiculo);
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Actualizar un vehículo existente")
+    public Mono<Vehiculo> actualizar(@PathVariable Long id, @RequestBody Vehiculo vehiculo) {
+        return vehiculoService.actualizar(id, vehiculo);
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Eliminar un vehículo")
+    public Mono<ResponseEntity<Void>> eliminar(@PathVariable Long id) {
+        return vehiculoService.eliminar(id).thenReturn(ResponseEntity.noContent().build());
+    }
+}
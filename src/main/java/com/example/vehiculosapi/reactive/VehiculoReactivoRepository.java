@@ -0,0 +1,17 @@
+package com.example.vehiculosapi.reactive;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface VehiculoReactivoRepository extends R2dbcRepository<Vehiculo, Long> {
+    Mono<Boolean> existsByPlaca(String placa);
+
+    Flux<Vehiculo> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    Flux<Vehiculo> findByMarcaAndIdGreaterThanOrderByIdAsc(String marca, Long id, Limit limit);
+}
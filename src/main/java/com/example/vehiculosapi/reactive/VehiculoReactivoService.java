@@ -0,0 +1,220 @@
+package com.example.vehiculosapi.reactive;
+
+import com.example.vehiculosapi.config.MetricsConfig;
+import com.example.vehiculosapi.config.ReintentosConfig;
+import com.example.vehiculosapi.dto.Cursor;
+import com.example.vehiculosapi.dto.Pagina;
+import com.example.vehiculosapi.metrics.Operacion;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.registro.RegistroLimitado;
+import com.example.vehiculosapi.resiliencia.PresupuestoReintentos;
+import com.example.vehiculosapi.service.ContadorFlota;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Equivalente no bloqueante de {@link com.example.vehiculosapi.service.VehiculoService}.
+ * Usa el mismo circuit breaker ({@code vehiculoService}) y las mismas políticas de reintento por operación
+ * mediante los operadores de Reactor de Resilience4j, y los mismos fallbacks.
+ */
+@Service
+@Profile("reactive")
+public class VehiculoReactivoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VehiculoReactivoService.class);
+    private static final String VEHICULO_SERVICE = "vehiculoService";
+
+    private final VehiculoReactivoRepository vehiculoRepository;
+    private final MetricsConfig metricsConfig;
+    private final ContadorFlota contadorFlota;
+    private final CircuitBreaker circuitBreaker;
+    private final PresupuestoReintentos presupuestoReintentos;
+    private final RegistroLimitado registro;
+    private final Retry retryLecturas;
+    private final Retry retryEscrituras;
+
+    public VehiculoReactivoService(VehiculoReactivoRepository vehiculoRepository,
+                                   MetricsConfig metricsConfig,
+                                   ContadorFlota contadorFlota,
+                                   CircuitBreakerRegistry circuitBreakerRegistry,
+                                   RetryRegistry retryRegistry,
+                                   PresupuestoReintentos presupuestoReintentos,
+                                   RegistroLimitado registro) {
+        this.vehiculoRepository = vehiculoRepository;
+        this.metricsConfig = metricsConfig;
+        this.contadorFlota = contadorFlota;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(VEHICULO_SERVICE);
+        this.retryLecturas = retryRegistry.retry(ReintentosConfig.REINTENTO_LECTURAS);
+        this.retryEscrituras = retryRegistry.retry(ReintentosConfig.REINTENTO_ESCRITURAS_IDEMPOTENTES);
+        this.presupuestoReintentos = presupuestoReintentos;
+        this.registro = registro;
+    }
+
+    public Mono<Pagina<Vehiculo>> obtenerTodos(String marca, Long despuesDeId, int limite) {
+        long desde = despuesDeId != null ? despuesDeId : 0L;
+        Limit limit = Limit.of(limite + 1);
+        Mono<Pagina<Vehiculo>> pagina = (marca != null
+                ? vehiculoRepository.findByMarcaAndIdGreaterThanOrderByIdAsc(marca, desde, limit)
+                : vehiculoRepository.findByIdGreaterThanOrderByIdAsc(desde, limit))
+                .collectList()
+                .map(vehiculos -> {
+                    if (vehiculos.size() <= limite) {
+                        return new Pagina<>(vehiculos, null);
+                    }
+                    List<Vehiculo> elementos = vehiculos.subList(0, limite);
+                    return new Pagina<>(elementos, Cursor.codificar(elementos.get(limite - 1).getId()));
+                });
+        return proteger(pagina, Operacion.OBTENER_TODOS, retryLecturas)
+                .onErrorResume(e -> {
+                    registro.advertir(logger, e, "Fallback para obtenerTodos() - Retornando página vacía");
+                    return Mono.just(Pagina.vacia());
+                });
+    }
+
+    public Mono<Vehiculo> obtenerPorId(Long id) {
+        Mono<Vehiculo> vehiculo = vehiculoRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("Vehículo no encontrado con ID: " + id)));
+        return proteger(vehiculo, Operacion.OBTENER_POR_ID, retryLecturas)
+                .onErrorResume(e -> {
+                    registro.advertir(logger, e, "Fallback para obtenerPorId({}) - Retornando vehículo por defecto", id);
+                    return Mono.just(new Vehiculo());
+                });
+    }
+
+    public Mono<Vehiculo> crear(Vehiculo vehiculo) {
+        vehiculo.setId(null);
+        Mono<Vehiculo> creado = vehiculoRepository.existsByPlaca(vehiculo.getPlaca())
+                .flatMap(existe -> existe
+                        ? Mono.error(new IllegalArgumentException("Ya existe un vehículo con la placa: " + vehiculo.getPlaca()))
+                        : vehiculoRepository.save(vehiculo))
+                .doOnNext(guardado -> contadorFlota.alta(guardado.getMarca()));
+        return proteger(creado, Operacion.CREAR, null)
+                .onErrorMap(e -> {
+                    registro.advertir(logger, e, "Fallback para crear() - No se pudo crear el vehículo: {}", vehiculo);
+                    return new RuntimeException("No se pudo crear el vehículo. Por favor, intente más tarde.", e);
+                });
+    }
+
+    public Mono<Vehiculo> actualizar(Long id, Vehiculo vehiculoActualizado) {
+        Mono<Vehiculo> actualizado = vehiculoRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("Vehículo no encontrado con ID: " + id)))
+                .flatMap(vehiculo -> {
+                    Mono<Boolean> placaOcupada = vehiculo.getPlaca().equals(vehiculoActualizado.getPlaca())
+                            ? Mono.just(false)
+                            : vehiculoRepository.existsByPlaca(vehiculoActualizado.getPlaca());
+                    return placaOcupada.flatMap(ocupada -> {
+                        if (ocupada) {
+                            return Mono.error(new IllegalArgumentException(
+                                    "Ya existe un vehículo con la placa: " + vehiculoActualizado.getPlaca()));
+                        }
+                        contadorFlota.cambioDeMarca(vehiculo.getMarca(), vehiculoActualizado.getMarca());
+                        vehiculo.setMarca(vehiculoActualizado.getMarca());
+                        vehiculo.setModelo(vehiculoActualizado.getModelo());
+                        vehiculo.setAnio(vehiculoActualizado.getAnio());
+                        vehiculo.setColor(vehiculoActualizado.getColor());
+                        vehiculo.setPlaca(vehiculoActualizado.getPlaca());
+                        vehiculo.setPrecio(vehiculoActualizado.getPrecio());
+                        return vehiculoRepository.save(vehiculo);
+                    });
+                });
+        return proteger(actualizado, Operacion.ACTUALIZAR, retryEscrituras)
+                .onErrorMap(e -> {
+                    registro.advertir(logger, e, "Fallback para actualizar() - No se pudo actualizar el vehículo con ID: {}",
+                            id);
+                    return new RuntimeException("No se pudo actualizar el vehículo. Por favor, intente más tarde.", e);
+                });
+    }
+
+    public Mono<Void> eliminar(Long id) {
+        Mono<Void> eliminado = vehiculoRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException("Vehículo no encontrado con ID: " + id)))
+                .flatMap(vehiculo -> vehiculoRepository.deleteById(id)
+                        .then(Mono.fromRunnable(() -> contadorFlota.baja(vehiculo.getMarca()))))
+                .then();
+        return proteger(eliminado, Operacion.ELIMINAR, retryEscrituras)
+                .onErrorMap(e -> {
+                    registro.advertir(logger, e, "Fallback para eliminar() - No se pudo eliminar el vehículo con ID: {}",
+                            id);
+                    return new RuntimeException("No se pudo eliminar el vehículo. Por favor, intente más tarde.", e);
+                });
+    }
+
+    /**
+     * Aplica el mismo orden que los aspectos de Resilience4j en el servicio bloqueante:
+     * el reintento (si la operación lo admite) envuelve al circuit breaker, que envuelve
+     * a la operación medida. Cada llamada aporta al presupuesto de reintentos y lleva la cuenta
+     * de sus fallos para no consumirlo con el del último intento.
+     */
+    private <T> Mono<T> proteger(Mono<T> operacion, Operacion medida, Retry retry) {
+        Mono<T> protegida = Mono.defer(() -> {
+                    metricsConfig.contar(medida);
+                    long inicio = System.nanoTime();
+                    return operacion.doFinally(senal -> metricsConfig.registrarTiempo(medida, System.nanoTime() - inicio));
+                })
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+        if (retry == null) {
+            return protegida;
+        }
+        return Mono.defer(() -> {
+            presupuestoReintentos.registrarLlamada();
+            return protegida.transform(conIntentos(new PresupuestoReintentos.Intentos()))
+                    .transformDeferred(RetryOperator.of(retry));
+        });
+    }
+
+    /**
+     * RetryOperator evalúa el predicado de reintento en el hilo que emite el error y mientras se
+     * propaga: durante esa señal se dejan en el hilo los intentos de esta llamada.
+     */
+    private static <T> Function<Mono<T>, Mono<T>> conIntentos(PresupuestoReintentos.Intentos intentos) {
+        return mono -> Mono.from(Operators.<T, T>liftPublisher((fuente, destino) -> new CoreSubscriber<T>() {
+            @Override
+            public Context currentContext() {
+                return destino.currentContext();
+            }
+
+            @Override
+            public void onSubscribe(Subscription suscripcion) {
+                destino.onSubscribe(suscripcion);
+            }
+
+            @Override
+            public void onNext(T valor) {
+                destino.onNext(valor);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                PresupuestoReintentos.Intentos anteriores = PresupuestoReintentos.fijarIntentos(intentos);
+                try {
+                    destino.onError(error);
+                } finally {
+                    PresupuestoReintentos.fijarIntentos(anteriores);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                destino.onComplete();
+            }
+        }).apply(mono));
+    }
+}
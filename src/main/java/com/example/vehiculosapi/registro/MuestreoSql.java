@@ -0,0 +1,46 @@
+package com.example.vehiculosapi.registro;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Muestra de las sentencias SQL en lugar de {@code spring.jpa.show-sql}, que las escribe todas por
+ * la salida estándar. Registra una de cada {@code vehiculos.sql.muestreo.cada} en el logger
+ * {@code com.example.vehiculosapi.sql} con nivel INFO, junto al total de sentencias preparadas.
+ */
+@Component
+public class MuestreoSql implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final Logger logger = LoggerFactory.getLogger("com.example.vehiculosapi.sql");
+
+    private final int cada;
+    private final AtomicLong sentencias = new AtomicLong();
+
+    public MuestreoSql(@Value("${vehiculos.sql.muestreo.cada:0}") int cada) {
+        this.cada = cada;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        if (cada > 0) {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        long numero = sentencias.incrementAndGet();
+        if (numero % cada == 0 && logger.isInfoEnabled()) {
+            logger.info("SQL (1 de cada {}, {} sentencias en total): {}", cada, numero, sql);
+        }
+        return sql;
+    }
+}
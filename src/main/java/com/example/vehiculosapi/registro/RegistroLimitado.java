@@ -0,0 +1,183 @@
+package com.example.vehiculosapi.registro;
+
+import com.example.vehiculosapi.config.FabricaHilos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.MessageFormatter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Avisos de los caminos de fallo (fallbacks), que durante una caída se repiten en cada petición.
+ * Cada aviso se agrupa por firma: logger, plantilla del mensaje, clase de la excepción raíz y el
+ * punto donde se lanzó. Dentro de cada intervalo sólo la primera ocurrencia de una firma se
+ * escribe completa, con su traza, y como mucho {@code vehiculos.registro.maximo-por-intervalo}
+ * entre todas. Las demás sólo se cuentan y al cerrar el intervalo se resumen en una línea por
+ * firma. La escritura se hace en un hilo aparte: quien avisa sólo paga la firma y un contador.
+ * Al cerrar el intervalo se espera a que terminen quienes aún estaban contando en la ventana
+ * cerrada, así ninguna ocurrencia se queda fuera del resumen.
+ */
+@Component
+public class RegistroLimitado {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroLimitado.class);
+
+    // Firmas distintas por intervalo; el resto se cuentan juntas para que el mapa no crezca sin límite
+    private static final int MAXIMO_FIRMAS = 1000;
+
+    private final boolean activo;
+    private final Duration intervalo;
+    private final int maximoPorIntervalo;
+    private final ScheduledThreadPoolExecutor escritor;
+    private final Counter suprimidos;
+
+    private volatile Ventana ventana = new Ventana();
+
+    public RegistroLimitado(MeterRegistry meterRegistry,
+                            FabricaHilos fabricaHilos,
+                            @Value("${vehiculos.registro.activo:true}") boolean activo,
+                            @Value("${vehiculos.registro.intervalo:10s}") Duration intervalo,
+                            @Value("${vehiculos.registro.maximo-por-intervalo:20}") int maximoPorIntervalo) {
+        this.activo = activo;
+        this.intervalo = intervalo;
+        this.maximoPorIntervalo = maximoPorIntervalo;
+        this.escritor = new ScheduledThreadPoolExecutor(1, fabricaHilos.hilos("registro-limitado"));
+        this.escritor.scheduleAtFixedRate(this::resumir, intervalo.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+        this.suprimidos = Counter.builder("vehiculos.registro.suprimidos")
+                .description("Avisos repetidos que no se escribieron y sólo se contaron en el resumen")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Equivale a {@code logger.warn(mensaje, argumentos..., error)}.
+     * @param error puede ser nulo; entonces la firma es sólo el mensaje
+     */
+    public void advertir(Logger logger, Throwable error, String mensaje, Object... argumentos) {
+        if (!logger.isWarnEnabled()) {
+            return;
+        }
+        if (!activo) {
+            logger.warn(MessageFormatter.arrayFormat(mensaje, argumentos).getMessage(), error);
+            return;
+        }
+        Ventana actual = entrar();
+        try {
+            Ocurrencias ocurrencias = actual.ocurrencias(new Firma(logger.getName(), mensaje, origen(error)), logger);
+            if (ocurrencias.total.incrementAndGet() == 1 && actual.escritas.incrementAndGet() <= maximoPorIntervalo) {
+                // Los argumentos se formatean ya: pueden cambiar antes de que el escritor llegue a ellos
+                String texto = MessageFormatter.arrayFormat(mensaje, argumentos).getMessage();
+                ocurrencias.escrita = true;
+                escritor.execute(() -> logger.warn(texto, error));
+            } else {
+                suprimidos.increment();
+            }
+        } finally {
+            actual.escritores.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        escritor.shutdown();
+        resumir();
+    }
+
+    /**
+     * Se apunta como escritor en la ventana actual. Si la ventana se cierra justo antes de apuntarse,
+     * se retira y prueba con la nueva: {@link #resumir()} ya no la esperaría.
+     */
+    private Ventana entrar() {
+        while (true) {
+            Ventana actual = ventana;
+            actual.escritores.incrementAndGet();
+            if (actual == ventana) {
+                return actual;
+            }
+            actual.escritores.decrementAndGet();
+        }
+    }
+
+    private void resumir() {
+        Ventana cerrada = ventana;
+        ventana = new Ventana();
+        // Quien se apuntó antes del cambio sólo cuenta y apunta: la espera es de microsegundos
+        while (cerrada.escritores.get() > 0) {
+            Thread.onSpinWait();
+        }
+        long segundos = intervalo.toSeconds();
+        for (Map.Entry<Firma, Ocurrencias> entrada : cerrada.porFirma.entrySet()) {
+            Ocurrencias ocurrencias = entrada.getValue();
+            long total = ocurrencias.total.get();
+            if (total > 1 || !ocurrencias.escrita) {
+                Firma firma = entrada.getKey();
+                ocurrencias.logger.warn("{} ocurrencias de \"{}\"{} en los últimos {} s", total, firma.mensaje(),
+                        firma.origen().isEmpty() ? "" : " (" + firma.origen() + ")", segundos);
+            }
+        }
+        long desbordadas = cerrada.desbordadas.get();
+        if (desbordadas > 0) {
+            log.warn("{} avisos más con firmas distintas en los últimos {} s", desbordadas, segundos);
+        }
+    }
+
+    /**
+     * Clase de la excepción raíz y el primer marco de su traza, sin el mensaje, que suele llevar IDs.
+     */
+    private static String origen(Throwable error) {
+        if (error == null) {
+            return "";
+        }
+        Throwable raiz = error;
+        while (raiz.getCause() != null && raiz.getCause() != raiz) {
+            raiz = raiz.getCause();
+        }
+        StackTraceElement[] traza = raiz.getStackTrace();
+        return traza.length == 0 ? raiz.getClass().getName() : raiz.getClass().getName() + " en " + traza[0];
+    }
+
+    private record Firma(String logger, String mensaje, String origen) {
+    }
+
+    private static final class Ocurrencias {
+        private final Logger logger;
+        private final AtomicLong total = new AtomicLong();
+        private volatile boolean escrita;
+
+        private Ocurrencias(Logger logger) {
+            this.logger = logger;
+        }
+    }
+
+    private static final class Ventana {
+        private final Map<Firma, Ocurrencias> porFirma = new ConcurrentHashMap<>();
+        private final AtomicInteger escritas = new AtomicInteger();
+        private final AtomicLong desbordadas = new AtomicLong();
+        private final AtomicInteger escritores = new AtomicInteger();
+
+        private Ocurrencias ocurrencias(Firma firma, Logger logger) {
+            Ocurrencias ocurrencias = porFirma.get(firma);
+            if (ocurrencias != null) {
+                return ocurrencias;
+            }
+            if (porFirma.size() >= MAXIMO_FIRMAS) {
+                desbordadas.incrementAndGet();
+                // Se cuenta aparte y no se escribe: a efectos del llamador es una repetición más
+                Ocurrencias descartada = new Ocurrencias(logger);
+                descartada.total.set(1);
+                return descartada;
+            }
+            return porFirma.computeIfAbsent(firma, f -> new Ocurrencias(logger));
+        }
+    }
+}
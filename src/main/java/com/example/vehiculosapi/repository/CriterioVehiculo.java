@@ -0,0 +1,139 @@
+package com.example.vehiculosapi.repository;
+
+import com.example.vehiculosapi.dto.CamposVehiculo;
+import com.example.vehiculosapi.model.Vehiculo;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.ExampleMatcherAccessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Especificación de {@link VehiculoEspecificaciones} que además se puede evaluar sobre un vehículo
+ * ya cargado, para los almacenes que no traducen Criteria a SQL. Las dos formas deben seleccionar
+ * las mismas filas; al combinar dos criterios con {@link #and} se conservan ambas.
+ */
+public final class CriterioVehiculo implements Specification<Vehiculo> {
+
+    private static final CriterioVehiculo TODOS = new CriterioVehiculo((raiz, consulta, cb) -> null, vehiculo -> true);
+
+    private final Specification<Vehiculo> consulta;
+    private final Predicate<Vehiculo> predicado;
+
+    CriterioVehiculo(Specification<Vehiculo> consulta, Predicate<Vehiculo> predicado) {
+        this.consulta = consulta;
+        this.predicado = predicado;
+    }
+
+    static CriterioVehiculo todos(List<CriterioVehiculo> criterios) {
+        CriterioVehiculo resultado = TODOS;
+        for (CriterioVehiculo criterio : criterios) {
+            resultado = resultado == TODOS ? criterio : resultado.y(criterio);
+        }
+        return resultado;
+    }
+
+    /**
+     * El criterio de una especificación construida con {@link VehiculoEspecificaciones}.
+     * @throws IllegalArgumentException si es cualquier otra (un lambda sólo se puede traducir a SQL)
+     */
+    public static CriterioVehiculo de(Specification<Vehiculo> especificacion) {
+        if (especificacion == null) {
+            return TODOS;
+        }
+        if (especificacion instanceof CriterioVehiculo criterio) {
+            return criterio;
+        }
+        throw new IllegalArgumentException("Sólo se pueden evaluar en memoria las especificaciones de VehiculoEspecificaciones");
+    }
+
+    /**
+     * El criterio de una consulta por ejemplo. En SQL lo traduce Spring Data JPA; en memoria se
+     * compara cada columna con las mismas reglas: rutas ignoradas, tratamiento de nulos,
+     * mayúsculas y forma de comparar los textos.
+     */
+    @SuppressWarnings("unchecked")
+    public static CriterioVehiculo porEjemplo(Example<? extends Vehiculo> ejemplo) {
+        Example<Vehiculo> ejemploVehiculo = (Example<Vehiculo>) ejemplo;
+        ExampleMatcherAccessor reglas = new ExampleMatcherAccessor(ejemplo.getMatcher());
+        List<Predicate<Vehiculo>> condiciones = new ArrayList<>();
+        for (String campo : CamposVehiculo.todos()) {
+            if (reglas.isIgnoredPath(campo)) {
+                continue;
+            }
+            Optional<Object> valor = reglas.getValueTransformerForPath(campo)
+                    .apply(Optional.ofNullable(CamposVehiculo.leer(ejemplo.getProbe(), campo)));
+            if (valor.isEmpty()) {
+                if (reglas.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                    condiciones.add(vehiculo -> CamposVehiculo.leer(vehiculo, campo) == null);
+                }
+                continue;
+            }
+            condiciones.add(condicion(campo, valor.get(), reglas));
+        }
+        Predicate<Vehiculo> predicado = vehiculo -> true;
+        if (!condiciones.isEmpty()) {
+            boolean todas = ejemplo.getMatcher().isAllMatching();
+            predicado = vehiculo -> todas
+                    ? condiciones.stream().allMatch(condicion -> condicion.test(vehiculo))
+                    : condiciones.stream().anyMatch(condicion -> condicion.test(vehiculo));
+        }
+        return new CriterioVehiculo((raiz, consulta, cb) -> QueryByExamplePredicateBuilder.getPredicate(raiz, cb, ejemploVehiculo),
+                predicado);
+    }
+
+    private static Predicate<Vehiculo> condicion(String campo, Object esperado, ExampleMatcherAccessor reglas) {
+        if (!(esperado instanceof String texto)) {
+            return vehiculo -> esperado.equals(CamposVehiculo.leer(vehiculo, campo));
+        }
+        boolean sinMayusculas = reglas.isIgnoreCaseForPath(campo);
+        String buscado = sinMayusculas ? texto.toLowerCase() : texto;
+        ExampleMatcher.StringMatcher comparacion = reglas.getStringMatcherForPath(campo);
+        BiPredicate<String, String> coincide = switch (comparacion) {
+            case DEFAULT, EXACT -> String::equals;
+            case STARTING -> String::startsWith;
+            case ENDING -> String::endsWith;
+            case CONTAINING -> String::contains;
+            // Como en JPA, que no sabe traducir expresiones regulares a SQL
+            default -> throw new IllegalArgumentException("Comparación de textos no soportada: " + comparacion);
+        };
+        return vehiculo -> {
+            String actual = (String) CamposVehiculo.leer(vehiculo, campo);
+            return actual != null && coincide.test(sinMayusculas ? actual.toLowerCase() : actual, buscado);
+        };
+    }
+
+    public boolean cumple(Vehiculo vehiculo) {
+        return predicado.test(vehiculo);
+    }
+
+    @Override
+    public jakarta.persistence.criteria.Predicate toPredicate(Root<Vehiculo> raiz, CriteriaQuery<?> consulta,
+                                                              CriteriaBuilder cb) {
+        return this.consulta.toPredicate(raiz, consulta, cb);
+    }
+
+    @Override
+    public Specification<Vehiculo> and(Specification<Vehiculo> otra) {
+        if (otra instanceof CriterioVehiculo criterio) {
+            return y(criterio);
+        }
+        return Specification.super.and(otra);
+    }
+
+    private CriterioVehiculo y(CriterioVehiculo otro) {
+        List<Specification<Vehiculo>> partes = new ArrayList<>(2);
+        partes.add(consulta);
+        partes.add(otro.consulta);
+        return new CriterioVehiculo(Specification.allOf(partes), predicado.and(otro.predicado));
+    }
+}
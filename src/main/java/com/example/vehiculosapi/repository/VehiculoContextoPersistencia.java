@@ -0,0 +1,15 @@
+package com.example.vehiculosapi.repository;
+
+import com.example.vehiculosapi.model.Vehiculo;
+
+/**
+ * Operaciones sobre el contexto de persistencia que los servicios necesitan sin depender de JPA.
+ */
+public interface VehiculoContextoPersistencia {
+
+    /**
+     * Deja de seguir los cambios del vehículo y libera la memoria que el contexto guarda de él.
+     * En los recorridos largos se llama tras procesar cada uno.
+     */
+    void desacoplar(Vehiculo vehiculo);
+}
@@ -0,0 +1,16 @@
+package com.example.vehiculosapi.repository;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class VehiculoContextoPersistenciaImpl implements VehiculoContextoPersistencia {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void desacoplar(Vehiculo vehiculo) {
+        entityManager.detach(vehiculo);
+    }
+}
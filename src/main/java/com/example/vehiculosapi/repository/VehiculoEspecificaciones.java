@@ -0,0 +1,102 @@
+package com.example.vehiculosapi.repository;
+
+import com.example.vehiculosapi.dto.FiltroVehiculos;
+import com.example.vehiculosapi.dto.OrdenBusqueda;
+import com.example.vehiculosapi.model.Vehiculo;
+import jakarta.persistence.criteria.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Predicados de búsqueda de vehículos. Cada uno se corresponde con un índice declarado en
+ * {@link Vehiculo}; los rangos y la posición keyset se expresan como comparaciones sobre la
+ * columna para que la base de datos pueda recorrer el índice en lugar de la tabla. Cada
+ * predicado lleva también su equivalente en memoria para el almacén fuera del heap.
+ */
+public final class VehiculoEspecificaciones {
+
+    private VehiculoEspecificaciones() {
+    }
+
+    public static CriterioVehiculo de(FiltroVehiculos filtro, OrdenBusqueda orden) {
+        List<CriterioVehiculo> predicados = new ArrayList<>();
+        if (filtro.marca() != null) {
+            predicados.add(new CriterioVehiculo(
+                    (raiz, consulta, cb) -> cb.equal(raiz.get("marca"), filtro.marca()),
+                    vehiculo -> filtro.marca().equals(vehiculo.getMarca())));
+        }
+        if (filtro.modelo() != null) {
+            predicados.add(new CriterioVehiculo(
+                    (raiz, consulta, cb) -> cb.equal(raiz.get("modelo"), filtro.modelo()),
+                    vehiculo -> filtro.modelo().equals(vehiculo.getModelo())));
+        }
+        if (filtro.anioDesde() != null) {
+            predicados.add(new CriterioVehiculo(
+                    (raiz, consulta, cb) -> cb.greaterThanOrEqualTo(raiz.get("anio"), filtro.anioDesde()),
+                    vehiculo -> vehiculo.getAnio() != null && vehiculo.getAnio() >= filtro.anioDesde()));
+        }
+        if (filtro.anioHasta() != null) {
+            predicados.add(new CriterioVehiculo(
+                    (raiz, consulta, cb) -> cb.lessThanOrEqualTo(raiz.get("anio"), filtro.anioHasta()),
+                    vehiculo -> vehiculo.getAnio() != null && vehiculo.getAnio() <= filtro.anioHasta()));
+        }
+        if (filtro.precioMinimo() != null) {
+            predicados.add(new CriterioVehiculo(
+                    (raiz, consulta, cb) -> cb.greaterThanOrEqualTo(raiz.get("precio"), filtro.precioMinimo()),
+                    vehiculo -> vehiculo.getPrecio() != null && vehiculo.getPrecio() >= filtro.precioMinimo()));
+        }
+        if (filtro.precioMaximo() != null) {
+            predicados.add(new CriterioVehiculo(
+                    (raiz, consulta, cb) -> cb.lessThanOrEqualTo(raiz.get("precio"), filtro.precioMaximo()),
+                    vehiculo -> vehiculo.getPrecio() != null && vehiculo.getPrecio() <= filtro.precioMaximo()));
+        }
+        if (orden == OrdenBusqueda.PRECIO) {
+            predicados.add(new CriterioVehiculo(
+                    (raiz, consulta, cb) -> cb.isNotNull(raiz.get("precio")),
+                    vehiculo -> vehiculo.getPrecio() != null));
+        }
+        return CriterioVehiculo.todos(predicados);
+    }
+
+    public static CriterioVehiculo conId(Long id) {
+        return new CriterioVehiculo(
+                (raiz, consulta, cb) -> cb.equal(raiz.get("id"), id),
+                vehiculo -> id.equals(vehiculo.getId()));
+    }
+
+    /**
+     * Filas posteriores a {@code (valor, id)} en el orden indicado:
+     * {@code campo > valor OR (campo = valor AND id > id)}, o con {@code <} si es descendente.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static CriterioVehiculo despuesDe(OrdenBusqueda orden, Comparable valor, long id,
+                                             boolean descendente) {
+        if (orden == OrdenBusqueda.ID) {
+            return new CriterioVehiculo(
+                    (raiz, consulta, cb) -> descendente
+                            ? cb.lessThan(raiz.get("id"), id)
+                            : cb.greaterThan(raiz.get("id"), id),
+                    vehiculo -> descendente ? vehiculo.getId() < id : vehiculo.getId() > id);
+        }
+        return new CriterioVehiculo(
+                (raiz, consulta, cb) -> {
+                    Path<Comparable> campo = raiz.get(orden.getPropiedad());
+                    Path<Long> clave = raiz.get("id");
+                    return descendente
+                            ? cb.or(cb.lessThan(campo, valor), cb.and(cb.equal(campo, valor), cb.lessThan(clave, id)))
+                            : cb.or(cb.greaterThan(campo, valor), cb.and(cb.equal(campo, valor), cb.greaterThan(clave, id)));
+                },
+                vehiculo -> {
+                    Comparable actual = orden.valorDe(vehiculo);
+                    if (actual == null) {
+                        return false;
+                    }
+                    int comparacion = actual.compareTo(valor);
+                    if (comparacion == 0) {
+                        comparacion = Long.compare(vehiculo.getId(), id);
+                    }
+                    return descendente ? comparacion < 0 : comparacion > 0;
+                });
+    }
+}
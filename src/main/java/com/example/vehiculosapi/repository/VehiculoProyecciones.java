@@ -0,0 +1,21 @@
+package com.example.vehiculosapi.repository;
+
+import com.example.vehiculosapi.dto.CamposVehiculo;
+import com.example.vehiculosapi.model.Vehiculo;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Consultas que seleccionan sólo algunas columnas de {@link Vehiculo}.
+ */
+public interface VehiculoProyecciones {
+
+    /**
+     * Proyección dinámica: un {@code SELECT} con las columnas de {@code campos} en lugar de la fila
+     * entera. Los vehículos devueltos no son entidades gestionadas (no hay nada que comprobar al
+     * hacer flush) y el resto de sus propiedades queda a {@code null}.
+     */
+    List<Vehiculo> findParciales(Specification<Vehiculo> especificacion, Sort sort, CamposVehiculo campos, int limite);
+}
@@ -0,0 +1,52 @@
+package com.example.vehiculosapi.repository;
+
+import com.example.vehiculosapi.dto.CamposVehiculo;
+import com.example.vehiculosapi.model.Vehiculo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class VehiculoProyeccionesImpl implements VehiculoProyecciones {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Vehiculo> findParciales(Specification<Vehiculo> especificacion, Sort sort, CamposVehiculo campos, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Vehiculo> raiz = consulta.from(Vehiculo.class);
+        List<Selection<?>> columnas = new ArrayList<>(campos.nombres().size());
+        for (String nombre : campos.nombres()) {
+            columnas.add(raiz.get(nombre).alias(nombre));
+        }
+        consulta.multiselect(columnas);
+        Predicate predicado = especificacion.toPredicate(raiz, consulta, cb);
+        if (predicado != null) {
+            consulta.where(predicado);
+        }
+        consulta.orderBy(QueryUtils.toOrders(sort, raiz, cb));
+
+        List<Tuple> filas = entityManager.createQuery(consulta).setMaxResults(limite).getResultList();
+        List<Vehiculo> vehiculos = new ArrayList<>(filas.size());
+        for (Tuple fila : filas) {
+            Vehiculo vehiculo = new Vehiculo();
+            for (String nombre : campos.nombres()) {
+                CamposVehiculo.asignar(vehiculo, nombre, fila.get(nombre));
+            }
+            vehiculos.add(vehiculo);
+        }
+        return vehiculos;
+    }
+}
@@ -1,10 +1,75 @@
 package com.example.vehiculosapi.repository;
 
 import com.example.vehiculosapi.model.Vehiculo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface VehiculoRepository extends JpaRepository<Vehiculo, Long> {
+public interface VehiculoRepository extends JpaRepository<Vehiculo, Long>, JpaSpecificationExecutor<Vehiculo>,
+        VehiculoProyecciones, VehiculoContextoPersistencia {
     boolean existsByPlaca(String placa);
+
+    List<Vehiculo> findByPlacaIn(Collection<String> placas);
+
+    @Query("select v.placa from Vehiculo v")
+    List<String> findTodasLasPlacas();
+
+    @Query("select v.version from Vehiculo v where v.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Query("select v.placa as placa, v.marca as marca, v.version as version from Vehiculo v where v.id = :id")
+    Optional<EstadoVehiculo> findEstadoById(Long id);
+
+    // Actualización en una sola sentencia, condicionada a que nadie haya cambiado el vehículo desde la versión leída
+    @Transactional
+    @Modifying
+    @Query("""
+            update Vehiculo v set v.marca = :#{#datos.marca}, v.modelo = :#{#datos.modelo},
+                v.anio = :#{#datos.anio}, v.color = :#{#datos.color}, v.placa = :#{#datos.placa},
+                v.precio = :#{#datos.precio}, v.version = v.version + 1
+            where v.id = :id and v.version = :version""")
+    int actualizarSiVersion(Long id, Long version, Vehiculo datos);
+
+    @Query("select v.marca as marca, count(v) as total from Vehiculo v group by v.marca")
+    List<TotalPorMarca> contarPorMarca();
+
+    interface EstadoVehiculo {
+        String getPlaca();
+
+        String getMarca();
+
+        Long getVersion();
+    }
+
+    interface TotalPorMarca {
+        String getMarca();
+
+        long getTotal();
+    }
+
+    // Paginación keyset: siempre se recorre el índice de la clave primaria a partir del último ID entregado
+    List<Vehiculo> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<Vehiculo> findByMarcaAndIdGreaterThanOrderByIdAsc(String marca, Long id, Limit limit);
+
+    // Recorrido completo con cursor JDBC para exportaciones; debe consumirse dentro de una transacción
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select v from Vehiculo v order by v.id")
+    Stream<Vehiculo> streamTodos();
 }
@@ -0,0 +1,164 @@
+package com.example.vehiculosapi.resiliencia;
+
+import com.example.vehiculosapi.config.FabricaHilos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lecturas con petición de cobertura (hedging): si la lectura no ha terminado cuando pasa el
+ * percentil configurado de su latencia (p95 por defecto), se lanza una segunda idéntica y se
+ * devuelve la primera que termine bien. Así una lectura atascada no arrastra la cola de latencia.
+ * Desactivado por defecto ({@code vehiculos.cobertura.activo}); sin él la lectura se ejecuta tal cual.
+ */
+@Component
+public class LectorConCobertura {
+
+    private static final long REFRESCO_RETARDO_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean activo;
+    private final long retardoMinimoNanos;
+    private final Timer latencia;
+    private final Counter lanzadas;
+    private final Counter ganadas;
+    private final ThreadPoolExecutor ejecutor;
+
+    private volatile long retardoNanos;
+    private volatile long siguienteRefresco;
+
+    public LectorConCobertura(@Value("${vehiculos.cobertura.activo:false}") boolean activo,
+                              @Value("${vehiculos.cobertura.percentil:0.95}") double percentil,
+                              @Value("${vehiculos.cobertura.retardo-minimo:5ms}") Duration retardoMinimo,
+                              @Value("${vehiculos.cobertura.hilos:16}") int hilos,
+                              MeterRegistry meterRegistry,
+                              FabricaHilos fabricaHilos) {
+        this.activo = activo;
+        this.retardoMinimoNanos = retardoMinimo.toNanos();
+        this.retardoNanos = retardoMinimoNanos;
+        this.latencia = Timer.builder("vehiculos.cobertura.latencia")
+                .description("Latencia de las lecturas que admiten petición de cobertura")
+                .publishPercentiles(percentil)
+                .register(meterRegistry);
+        this.lanzadas = Counter.builder("vehiculos.cobertura.peticiones")
+                .description("Peticiones de cobertura lanzadas")
+                .tag("resultado", "lanzada")
+                .register(meterRegistry);
+        this.ganadas = Counter.builder("vehiculos.cobertura.peticiones")
+                .description("Peticiones de cobertura lanzadas")
+                .tag("resultado", "ganada")
+                .register(meterRegistry);
+        // Sin cola: si todos los hilos están ocupados la lectura no se cubre, en lugar de esperar turno
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                fabricaHilos.hilosNumerados("lectura-cobertura"));
+        this.ejecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public <T> T leer(Supplier<T> lectura) {
+        if (!activo) {
+            return lectura.get();
+        }
+        long inicio = System.nanoTime();
+        CompletableFuture<T> primaria;
+        try {
+            primaria = CompletableFuture.supplyAsync(lectura, ejecutor);
+        } catch (RejectedExecutionException e) {
+            return registrar(inicio, lectura.get());
+        }
+        try {
+            return registrar(inicio, primaria.get(retardo(inicio), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            return registrar(inicio, cubrir(primaria, lectura));
+        } catch (ExecutionException e) {
+            throw causa(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lectura interrumpida", e);
+        }
+    }
+
+    private <T> T cubrir(CompletableFuture<T> primaria, Supplier<T> lectura) {
+        CompletableFuture<T> cobertura;
+        try {
+            cobertura = CompletableFuture.supplyAsync(lectura, ejecutor);
+        } catch (RejectedExecutionException e) {
+            return primaria.join();
+        }
+        lanzadas.increment();
+        // Gana la primera que termine bien; sólo se falla si fallan las dos
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        AtomicInteger fallos = new AtomicInteger();
+        primaria.whenComplete((valor, error) -> completar(resultado, valor, error, fallos));
+        cobertura.whenComplete((valor, error) -> {
+            if (error == null && !resultado.isDone()) {
+                ganadas.increment();
+            }
+            completar(resultado, valor, error, fallos);
+        });
+        try {
+            return resultado.get();
+        } catch (ExecutionException e) {
+            throw causa(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lectura interrumpida", e);
+        }
+    }
+
+    private static <T> void completar(CompletableFuture<T> resultado, T valor, Throwable error, AtomicInteger fallos) {
+        if (error == null) {
+            resultado.complete(valor);
+        } else if (fallos.incrementAndGet() == 2) {
+            resultado.completeExceptionally(error);
+        }
+    }
+
+    private <T> T registrar(long inicio, T valor) {
+        latencia.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return valor;
+    }
+
+    // El percentil se recalcula como mucho una vez por segundo: tomar una instantánea del histograma no es gratis
+    private long retardo(long ahora) {
+        if (ahora - siguienteRefresco >= 0) {
+            siguienteRefresco = ahora + REFRESCO_RETARDO_NANOS;
+            ValueAtPercentile[] percentiles = latencia.takeSnapshot().percentileValues();
+            if (percentiles.length > 0) {
+                retardoNanos = Math.max(retardoMinimoNanos, (long) percentiles[0].value(TimeUnit.NANOSECONDS));
+            }
+        }
+        return retardoNanos;
+    }
+
+    private static RuntimeException causa(ExecutionException e) {
+        Throwable causa = e.getCause() instanceof CompletionException
+                ? e.getCause().getCause() : e.getCause();
+        if (causa instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (causa instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(causa);
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.vehiculosapi.resiliencia;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Presupuesto global de reintentos: cada llamada aporta {@code porcentaje}/100 de reintento y cada
+ * reintento consume uno entero, así que los reintentos nunca superan ese porcentaje del tráfico real
+ * (más un saldo acumulado de como mucho {@code maximoAcumulado}). Cuando el backend falla en masa
+ * el saldo se agota y los fallos se devuelven sin multiplicar la carga.
+ * <p>
+ * Resilience4j evalúa el predicado de reintento antes de mirar cuántos intentos quedan, así que
+ * quien ejecuta la llamada deja en el hilo sus {@link Intentos} y el predicado no consume saldo
+ * por el fallo del último intento, que nunca va seguido de un reintento.
+ */
+public class PresupuestoReintentos {
+
+    // El saldo se lleva en milésimas de reintento para poder aportar fracciones con un AtomicLong
+    private static final long ESCALA = 1000;
+
+    private static final ThreadLocal<Intentos> INTENTOS_EN_CURSO = new ThreadLocal<>();
+
+    private final long aportePorLlamada;
+    private final long capacidad;
+    private final AtomicLong saldo;
+    private final Counter denegados;
+
+    public PresupuestoReintentos(double porcentaje, int saldoInicial, int maximoAcumulado, MeterRegistry meterRegistry) {
+        this.aportePorLlamada = Math.round(porcentaje * ESCALA / 100);
+        this.capacidad = maximoAcumulado * ESCALA;
+        this.saldo = new AtomicLong(Math.min(saldoInicial, maximoAcumulado) * ESCALA);
+        Gauge.builder("vehiculos.reintentos.disponibles", this, PresupuestoReintentos::getDisponibles)
+                .description("Reintentos que permite el presupuesto en este momento")
+                .register(meterRegistry);
+        this.denegados = Counter.builder("vehiculos.reintentos.denegados")
+                .description("Reintentos descartados por haber agotado el presupuesto")
+                .register(meterRegistry);
+    }
+
+    public void registrarLlamada() {
+        long actual;
+        do {
+            actual = saldo.get();
+            if (actual >= capacidad) {
+                return;
+            }
+        } while (!saldo.compareAndSet(actual, Math.min(capacidad, actual + aportePorLlamada)));
+    }
+
+    /**
+     * Deja los intentos de una llamada en el hilo actual.
+     * @return los que había antes, para restaurarlos al terminar
+     */
+    public static Intentos fijarIntentos(Intentos intentos) {
+        Intentos anteriores = INTENTOS_EN_CURSO.get();
+        if (intentos == null) {
+            INTENTOS_EN_CURSO.remove();
+        } else {
+            INTENTOS_EN_CURSO.set(intentos);
+        }
+        return anteriores;
+    }
+
+    /**
+     * Anota un fallo de la llamada en curso y decide si se puede reintentar. El fallo del último
+     * intento no consume saldo: se responde {@code true} para que resilience4j lo cuente como un
+     * fallo tras reintentos, que es lo que es. Sin intentos en el hilo cada fallo consume.
+     */
+    public boolean reintentar(int maximoIntentos) {
+        Intentos intentos = INTENTOS_EN_CURSO.get();
+        if (intentos != null && ++intentos.fallos >= maximoIntentos) {
+            return true;
+        }
+        return intentarReintento();
+    }
+
+    /**
+     * @return {@code true} si queda saldo y se ha consumido un reintento
+     */
+    public boolean intentarReintento() {
+        long actual;
+        do {
+            actual = saldo.get();
+            if (actual < ESCALA) {
+                denegados.increment();
+                return false;
+            }
+        } while (!saldo.compareAndSet(actual, actual - ESCALA));
+        return true;
+    }
+
+    public double getDisponibles() {
+        return (double) saldo.get() / ESCALA;
+    }
+
+    /**
+     * Fallos de una llamada con reintentos, entre todos sus intentos.
+     */
+    public static final class Intentos {
+        private int fallos;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.vehiculosapi.resiliencia;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.function.Supplier;
+
+/**
+ * Aporta al {@link PresupuestoReintentos} una vez por llamada a un método con {@code @Retry} y deja
+ * en el hilo los intentos de la llamada mientras dura. Va por fuera del aspecto de reintento para
+ * contar llamadas y no intentos.
+ */
+public class PresupuestoReintentosInterceptor implements MethodInterceptor {
+
+    // El advisor se crea antes que el registro de métricas; el presupuesto se resuelve en la primera llamada
+    private final Supplier<PresupuestoReintentos> proveedor;
+    private PresupuestoReintentos presupuesto;
+
+    public PresupuestoReintentosInterceptor(Supplier<PresupuestoReintentos> proveedor) {
+        this.proveedor = proveedor;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        PresupuestoReintentos presupuesto = this.presupuesto;
+        if (presupuesto == null) {
+            presupuesto = this.presupuesto = proveedor.get();
+        }
+        presupuesto.registrarLlamada();
+        PresupuestoReintentos.Intentos anteriores = PresupuestoReintentos.fijarIntentos(new PresupuestoReintentos.Intentos());
+        try {
+            return invocation.proceed();
+        } finally {
+            PresupuestoReintentos.fijarIntentos(anteriores);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.vehiculosapi.service;
+
+import com.example.vehiculosapi.repository.VehiculoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tamaño de la flota publicado en el gauge {@code vehiculos.activos}. Se inicializa una única vez
+ * con un COUNT al arrancar y después lo mantienen exacto las altas y bajas del servicio, sin volver
+ * a recorrer la tabla. Con {@code vehiculos.metricas.por-marca=true} publica además un gauge por marca.
+ * Dentro de una transacción los cambios se aplican sólo cuando ésta se confirma.
+ */
+@Component
+public class ContadorFlota {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadorFlota.class);
+
+    private final LongAdder total = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> porMarca = new ConcurrentHashMap<>();
+    private final VehiculoRepository vehiculoRepository;
+    private final MeterRegistry meterRegistry;
+    private final boolean desglosePorMarca;
+
+    public ContadorFlota(VehiculoRepository vehiculoRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${vehiculos.metricas.por-marca:false}") boolean desglosePorMarca) {
+        this.vehiculoRepository = vehiculoRepository;
+        this.meterRegistry = meterRegistry;
+        this.desglosePorMarca = desglosePorMarca;
+        Gauge.builder("vehiculos.activos", total, LongAdder::sum)
+                .description("Vehículos registrados")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void cargar() {
+        total.add(vehiculoRepository.count());
+        if (desglosePorMarca) {
+            for (VehiculoRepository.TotalPorMarca fila : vehiculoRepository.contarPorMarca()) {
+                contador(fila.getMarca()).add(fila.getTotal());
+            }
+        }
+        logger.info("Contador de flota inicializado con {} vehículos", total.sum());
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public void alta(String marca) {
+        aplicar(marca, 1);
+    }
+
+    public void altas(List<String> marcas) {
+        if (marcas.isEmpty()) {
+            return;
+        }
+        alDeConfirmar(() -> {
+            total.add(marcas.size());
+            if (desglosePorMarca) {
+                for (String marca : marcas) {
+                    contador(marca).increment();
+                }
+            }
+        });
+    }
+
+    public void baja(String marca) {
+        aplicar(marca, -1);
+    }
+
+    public void cambioDeMarca(String anterior, String nueva) {
+        if (!desglosePorMarca || anterior == null || anterior.equals(nueva)) {
+            return;
+        }
+        alDeConfirmar(() -> {
+            contador(anterior).decrement();
+            contador(nueva).increment();
+        });
+    }
+
+    private void aplicar(String marca, int delta) {
+        alDeConfirmar(() -> {
+            total.add(delta);
+            if (desglosePorMarca && marca != null) {
+                contador(marca).add(delta);
+            }
+        });
+    }
+
+    private static void alDeConfirmar(Runnable cambio) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cambio.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cambio.run();
+            }
+        });
+    }
+
+    private LongAdder contador(String marca) {
+        LongAdder contador = porMarca.get(marca);
+        if (contador != null) {
+            return contador;
+        }
+        return porMarca.computeIfAbsent(marca, m -> {
+            LongAdder nuevo = new LongAdder();
+            Gauge.builder("vehiculos.activos.marca", nuevo, LongAdder::sum)
+                    .description("Vehículos registrados por marca")
+                    .tag("marca", m)
+                    .register(meterRegistry);
+            return nuevo;
+        });
+    }
+}
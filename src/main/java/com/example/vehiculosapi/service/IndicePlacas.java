@@ -0,0 +1,82 @@
+package com.example.vehiculosapi.service;
+
+import com.example.vehiculosapi.repository.VehiculoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de las placas registradas. Permite rechazar duplicados sin consultar
+ * la base de datos; la restricción única sobre {@code placa} sigue siendo la última defensa.
+ * Las placas se reservan antes de escribir y se liberan si la escritura no llega a persistirse.
+ * Una placa nula no se indexa: no puede chocar con otra y la validación del vehículo decide si falta.
+ */
+@Component
+public class IndicePlacas {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndicePlacas.class);
+
+    private final Set<String> placas = ConcurrentHashMap.newKeySet();
+    private final VehiculoRepository vehiculoRepository;
+
+    public IndicePlacas(VehiculoRepository vehiculoRepository, MeterRegistry meterRegistry) {
+        this.vehiculoRepository = vehiculoRepository;
+        Gauge.builder("vehiculos.placas.indexadas", placas, Set::size)
+                .description("Placas cargadas en el índice en memoria")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void cargar() {
+        List<String> existentes = vehiculoRepository.findTodasLasPlacas();
+        existentes.stream().filter(Objects::nonNull).forEach(placas::add);
+        logger.info("Índice de placas cargado con {} placas", existentes.size());
+    }
+
+    public boolean contiene(String placa) {
+        return placa != null && placas.contains(placa);
+    }
+
+    /**
+     * Reserva la placa de forma atómica.
+     * @return {@code false} si la placa ya estaba registrada o reservada; {@code true} si es nula
+     */
+    public boolean reservar(String placa) {
+        return placa == null || placas.add(placa);
+    }
+
+    public void liberar(String placa) {
+        if (placa != null) {
+            placas.remove(placa);
+        }
+    }
+
+    /**
+     * Libera las placas indicadas si la transacción en curso termina revertida.
+     * Fuera de una transacción no hace nada.
+     */
+    public void liberarSiSeRevierte(Collection<String> reservadas) {
+        if (reservadas.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reservadas.forEach(IndicePlacas.this::liberar);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.vehiculosapi.service;
+
+import com.example.vehiculosapi.dto.Cursor;
+import com.example.vehiculosapi.dto.Pagina;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.repository.VehiculoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Copia en memoria del catálogo completo, ordenada por ID y con un índice por marca, que sirve
+ * de fallback cuando la base de datos no responde. Se carga una vez al arrancar y después la
+ * mantienen al día las escrituras del propio servicio; dentro de una transacción los cambios se
+ * aplican sólo cuando ésta se confirma. Cada vehículo guardado es una copia que nunca se modifica:
+ * un cambio sustituye la entrada entera, de modo que las lecturas no necesitan bloqueo.
+ * Los cambios de transacciones distintas pueden llegar en otro orden que sus commits: una copia
+ * sólo sustituye a la guardada si su versión es posterior, y un vehículo borrado no vuelve.
+ * Con {@code vehiculos.instantanea.lecturas=true} sirve también los listados en el camino normal.
+ */
+@Component
+public class InstantaneaFlota {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstantaneaFlota.class);
+
+    private final ConcurrentSkipListMap<Long, Vehiculo> porId = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, ConcurrentSkipListMap<Long, Vehiculo>> porMarca = new ConcurrentHashMap<>();
+    // IDs borrados desde la carga, protegidos por this. Los IDs no se reutilizan: un cambio que llega
+    // después de la baja es de una escritura anterior a ella. Ocupa un Long por baja hasta reiniciar
+    private final Set<Long> eliminados = new HashSet<>();
+    private final VehiculoRepository vehiculoRepository;
+    private final TransactionTemplate transaccionLectura;
+    private final boolean activo;
+    private final boolean lecturas;
+
+    private volatile Instant actualizada = Instant.EPOCH;
+
+    public InstantaneaFlota(VehiculoRepository vehiculoRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${vehiculos.instantanea.activo:true}") boolean activo,
+                            @Value("${vehiculos.instantanea.lecturas:false}") boolean lecturas) {
+        this.vehiculoRepository = vehiculoRepository;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.activo = activo;
+        this.lecturas = activo && lecturas;
+        Gauge.builder("vehiculos.instantanea.tamano", porId, Map::size)
+                .description("Vehículos en la instantánea en memoria del catálogo")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void cargar() {
+        if (!activo) {
+            return;
+        }
+        transaccionLectura.executeWithoutResult(estado -> {
+            try (Stream<Vehiculo> vehiculos = vehiculoRepository.streamTodos()) {
+                Iterator<Vehiculo> iterador = vehiculos.iterator();
+                while (iterador.hasNext()) {
+                    Vehiculo vehiculo = iterador.next();
+                    poner(copia(vehiculo));
+                    vehiculoRepository.desacoplar(vehiculo);
+                }
+            }
+        });
+        actualizada = Instant.now();
+        logger.info("Instantánea del catálogo cargada con {} vehículos", porId.size());
+    }
+
+    /**
+     * Indica si los listados deben servirse desde la instantánea en lugar de la base de datos.
+     */
+    public boolean sirveLecturas() {
+        return lecturas;
+    }
+
+    /**
+     * Momento del último cambio recogido en la instantánea. Escrituras de otras instancias
+     * o hechas directamente en la base de datos no se reflejan.
+     */
+    public Instant actualizada() {
+        return actualizada;
+    }
+
+    public void guardar(Vehiculo vehiculo) {
+        if (!activo) {
+            return;
+        }
+        Vehiculo copia = copia(vehiculo);
+        alDeConfirmar(() -> aplicar(List.of(copia), null));
+    }
+
+    public void guardarTodos(List<Vehiculo> vehiculos) {
+        if (!activo || vehiculos.isEmpty()) {
+            return;
+        }
+        List<Vehiculo> copias = new ArrayList<>(vehiculos.size());
+        for (Vehiculo vehiculo : vehiculos) {
+            copias.add(copia(vehiculo));
+        }
+        alDeConfirmar(() -> aplicar(copias, null));
+    }
+
+    public void eliminar(Long id) {
+        if (!activo) {
+            return;
+        }
+        alDeConfirmar(() -> aplicar(List.of(), id));
+    }
+
+    /**
+     * Copia del vehículo marcada con el momento de la instantánea, o {@code null} si no está.
+     */
+    public Vehiculo obtener(Long id) {
+        Vehiculo vehiculo = activo ? porId.get(id) : null;
+        if (vehiculo == null) {
+            return null;
+        }
+        Vehiculo resultado = copia(vehiculo);
+        resultado.setInstantanea(actualizada);
+        return resultado;
+    }
+
+    /**
+     * Misma paginación por cursor que {@link VehiculoService#obtenerTodos}, recorriendo el mapa
+     * ordenado a partir del último ID entregado. Los elementos son las copias de la instantánea
+     * y no deben modificarse.
+     */
+    public Pagina<Vehiculo> pagina(String marca, Long despuesDeId, int limite) {
+        if (!activo) {
+            return Pagina.vacia();
+        }
+        Instant momento = actualizada;
+        NavigableMap<Long, Vehiculo> origen = marca != null ? porMarca.get(marca) : porId;
+        if (origen == null) {
+            return new Pagina<>(List.of(), null, momento);
+        }
+        List<Vehiculo> elementos = new ArrayList<>(limite);
+        Iterator<Vehiculo> iterador = origen.tailMap(despuesDeId != null ? despuesDeId : 0L, false)
+                .values().iterator();
+        while (iterador.hasNext() && elementos.size() < limite) {
+            elementos.add(iterador.next());
+        }
+        String siguiente = iterador.hasNext() ? Cursor.codificar(elementos.get(limite - 1).getId()) : null;
+        return new Pagina<>(elementos, siguiente, momento);
+    }
+
+    // Los escritores se serializan para que el mapa por ID y el índice por marca no diverjan
+    private synchronized void aplicar(List<Vehiculo> guardados, Long eliminado) {
+        for (Vehiculo vehiculo : guardados) {
+            if (esPosterior(vehiculo)) {
+                quitar(vehiculo.getId());
+                poner(vehiculo);
+            }
+        }
+        if (eliminado != null) {
+            eliminados.add(eliminado);
+            quitar(eliminado);
+        }
+        actualizada = Instant.now();
+    }
+
+    // Sin versión no se puede ordenar: se toma como la más reciente
+    private boolean esPosterior(Vehiculo vehiculo) {
+        if (eliminados.contains(vehiculo.getId())) {
+            return false;
+        }
+        Vehiculo actual = porId.get(vehiculo.getId());
+        return actual == null || actual.getVersion() == null || vehiculo.getVersion() == null
+                || vehiculo.getVersion() > actual.getVersion();
+    }
+
+    private void poner(Vehiculo vehiculo) {
+        porId.put(vehiculo.getId(), vehiculo);
+        porMarca.computeIfAbsent(vehiculo.getMarca(), m -> new ConcurrentSkipListMap<>())
+                .put(vehiculo.getId(), vehiculo);
+    }
+
+    private void quitar(Long id) {
+        Vehiculo anterior = porId.remove(id);
+        if (anterior != null) {
+            ConcurrentSkipListMap<Long, Vehiculo> marca = porMarca.get(anterior.getMarca());
+            if (marca != null) {
+                marca.remove(id);
+            }
+        }
+    }
+
+    private static void alDeConfirmar(Runnable cambio) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cambio.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cambio.run();
+            }
+        });
+    }
+
+    private static Vehiculo copia(Vehiculo origen) {
+        Vehiculo copia = new Vehiculo();
+        copia.setId(origen.getId());
+        copia.setMarca(origen.getMarca());
+        copia.setModelo(origen.getModelo());
+        copia.setAnio(origen.getAnio());
+        copia.setColor(origen.getColor());
+        copia.setPlaca(origen.getPlaca());
+        copia.setPrecio(origen.getPrecio());
+        copia.setVersion(origen.getVersion());
+        return copia;
+    }
+}
@@ -1,150 +1,676 @@
 package com.example.vehiculosapi.service;
 
+import com.example.vehiculosapi.cambios.Cambio;
+import com.example.vehiculosapi.cambios.CanalCambios;
+import com.example.vehiculosapi.chaos.InyectorFallos;
+import com.example.vehiculosapi.concurrencia.Compartimento;
+import com.example.vehiculosapi.diferido.DiarioEscrituras;
+import com.example.vehiculosapi.diferido.EscrituraDiferidaException;
+import com.example.vehiculosapi.diferido.EscrituraPendiente;
+import com.example.vehiculosapi.diferido.EscriturasPendientesException;
+import com.example.vehiculosapi.dto.CamposVehiculo;
+import com.example.vehiculosapi.dto.Cursor;
+import com.example.vehiculosapi.dto.FiltroVehiculos;
+import com.example.vehiculosapi.dto.OrdenBusqueda;
+import com.example.vehiculosapi.dto.Pagina;
+import com.example.vehiculosapi.dto.ResultadoLote;
+import com.example.vehiculosapi.metrics.Medido;
+import com.example.vehiculosapi.metrics.Operacion;
 import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.registro.RegistroLimitado;
+import com.example.vehiculosapi.repository.VehiculoEspecificaciones;
 import com.example.vehiculosapi.repository.VehiculoRepository;
+import com.example.vehiculosapi.resiliencia.LectorConCobertura;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.example.vehiculosapi.config.MetricsConfig;
-import io.micrometer.core.instrument.MeterRegistry;
+import com.example.vehiculosapi.config.CacheConfig;
+import com.example.vehiculosapi.config.ReintentosConfig;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Collections;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class VehiculoService {
 
     private static final Logger logger = LoggerFactory.getLogger(VehiculoService.class);
     private static final String VEHICULO_SERVICE = "vehiculoService";
+    private static final String BULKHEAD_LECTURAS = "vehiculoLecturas";
+    private static final String BULKHEAD_ESCRITURAS = "vehiculoEscrituras";
+    // crear y crearLote no se reintentan: no son idempotentes
+    private static final String REINTENTO_LECTURAS = ReintentosConfig.REINTENTO_LECTURAS;
+    private static final String REINTENTO_ESCRITURAS = ReintentosConfig.REINTENTO_ESCRITURAS_IDEMPOTENTES;
+    private static final int MAX_INTENTOS_ACTUALIZAR = 3;
 
     private final VehiculoRepository vehiculoRepository;
-    private final MetricsConfig metricsConfig;
-    private final MeterRegistry meterRegistry;
+    private final CacheManager cacheManager;
+    private final IndicePlacas indicePlacas;
+    private final ContadorFlota contadorFlota;
+    private final LectorConCobertura lectorConCobertura;
+    private final InstantaneaFlota instantaneaFlota;
+    private final DiarioEscrituras diarioEscrituras;
+    private final CanalCambios canalCambios;
+    private final InyectorFallos inyectorFallos;
+    private final RegistroLimitado registro;
+    private final TransactionTemplate lectura;
 
     @Autowired
     public VehiculoService(VehiculoRepository vehiculoRepository, 
-                          MetricsConfig metricsConfig,
-                          MeterRegistry meterRegistry) {
+                          CacheManager cacheManager,
+                          IndicePlacas indicePlacas,
+                          ContadorFlota contadorFlota,
+                          LectorConCobertura lectorConCobertura,
+                          InstantaneaFlota instantaneaFlota,
+                          DiarioEscrituras diarioEscrituras,
+                          CanalCambios canalCambios,
+                          InyectorFallos inyectorFallos,
+                          RegistroLimitado registro,
+                          PlatformTransactionManager transactionManager) {
         this.vehiculoRepository = vehiculoRepository;
-        this.metricsConfig = metricsConfig;
-        this.meterRegistry = meterRegistry;
+        this.cacheManager = cacheManager;
+        this.indicePlacas = indicePlacas;
+        this.contadorFlota = contadorFlota;
+        this.lectorConCobertura = lectorConCobertura;
+        this.instantaneaFlota = instantaneaFlota;
+        this.diarioEscrituras = diarioEscrituras;
+        this.canalCambios = canalCambios;
+        this.inyectorFallos = inyectorFallos;
+        this.registro = registro;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
     }
-    
-    // Simulador de fallos para pruebas
-    private boolean simularFallo = false;
 
+    @Compartimento(BULKHEAD_LECTURAS)
     @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "obtenerTodosFallback")
-    @Retry(name = VEHICULO_SERVICE, fallbackMethod = "obtenerTodosFallback")
-    public List<Vehiculo> obtenerTodos() {
-        return metricsConfig.recordOperationTime(() -> {
-            simularErrorAleatorio();
-            meterRegistry.counter("vehiculo.operacion", "tipo", "consulta").increment();
-            return vehiculoRepository.findAll();
-        }, "obtenerTodos");
+    @Retry(name = REINTENTO_LECTURAS, fallbackMethod = "obtenerTodosFallback")
+    @Medido(Operacion.OBTENER_TODOS)
+    public Pagina<Vehiculo> obtenerTodos(String marca, Long despuesDeId, int limite) {
+        return pagina(marca, despuesDeId, limite, null);
     }
 
+    /**
+     * Como {@link #obtenerTodos(String, Long, int)}, pero seleccionando sólo las columnas de
+     * {@code campos}: los vehículos de la página no son entidades y el resto de propiedades es nulo.
+     */
+    @Compartimento(BULKHEAD_LECTURAS)
+    @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "obtenerTodosFallback")
+    @Retry(name = REINTENTO_LECTURAS, fallbackMethod = "obtenerTodosFallback")
+    @Medido(Operacion.OBTENER_TODOS)
+    public Pagina<Vehiculo> obtenerTodos(String marca, Long despuesDeId, int limite, CamposVehiculo campos) {
+        return pagina(marca, despuesDeId, limite, campos);
+    }
+
+    /**
+     * Búsqueda por criterios combinables ordenada por {@code orden} y después por ID, paginada
+     * por keyset a partir de {@code despuesDe}. Cada página es una única consulta con LIMIT.
+     */
+    @Compartimento(BULKHEAD_LECTURAS)
+    @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "buscarFallback")
+    @Retry(name = REINTENTO_LECTURAS, fallbackMethod = "buscarFallback")
+    @Medido(Operacion.BUSCAR)
+    public Pagina<Vehiculo> buscar(FiltroVehiculos filtro, OrdenBusqueda orden, boolean descendente,
+                                   Cursor.Posicion despuesDe, int limite) {
+        return paginaBusqueda(filtro, orden, descendente, despuesDe, limite, null);
+    }
+
+    /**
+     * Como {@link #buscar(FiltroVehiculos, OrdenBusqueda, boolean, Cursor.Posicion, int)}, pero
+     * seleccionando sólo las columnas de {@code campos} (y la de orden, que necesita el cursor).
+     */
+    @Compartimento(BULKHEAD_LECTURAS)
+    @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "buscarFallback")
+    @Retry(name = REINTENTO_LECTURAS, fallbackMethod = "buscarFallback")
+    @Medido(Operacion.BUSCAR)
+    public Pagina<Vehiculo> buscar(FiltroVehiculos filtro, OrdenBusqueda orden, boolean descendente,
+                                   Cursor.Posicion despuesDe, int limite, CamposVehiculo campos) {
+        return paginaBusqueda(filtro, orden, descendente, despuesDe, limite, campos);
+    }
+
+    @Compartimento(BULKHEAD_LECTURAS)
     @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "obtenerPorIdFallback")
-    @Retry(name = VEHICULO_SERVICE, fallbackMethod = "obtenerPorIdFallback")
+    @Retry(name = REINTENTO_LECTURAS, fallbackMethod = "obtenerPorIdFallback")
+    @Cacheable(cacheNames = CacheConfig.CACHE_VEHICULOS, key = "#id", unless = "#result.id == null")
+    @Medido(Operacion.OBTENER_POR_ID)
     public Vehiculo obtenerPorId(Long id) {
-        return metricsConfig.recordOperationTime(() -> {
-            simularErrorAleatorio();
-            meterRegistry.counter("vehiculo.operacion", "tipo", "consulta_por_id").increment();
-            return vehiculoRepository.findById(id)
-                    .orElseThrow(() -> new EntityNotFoundException("Vehículo no encontrado con ID: " + id));
-        }, "obtenerPorId");
+        inyectorFallos.inyectar(Operacion.OBTENER_POR_ID);
+        return lectorConCobertura.leer(() -> enLectura(() -> vehiculoRepository.findById(id)))
+                .orElseThrow(() -> new EntityNotFoundException("Vehículo no encontrado con ID: " + id));
+    }
+
+    /**
+     * Sólo las columnas de {@code campos} más la versión (el ETag). Si el vehículo completo está
+     * en caché se devuelve ése; el resultado parcial no se guarda en la caché.
+     */
+    @Compartimento(BULKHEAD_LECTURAS)
+    @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "obtenerPorIdFallback")
+    @Retry(name = REINTENTO_LECTURAS, fallbackMethod = "obtenerPorIdFallback")
+    @Medido(Operacion.OBTENER_POR_ID)
+    public Vehiculo obtenerPorId(Long id, CamposVehiculo campos) {
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_VEHICULOS);
+        Vehiculo cacheado = cache != null ? cache.get(id, Vehiculo.class) : null;
+        if (cacheado != null) {
+            return cacheado;
+        }
+        inyectorFallos.inyectar(Operacion.OBTENER_POR_ID);
+        CamposVehiculo columnas = campos.con("version");
+        List<Vehiculo> vehiculos = lectorConCobertura.leer(() -> enLectura(() -> vehiculoRepository.findParciales(
+                VehiculoEspecificaciones.conId(id), Sort.unsorted(), columnas, 1)));
+        if (vehiculos.isEmpty()) {
+            throw new EntityNotFoundException("Vehículo no encontrado con ID: " + id);
+        }
+        return vehiculos.get(0);
     }
 
+    @Compartimento(BULKHEAD_ESCRITURAS)
     @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "crearFallback")
-    @Retry(name = VEHICULO_SERVICE, fallbackMethod = "crearFallback")
+    @CachePut(cacheNames = CacheConfig.CACHE_VEHICULOS, key = "#result.id")
+    @Medido(Operacion.CREAR)
     public Vehiculo crear(Vehiculo vehiculo) {
-        return metricsConfig.recordOperationTime(() -> {
-            simularErrorAleatorio();
-            meterRegistry.counter("vehiculo.operacion", "tipo", "crear").increment();
-            if (vehiculoRepository.existsByPlaca(vehiculo.getPlaca())) {
-                throw new IllegalArgumentException("Ya existe un vehículo con la placa: " + vehiculo.getPlaca());
+        inyectorFallos.inyectar(Operacion.CREAR);
+        // Antes de reservar la placa o anotarla en el diario: el drenado no puede rechazarla ya ante el cliente
+        exigirValido(vehiculo);
+        if (!indicePlacas.reservar(vehiculo.getPlaca())) {
+            throw new IllegalArgumentException("Ya existe un vehículo con la placa: " + vehiculo.getPlaca());
+        }
+        if (diarioEscrituras.hayPendientes()) {
+            throw diferirAlta(vehiculo, null);
+        }
+        // Sin versión Spring Data lo trata como nuevo (persist) aunque el cliente envíe una; el ID lo
+        // asigna el almacén: uno enviado por el cliente no debe poder pisar a otro vehículo
+        vehiculo.setId(null);
+        vehiculo.setVersion(null);
+        Vehiculo creado = escribirConPlacaReservada(vehiculo.getPlaca(), () -> vehiculoRepository.save(vehiculo));
+        contadorFlota.alta(creado.getMarca());
+        instantaneaFlota.guardar(creado);
+        canalCambios.publicar(Cambio.Tipo.CREADO, creado);
+        return creado;
+    }
+
+    /**
+     * Alta masiva de vehículos. Las placas se comprueban con una única consulta por conjunto
+     * y los INSERT/UPDATE se envían en lotes JDBC al hacer flush de la transacción.
+     * Con {@code upsert} las placas ya registradas se actualizan en lugar de rechazarse; mientras
+     * el diario tenga escrituras pendientes eso no se admite, porque el lote no se puede diferir.
+     */
+    @Compartimento(BULKHEAD_ESCRITURAS)
+    @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "crearLoteFallback")
+    @Transactional
+    @Medido(Operacion.CREAR_LOTE)
+    public ResultadoLote crearLote(List<Vehiculo> vehiculos, boolean upsert) {
+        inyectorFallos.inyectar(Operacion.CREAR_LOTE);
+        if (upsert && diarioEscrituras.hayPendientes()) {
+            throw new EscriturasPendientesException("un lote con upsert");
+        }
+
+        // Sólo hace falta cargar las entidades de las placas ya registradas cuando se van a actualizar
+        Map<String, Vehiculo> existentes = new HashMap<>();
+        if (upsert) {
+            Set<String> registradas = new HashSet<>();
+            for (Vehiculo vehiculo : vehiculos) {
+                if (vehiculo.getPlaca() != null && indicePlacas.contiene(vehiculo.getPlaca())) {
+                    registradas.add(vehiculo.getPlaca());
+                }
+            }
+            if (!registradas.isEmpty()) {
+                for (Vehiculo existente : vehiculoRepository.findByPlacaIn(registradas)) {
+                    existentes.put(existente.getPlaca(), existente);
+                }
+            }
+        }
+
+        List<Vehiculo> procesados = new ArrayList<>(vehiculos.size());
+        List<ResultadoLote.Estado> estados = new ArrayList<>(vehiculos.size());
+        List<String> mensajes = new ArrayList<>(vehiculos.size());
+        List<Vehiculo> nuevos = new ArrayList<>();
+        List<Vehiculo> actualizados = new ArrayList<>();
+        List<String> marcasNuevas = new ArrayList<>();
+        List<String> reservadas = new ArrayList<>();
+        Set<String> vistas = new HashSet<>();
+        for (Vehiculo vehiculo : vehiculos) {
+            Vehiculo procesado = vehiculo;
+            ResultadoLote.Estado estado;
+            String mensaje = null;
+            if (!esValido(vehiculo)) {
+                estado = ResultadoLote.Estado.INVALIDO;
+                mensaje = "Faltan campos obligatorios";
+            } else if (!vistas.add(vehiculo.getPlaca())) {
+                estado = ResultadoLote.Estado.DUPLICADO;
+                mensaje = "Placa repetida dentro del lote: " + vehiculo.getPlaca();
+            } else if (existentes.containsKey(vehiculo.getPlaca())) {
+                // La entidad está gestionada: el UPDATE se agrupa en el flush
+                procesado = existentes.get(vehiculo.getPlaca());
+                contadorFlota.cambioDeMarca(procesado.getMarca(), vehiculo.getMarca());
+                copiarDatos(vehiculo, procesado);
+                actualizados.add(procesado);
+                estado = ResultadoLote.Estado.ACTUALIZADO;
+            } else if (!indicePlacas.reservar(vehiculo.getPlaca())) {
+                estado = ResultadoLote.Estado.DUPLICADO;
+                mensaje = "Ya existe un vehículo con la placa: " + vehiculo.getPlaca();
+            } else {
+                reservadas.add(vehiculo.getPlaca());
+                vehiculo.setId(null);
+                vehiculo.setVersion(null);
+                nuevos.add(vehiculo);
+                marcasNuevas.add(vehiculo.getMarca());
+                estado = ResultadoLote.Estado.CREADO;
+            }
+            procesados.add(procesado);
+            estados.add(estado);
+            mensajes.add(mensaje);
+        }
+
+        indicePlacas.liberarSiSeRevierte(reservadas);
+        vehiculoRepository.saveAll(nuevos);
+        // Con JPA ya están gestionadas y esto no hace nada; un almacén sin contexto de persistencia las necesita
+        vehiculoRepository.saveAll(actualizados);
+        vehiculoRepository.flush();
+        contadorFlota.altas(marcasNuevas);
+
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_VEHICULOS);
+        List<ResultadoLote.Item> items = new ArrayList<>(procesados.size());
+        List<Vehiculo> aplicados = new ArrayList<>(procesados.size());
+        for (int i = 0; i < procesados.size(); i++) {
+            ResultadoLote.Estado estado = estados.get(i);
+            if (estado == ResultadoLote.Estado.ACTUALIZADO && cache != null) {
+                cache.evict(procesados.get(i).getId());
             }
-            return vehiculoRepository.save(vehiculo);
-        }, "crear");
+            boolean aplicado = estado == ResultadoLote.Estado.CREADO || estado == ResultadoLote.Estado.ACTUALIZADO;
+            if (aplicado) {
+                aplicados.add(procesados.get(i));
+                canalCambios.publicar(estado == ResultadoLote.Estado.CREADO
+                        ? Cambio.Tipo.CREADO : Cambio.Tipo.ACTUALIZADO, procesados.get(i));
+            }
+            items.add(new ResultadoLote.Item(i, procesados.get(i).getPlaca(), estado,
+                    aplicado ? procesados.get(i).getId() : null, mensajes.get(i)));
+        }
+        // Tras el flush los creados ya tienen ID y los actualizados su nueva versión
+        instantaneaFlota.guardarTodos(aplicados);
+        return ResultadoLote.de(items);
     }
 
+    /**
+     * Actualiza el vehículo con un único UPDATE condicionado a la versión leída, sin cargar ni
+     * fusionar la entidad. Con {@code versionEsperada} (If-Match) falla si el vehículo ya cambió;
+     * sin ella, si otra escritura se cuela entre la lectura de la versión y el UPDATE, se vuelve a intentar.
+     * Con escrituras diferidas pendientes, la que no lleva If-Match se anota detrás de ellas y la que
+     * lo lleva se rechaza: su versión sólo se puede comprobar ahora.
+     */
+    @Compartimento(BULKHEAD_ESCRITURAS)
     @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "actualizarFallback")
-    @Retry(name = VEHICULO_SERVICE, fallbackMethod = "actualizarFallback")
-    public Vehiculo actualizar(Long id, Vehiculo vehiculoActualizado) {
-        return metricsConfig.recordOperationTime(() -> {
-            simularErrorAleatorio();
-            meterRegistry.counter("vehiculo.operacion", "tipo", "actualizar").increment();
-            return vehiculoRepository.findById(id)
-                    .map(vehiculo -> {
-                        if (!vehiculo.getPlaca().equals(vehiculoActualizado.getPlaca()) && 
-                            vehiculoRepository.existsByPlaca(vehiculoActualizado.getPlaca())) {
-                            throw new IllegalArgumentException("Ya existe un vehículo con la placa: " + vehiculoActualizado.getPlaca());
-                        }
-                        vehiculo.setMarca(vehiculoActualizado.getMarca());
-                        vehiculo.setModelo(vehiculoActualizado.getModelo());
-                        vehiculo.setAnio(vehiculoActualizado.getAnio());
-                        vehiculo.setColor(vehiculoActualizado.getColor());
-                        vehiculo.setPlaca(vehiculoActualizado.getPlaca());
-                        vehiculo.setPrecio(vehiculoActualizado.getPrecio());
-                        return vehiculoRepository.save(vehiculo);
-                    })
+    @Retry(name = REINTENTO_ESCRITURAS, fallbackMethod = "actualizarFallback")
+    @CachePut(cacheNames = CacheConfig.CACHE_VEHICULOS, key = "#id")
+    @Medido(Operacion.ACTUALIZAR)
+    public Vehiculo actualizar(Long id, Vehiculo vehiculoActualizado, Long versionEsperada) {
+        exigirValido(vehiculoActualizado);
+        if (diarioEscrituras.hayPendientes()) {
+            if (versionEsperada != null) {
+                throw new EscriturasPendientesException("una actualización con If-Match");
+            }
+            throw diferir(EscrituraPendiente.Tipo.ACTUALIZAR, id, vehiculoActualizado, null);
+        }
+        inyectorFallos.inyectar(Operacion.ACTUALIZAR);
+        for (int intento = 1; ; intento++) {
+            VehiculoRepository.EstadoVehiculo actual = vehiculoRepository.findEstadoById(id)
                     .orElseThrow(() -> new EntityNotFoundException("Vehículo no encontrado con ID: " + id));
-        }, "actualizar");
+            if (versionEsperada != null && !versionEsperada.equals(actual.getVersion())) {
+                throw new VersionConflictoException(id, versionEsperada, actual.getVersion());
+            }
+            String placaNueva = vehiculoActualizado.getPlaca();
+            boolean cambiaPlaca = !actual.getPlaca().equals(placaNueva);
+            int filas;
+            if (cambiaPlaca) {
+                if (!indicePlacas.reservar(placaNueva)) {
+                    throw new IllegalArgumentException("Ya existe un vehículo con la placa: " + placaNueva);
+                }
+                filas = escribirConPlacaReservada(placaNueva,
+                        () -> vehiculoRepository.actualizarSiVersion(id, actual.getVersion(), vehiculoActualizado));
+            } else {
+                filas = vehiculoRepository.actualizarSiVersion(id, actual.getVersion(), vehiculoActualizado);
+            }
+
+            if (filas == 1) {
+                if (cambiaPlaca) {
+                    indicePlacas.liberar(actual.getPlaca());
+                }
+                contadorFlota.cambioDeMarca(actual.getMarca(), vehiculoActualizado.getMarca());
+                Vehiculo actualizado = new Vehiculo();
+                copiarDatos(vehiculoActualizado, actualizado);
+                actualizado.setId(id);
+                actualizado.setVersion(actual.getVersion() + 1);
+                instantaneaFlota.guardar(actualizado);
+                canalCambios.publicar(Cambio.Tipo.ACTUALIZADO, actualizado);
+                return actualizado;
+            }
+            if (cambiaPlaca) {
+                indicePlacas.liberar(placaNueva);
+            }
+            if (versionEsperada != null || intento == MAX_INTENTOS_ACTUALIZAR) {
+                throw new VersionConflictoException(id);
+            }
+        }
     }
 
+    /**
+     * Versión vigente del vehículo, para responder a If-None-Match sin cargar la entidad.
+     * Si está en caché se toma de ahí; si no, se consulta sólo la columna de versión.
+     * @return {@code null} si el vehículo no existe
+     */
+    @Compartimento(BULKHEAD_LECTURAS)
+    @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "obtenerVersionFallback")
+    @Medido(Operacion.OBTENER_VERSION)
+    public Long obtenerVersion(Long id) {
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_VEHICULOS);
+        Vehiculo cacheado = cache != null ? cache.get(id, Vehiculo.class) : null;
+        if (cacheado != null) {
+            return cacheado.getVersion();
+        }
+        return enLectura(() -> vehiculoRepository.findVersionById(id)).orElse(null);
+    }
+
+    @Compartimento(BULKHEAD_ESCRITURAS)
     @CircuitBreaker(name = VEHICULO_SERVICE, fallbackMethod = "eliminarFallback")
-    @Retry(name = VEHICULO_SERVICE, fallbackMethod = "eliminarFallback")
+    @Retry(name = REINTENTO_ESCRITURAS, fallbackMethod = "eliminarFallback")
+    @CacheEvict(cacheNames = CacheConfig.CACHE_VEHICULOS, key = "#id")
+    @Medido(Operacion.ELIMINAR)
     public void eliminar(Long id) {
-        metricsConfig.recordOperationTime(() -> {
-            simularErrorAleatorio();
-            meterRegistry.counter("vehiculo.operacion", "tipo", "eliminar").increment();
-            if (!vehiculoRepository.existsById(id)) {
-                throw new EntityNotFoundException("Vehículo no encontrado con ID: " + id);
+        if (diarioEscrituras.hayPendientes()) {
+            throw diferir(EscrituraPendiente.Tipo.ELIMINAR, id, null, null);
+        }
+        inyectorFallos.inyectar(Operacion.ELIMINAR);
+        Vehiculo vehiculo = vehiculoRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Vehículo no encontrado con ID: " + id));
+        vehiculoRepository.delete(vehiculo);
+        indicePlacas.liberar(vehiculo.getPlaca());
+        contadorFlota.baja(vehiculo.getMarca());
+        instantaneaFlota.eliminar(id);
+        canalCambios.publicar(Cambio.Tipo.ELIMINADO, vehiculo);
+    }
+
+    /**
+     * Recorre todo el catálogo en orden de ID entregando cada vehículo al consumidor.
+     * Cada entidad se desacopla del contexto de persistencia en cuanto se procesa,
+     * de modo que la memoria usada no crece con el tamaño de la tabla.
+     * No pasa por el circuit breaker: una respuesta a medio enviar no admite fallback.
+     */
+    @Transactional(readOnly = true)
+    @Medido(Operacion.EXPORTAR)
+    public long exportar(Consumer<Vehiculo> consumidor) {
+        long total = 0;
+        try (Stream<Vehiculo> vehiculos = vehiculoRepository.streamTodos()) {
+            Iterator<Vehiculo> iterador = vehiculos.iterator();
+            while (iterador.hasNext()) {
+                Vehiculo vehiculo = iterador.next();
+                consumidor.accept(vehiculo);
+                vehiculoRepository.desacoplar(vehiculo);
+                total++;
             }
-            vehiculoRepository.deleteById(id);
-            return null;
-        }, "eliminar");
+        }
+        return total;
     }
 
     // Métodos de fallback
-    public List<Vehiculo> obtenerTodosFallback(Exception e) {
-        logger.warn("Fallback para obtenerTodos() - Retornando lista vacía", e);
-        return Collections.emptyList();
+    public Pagina<Vehiculo> obtenerTodosFallback(String marca, Long despuesDeId, int limite, Exception e) {
+        registro.advertir(logger, e, "Fallback para obtenerTodos() - Retornando la instantánea en memoria");
+        return instantaneaFlota.pagina(marca, despuesDeId, limite);
+    }
+
+    // El controlador recorta los vehículos completos de la instantánea a los campos pedidos
+    public Pagina<Vehiculo> obtenerTodosFallback(String marca, Long despuesDeId, int limite, CamposVehiculo campos,
+                                                 Exception e) {
+        return obtenerTodosFallback(marca, despuesDeId, limite, e);
+    }
+
+    public Pagina<Vehiculo> buscarFallback(FiltroVehiculos filtro, OrdenBusqueda orden, boolean descendente,
+                                           Cursor.Posicion despuesDe, int limite, Exception e) {
+        registro.advertir(logger, e, "Fallback para buscar({}) - Retornando página vacía", filtro);
+        return Pagina.vacia();
+    }
+
+    public Pagina<Vehiculo> buscarFallback(FiltroVehiculos filtro, OrdenBusqueda orden, boolean descendente,
+                                           Cursor.Posicion despuesDe, int limite, CamposVehiculo campos,
+                                           Exception e) {
+        return buscarFallback(filtro, orden, descendente, despuesDe, limite, e);
     }
 
     public Vehiculo obtenerPorIdFallback(Long id, Exception e) {
-        logger.warn("Fallback para obtenerPorId({}) - Retornando vehículo por defecto", id, e);
+        Vehiculo vehiculo = e instanceof EntityNotFoundException ? null : instantaneaFlota.obtener(id);
+        if (vehiculo != null) {
+            registro.advertir(logger, e, "Fallback para obtenerPorId({}) - Retornando la copia de la instantánea", id);
+            return vehiculo;
+        }
+        registro.advertir(logger, e, "Fallback para obtenerPorId({}) - Retornando vehículo por defecto", id);
         return new Vehiculo();
     }
 
+    public Vehiculo obtenerPorIdFallback(Long id, CamposVehiculo campos, Exception e) {
+        return obtenerPorIdFallback(id, e);
+    }
+
+    public Vehiculo crearFallback(Vehiculo vehiculo, EscrituraDiferidaException e) {
+        throw e;
+    }
+
     public Vehiculo crearFallback(Vehiculo vehiculo, Exception e) {
-        logger.warn("Fallback para crear() - No se pudo crear el vehículo: {}", vehiculo, e);
+        if (admiteDiferir(e) && esValido(vehiculo) && indicePlacas.reservar(vehiculo.getPlaca())) {
+            throw diferirAlta(vehiculo, e);
+        }
+        registro.advertir(logger, e, "Fallback para crear() - No se pudo crear el vehículo: {}", vehiculo);
         throw new RuntimeException("No se pudo crear el vehículo. Por favor, intente más tarde.", e);
     }
 
-    public Vehiculo actualizarFallback(Long id, Vehiculo vehiculo, Exception e) {
-        logger.warn("Fallback para actualizar() - No se pudo actualizar el vehículo con ID: {}", id, e);
+    public ResultadoLote crearLoteFallback(List<Vehiculo> vehiculos, boolean upsert, EscriturasPendientesException e) {
+        throw e;
+    }
+
+    public ResultadoLote crearLoteFallback(List<Vehiculo> vehiculos, boolean upsert, Exception e) {
+        registro.advertir(logger, e, "Fallback para crearLote() - No se pudo procesar el lote de {} vehículos",
+                vehiculos.size());
+        throw new RuntimeException("No se pudo procesar el lote de vehículos. Por favor, intente más tarde.", e);
+    }
+
+    public Long obtenerVersionFallback(Long id, Exception e) {
+        registro.advertir(logger, e, "Fallback para obtenerVersion({}) - Se responderá con el cuerpo completo", id);
+        return null;
+    }
+
+    // Un conflicto de versión es la respuesta esperada para el cliente, no un fallo del servicio
+    public Vehiculo actualizarFallback(Long id, Vehiculo vehiculo, Long versionEsperada, VersionConflictoException e) {
+        throw e;
+    }
+
+    public Vehiculo actualizarFallback(Long id, Vehiculo vehiculo, Long versionEsperada, EscrituraDiferidaException e) {
+        throw e;
+    }
+
+    public Vehiculo actualizarFallback(Long id, Vehiculo vehiculo, Long versionEsperada,
+                                       EscriturasPendientesException e) {
+        throw e;
+    }
+
+    // Con If-Match la versión tiene que comprobarse ahora: esa actualización no se puede diferir
+    public Vehiculo actualizarFallback(Long id, Vehiculo vehiculo, Long versionEsperada, Exception e) {
+        if (versionEsperada == null && admiteDiferir(e) && esValido(vehiculo)) {
+            throw diferir(EscrituraPendiente.Tipo.ACTUALIZAR, id, vehiculo, e);
+        }
+        registro.advertir(logger, e, "Fallback para actualizar() - No se pudo actualizar el vehículo con ID: {}", id);
         throw new RuntimeException("No se pudo actualizar el vehículo. Por favor, intente más tarde.", e);
     }
 
+    public void eliminarFallback(Long id, EscrituraDiferidaException e) {
+        throw e;
+    }
+
     public void eliminarFallback(Long id, Exception e) {
-        logger.warn("Fallback para eliminar() - No se pudo eliminar el vehículo con ID: {}", id, e);
+        if (admiteDiferir(e)) {
+            throw diferir(EscrituraPendiente.Tipo.ELIMINAR, id, null, e);
+        }
+        registro.advertir(logger, e, "Fallback para eliminar() - No se pudo eliminar el vehículo con ID: {}", id);
         throw new RuntimeException("No se pudo eliminar el vehículo. Por favor, intente más tarde.", e);
     }
 
-    // Método auxiliar para simular errores (solo para pruebas)
-    private void simularErrorAleatorio() {
-        if (simularFallo && Math.random() > 0.7) {
-            logger.warn("Simulando error en el servicio de vehículos");
-            throw new RuntimeException("Error simulado en el servicio de vehículos");
+    private Pagina<Vehiculo> pagina(String marca, Long despuesDeId, int limite, CamposVehiculo campos) {
+        if (instantaneaFlota.sirveLecturas()) {
+            // La instantánea recoge todas las escrituras de esta instancia: la página no se marca como antigua
+            Pagina<Vehiculo> pagina = instantaneaFlota.pagina(marca, despuesDeId, limite);
+            return new Pagina<>(pagina.elementos(), pagina.siguienteCursor());
+        }
+        inyectorFallos.inyectar(Operacion.OBTENER_TODOS);
+        long desde = despuesDeId != null ? despuesDeId : 0L;
+        List<Vehiculo> vehiculos;
+        if (campos != null) {
+            Specification<Vehiculo> especificacion = VehiculoEspecificaciones
+                    .de(new FiltroVehiculos(marca, null, null, null, null, null), OrdenBusqueda.ID)
+                    .and(VehiculoEspecificaciones.despuesDe(OrdenBusqueda.ID, null, desde, false));
+            vehiculos = enLectura(() -> vehiculoRepository.findParciales(
+                    especificacion, Sort.by("id"), campos, limite + 1));
+        } else {
+            Limit limit = Limit.of(limite + 1);
+            vehiculos = enLectura(() -> marca != null
+                    ? vehiculoRepository.findByMarcaAndIdGreaterThanOrderByIdAsc(marca, desde, limit)
+                    : vehiculoRepository.findByIdGreaterThanOrderByIdAsc(desde, limit));
         }
+        return paginar(vehiculos, limite, ultimo -> Cursor.codificar(ultimo.getId()));
+    }
+
+    private Pagina<Vehiculo> paginaBusqueda(FiltroVehiculos filtro, OrdenBusqueda orden, boolean descendente,
+                                            Cursor.Posicion despuesDe, int limite, CamposVehiculo campos) {
+        inyectorFallos.inyectar(Operacion.BUSCAR);
+        Specification<Vehiculo> especificacion = VehiculoEspecificaciones.de(filtro, orden);
+        if (despuesDe != null) {
+            especificacion = especificacion.and(VehiculoEspecificaciones.despuesDe(
+                    orden, orden.convertir(despuesDe.valor()), despuesDe.id(), descendente));
+        }
+        Sort.Direction direccion = descendente ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = orden == OrdenBusqueda.ID
+                ? Sort.by(direccion, "id")
+                : Sort.by(direccion, orden.getPropiedad(), "id");
+        Specification<Vehiculo> filtrado = especificacion;
+        List<Vehiculo> vehiculos = campos != null
+                ? enLectura(() -> vehiculoRepository.findParciales(
+                        filtrado, sort, campos.con(orden.getPropiedad()), limite + 1))
+                : enLectura(() -> vehiculoRepository.findBy(filtrado,
+                        consulta -> consulta.sortBy(sort).limit(limite + 1).all()));
+        return paginar(vehiculos, limite,
+                ultimo -> Cursor.codificar(orden.getPropiedad(), orden.valorDe(ultimo), ultimo.getId()));
+    }
+
+    // Se pide un elemento extra para saber si existe una página siguiente sin hacer un COUNT
+    private static Pagina<Vehiculo> paginar(List<Vehiculo> vehiculos, int limite, Function<Vehiculo, String> cursor) {
+        if (vehiculos.size() <= limite) {
+            return new Pagina<>(vehiculos, null);
+        }
+        List<Vehiculo> elementos = vehiculos.subList(0, limite);
+        return new Pagina<>(elementos, cursor.apply(elementos.get(limite - 1)));
+    }
+
+    /**
+     * Ejecuta la consulta en una transacción de sólo lectura: Hibernate no hace flush ni guarda la
+     * copia de cada entidad cargada que necesitaría para detectar cambios. Se abre sólo cuando hay
+     * que ir a la base de datos, no al servir de la instantánea o de la caché.
+     */
+    private <T> T enLectura(Supplier<T> consulta) {
+        return lectura.execute(estado -> consulta.get());
+    }
+
+    /**
+     * Con la escritura diferida activa, las escrituras que fallan por el servicio (circuito abierto,
+     * base de datos caída o lenta) se anotan en el diario en lugar de perderse. Los errores del
+     * cliente se siguen devolviendo tal cual. Mientras el diario tenga escrituras pendientes las
+     * nuevas se anotan detrás de ellas, para que el drenado no aplique después una escritura más antigua.
+     */
+    private boolean admiteDiferir(Exception e) {
+        return diarioEscrituras.hayCapacidad()
+                && !(e instanceof IllegalArgumentException
+                || e instanceof EntityNotFoundException
+                || e instanceof VersionConflictoException
+                || e instanceof EscrituraDiferidaException);
+    }
+
+    private EscrituraDiferidaException diferir(EscrituraPendiente.Tipo tipo, Long id, Vehiculo vehiculo, Exception e) {
+        long secuencia = diarioEscrituras.registrar(tipo, id, vehiculo);
+        if (e != null) {
+            registro.advertir(logger, null, "Escritura {} diferida con secuencia {} por fallo del servicio: {}", tipo,
+                    secuencia, e.toString());
+        }
+        return new EscrituraDiferidaException(secuencia, tipo);
+    }
+
+    // La placa ya está reservada y lo sigue estando hasta que el drenado aplique el alta
+    private EscrituraDiferidaException diferirAlta(Vehiculo vehiculo, Exception e) {
+        try {
+            return diferir(EscrituraPendiente.Tipo.CREAR, null, vehiculo, e);
+        } catch (UncheckedIOException io) {
+            indicePlacas.liberar(vehiculo.getPlaca());
+            throw io;
+        }
+    }
+
+    /**
+     * Ejecuta la escritura que usa una placa ya reservada en el índice. Si falla la reserva
+     * se libera, salvo que la propia base de datos confirme que la placa existe.
+     */
+    private <T> T escribirConPlacaReservada(String placa, Supplier<T> escritura) {
+        try {
+            return escritura.get();
+        } catch (DataIntegrityViolationException e) {
+            if (vehiculoRepository.existsByPlaca(placa)) {
+                throw new IllegalArgumentException("Ya existe un vehículo con la placa: " + placa, e);
+            }
+            indicePlacas.liberar(placa);
+            throw e;
+        } catch (RuntimeException e) {
+            indicePlacas.liberar(placa);
+            throw e;
+        }
+    }
+
+    private static void exigirValido(Vehiculo vehiculo) {
+        if (!esValido(vehiculo)) {
+            throw new IllegalArgumentException("Faltan campos obligatorios del vehículo");
+        }
+    }
+
+    /**
+     * Si el vehículo trae todos los datos obligatorios. El drenado del diario lo usa para descartar
+     * escrituras que ya nunca podrán aplicarse.
+     */
+    public static boolean esValido(Vehiculo vehiculo) {
+        return vehiculo.getMarca() != null && vehiculo.getModelo() != null && vehiculo.getAnio() != null
+                && vehiculo.getColor() != null && vehiculo.getPlaca() != null && !vehiculo.getPlaca().isBlank();
     }
 
-    // Método para activar/desactivar la simulación de fallos (solo para pruebas)
-    public void setSimularFallo(boolean simularFallo) {
-        this.simularFallo = simularFallo;
+    private static void copiarDatos(Vehiculo origen, Vehiculo destino) {
+        destino.setMarca(origen.getMarca());
+        destino.setModelo(origen.getModelo());
+        destino.setAnio(origen.getAnio());
+        destino.setColor(origen.getColor());
+        destino.setPlaca(origen.getPlaca());
+        destino.setPrecio(origen.getPrecio());
     }
 }
@@ -0,0 +1,30 @@
+package com.example.vehiculosapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * La versión indicada por el cliente (If-Match) ya no es la vigente: otro cliente modificó
+ * el vehículo entre medias. Es un error del cliente, no del servicio, así que ni el circuit
+ * breaker lo cuenta como fallo ni se reintenta.
+ */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class VersionConflictoException extends RuntimeException {
+
+    private final Long versionActual;
+
+    public VersionConflictoException(Long id, Long versionEsperada, Long versionActual) {
+        super("El vehículo con ID " + id + " está en la versión " + versionActual
+                + ", no en la " + versionEsperada);
+        this.versionActual = versionActual;
+    }
+
+    public VersionConflictoException(Long id) {
+        super("El vehículo con ID " + id + " se está modificando de forma concurrente");
+        this.versionActual = null;
+    }
+
+    public Long getVersionActual() {
+        return versionActual;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.vehiculosapi.almacen;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VehiculoRepositoryFueraDelHeapTest {
+
+    // Más de dos segmentos, para que al borrar tres de cada cuatro los huecos llenen varios
+    private static final int VEHICULOS = 40_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VehiculoRepositoryFueraDelHeap repositorio = new VehiculoRepositoryFueraDelHeap(meterRegistry);
+
+    @BeforeEach
+    void cargar() {
+        List<Vehiculo> vehiculos = new ArrayList<>();
+        for (int i = 1; i <= VEHICULOS; i++) {
+            vehiculos.add(vehiculo("P" + i, "Marca" + i % 10));
+        }
+        repositorio.saveAll(vehiculos);
+    }
+
+    @Test
+    void compactaLosHuecosYConservaLosVivosEnOrden() {
+        double memoriaAntes = memoria();
+
+        repositorio.deleteAllById(idsNoMultiplosDe4());
+
+        assertThat(repositorio.count()).isEqualTo(VEHICULOS / 4);
+        assertThat(memoria()).isLessThan(memoriaAntes);
+        assertThat(repositorio.findAll()).extracting(Vehiculo::getId)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, VEHICULOS / 4).map(i -> i * 4).boxed().toList());
+        assertThat(repositorio.findById(8L)).get().extracting(Vehiculo::getPlaca).isEqualTo("P8");
+        assertThat(repositorio.findById(7L)).isEmpty();
+        assertThat(repositorio.existsByPlaca("P8")).isTrue();
+        assertThat(repositorio.existsByPlaca("P7")).isFalse();
+
+        // Los IDs no se reutilizan y la placa de un vehículo borrado queda libre
+        Vehiculo nuevo = repositorio.save(vehiculo("P7", "Marca7"));
+        assertThat(nuevo.getId()).isEqualTo(VEHICULOS + 1L);
+        assertThat(repositorio.findById(nuevo.getId())).get().extracting(Vehiculo::getPlaca).isEqualTo("P7");
+    }
+
+    @Test
+    void alRevertirSeRecuperanLasBajasAunqueSeHayaCompactado() {
+        Vehiculo antes = repositorio.findById(7L).orElseThrow();
+        TransactionTemplate transaccion = new TransactionTemplate(new TransaccionesSinRecurso());
+
+        transaccion.executeWithoutResult(estado -> {
+            repositorio.deleteAllById(idsNoMultiplosDe4());
+            repositorio.save(vehiculo("NUEVA", "Marca1"));
+            assertThat(repositorio.count()).isEqualTo(VEHICULOS / 4 + 1);
+            estado.setRollbackOnly();
+        });
+
+        assertThat(repositorio.count()).isEqualTo(VEHICULOS);
+        assertThat(repositorio.findById(7L)).get().isEqualTo(antes);
+        assertThat(repositorio.existsByPlaca("P7")).isTrue();
+        assertThat(repositorio.existsByPlaca("NUEVA")).isFalse();
+        assertThat(repositorio.findAll()).extracting(Vehiculo::getId)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, VEHICULOS).boxed().toList());
+        assertThat(repositorio.findByIdGreaterThanOrderByIdAsc(6L, Limit.of(3)))
+                .extracting(Vehiculo::getPlaca).containsExactly("P7", "P8", "P9");
+    }
+
+    @Test
+    void unAltaConElIdDeOtroVehiculoNoLoSustituye() {
+        Vehiculo intruso = vehiculo("OTRA", "Marca1");
+        intruso.setId(8L);
+
+        assertThatThrownBy(() -> repositorio.save(intruso)).isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(repositorio.findById(8L)).get().extracting(Vehiculo::getPlaca).isEqualTo("P8");
+        assertThat(repositorio.existsByPlaca("OTRA")).isFalse();
+    }
+
+    @Test
+    void consultaPorEjemplo() {
+        Vehiculo ejemplo = new Vehiculo();
+        ejemplo.setMarca("Marca3");
+        assertThat(repositorio.count(Example.of(ejemplo))).isEqualTo(VEHICULOS / 10);
+
+        ejemplo.setPlaca("p1");
+        ExampleMatcher empiezaPor = ExampleMatcher.matching()
+                .withMatcher("placa", propiedad -> propiedad.startsWith().ignoreCase());
+        assertThat(repositorio.findAll(Example.of(ejemplo, empiezaPor)))
+                .isNotEmpty()
+                .allSatisfy(vehiculo -> {
+                    assertThat(vehiculo.getPlaca()).startsWith("P1");
+                    assertThat(vehiculo.getMarca()).isEqualTo("Marca3");
+                });
+    }
+
+    private static List<Long> idsNoMultiplosDe4() {
+        return LongStream.rangeClosed(1, VEHICULOS).filter(id -> id % 4 != 0).boxed().toList();
+    }
+
+    private double memoria() {
+        return meterRegistry.get("vehiculos.almacen.memoria").gauge().value();
+    }
+
+    private static Vehiculo vehiculo(String placa, String marca) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setMarca(marca);
+        vehiculo.setModelo("Modelo");
+        vehiculo.setAnio(2020);
+        vehiculo.setColor("Rojo");
+        vehiculo.setPlaca(placa);
+        vehiculo.setPrecio(20000.0);
+        return vehiculo;
+    }
+}
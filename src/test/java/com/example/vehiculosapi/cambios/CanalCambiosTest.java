@@ -0,0 +1,121 @@
+package com.example.vehiculosapi.cambios;
+
+import com.example.vehiculosapi.config.FabricaHilos;
+import com.example.vehiculosapi.controller.VehiculoCambiosController;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CanalCambiosTest {
+
+    private static final Pattern ID = Pattern.compile("^id:(.*)$", Pattern.MULTILINE);
+    private static final Pattern EPOCA = Pattern.compile("\"epoca\":\"([^\"]+)\"");
+
+    private CanalCambios canal;
+    private MockMvc mockMvc;
+
+    @AfterEach
+    void detener() {
+        canal.detener();
+    }
+
+    @Test
+    void alReconectarseRecibeSoloLoQueSePerdio() throws Exception {
+        crearCanal(100);
+        publicar(1L, 2L, 3L);
+
+        // Un ID de otra época (un arranque anterior) no sirve: reinicio y todo el anillo
+        String primera = contenido(suscribir("antigua-2"), 4);
+        assertThat(primera).contains("event:reinicio", "\"primeraSecuencia\":1");
+        String epoca = epoca(primera);
+        assertThat(ids(primera)).containsExactly(epoca + "-0", epoca + "-1", epoca + "-2", epoca + "-3");
+
+        MockHttpServletResponse reanudada = suscribir(epoca + "-1");
+        assertThat(ids(contenido(reanudada, 2))).containsExactly(epoca + "-2", epoca + "-3");
+
+        // Y sigue recibiendo los nuevos, sin reinicio
+        publicar(4L);
+        String tras = contenido(reanudada, 3);
+        assertThat(ids(tras)).containsExactly(epoca + "-2", epoca + "-3", epoca + "-4");
+        assertThat(tras).doesNotContain("reinicio").contains("event:CREADO", "\"id\":4");
+    }
+
+    @Test
+    void siLoPerdidoYaNoEstaEnElAnilloRecibeUnReinicio() throws Exception {
+        crearCanal(4);
+        publicar(1L, 2L, 3L);
+        String epoca = epoca(contenido(suscribir("antigua-0"), 4));
+        publicar(4L, 5L, 6L);
+
+        // El anillo guarda del 3 al 6: el 2 se perdió
+        String reanudada = contenido(suscribir(epoca + "-1"), 5);
+
+        assertThat(reanudada).contains("event:reinicio", "\"primeraSecuencia\":3");
+        assertThat(ids(reanudada)).containsExactly(epoca + "-2", epoca + "-3", epoca + "-4", epoca + "-5",
+                epoca + "-6");
+    }
+
+    @Test
+    void unIdDeEventoMalFormadoSeRechaza() throws Exception {
+        crearCanal(100);
+
+        mockMvc.perform(get("/api/vehiculos/cambios").header("Last-Event-ID", "abc-xyz"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void crearCanal(int capacidad) {
+        canal = new CanalCambios(new ObjectMapper(), new SimpleMeterRegistry(),
+                new FabricaHilos(new MockEnvironment()), capacidad, 100, Duration.ofSeconds(10), Duration.ofHours(1));
+        mockMvc = MockMvcBuilders.standaloneSetup(new VehiculoCambiosController(canal)).build();
+    }
+
+    private void publicar(Long... ids) {
+        for (Long id : ids) {
+            Vehiculo vehiculo = new Vehiculo();
+            vehiculo.setId(id);
+            vehiculo.setPlaca("P" + id);
+            canal.publicar(Cambio.Tipo.CREADO, vehiculo);
+        }
+    }
+
+    private MockHttpServletResponse suscribir(String ultimoEvento) throws Exception {
+        return mockMvc.perform(get("/api/vehiculos/cambios").header("Last-Event-ID", ultimoEvento))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    // Los eventos se envían desde otro hilo: se espera a que lleguen los que se esperan
+    private static String contenido(MockHttpServletResponse respuesta, int eventos) throws Exception {
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> ids(respuesta.getContentAsString()).size() >= eventos);
+        return respuesta.getContentAsString();
+    }
+
+    private static List<String> ids(String contenido) {
+        return ID.matcher(contenido).results().map(resultado -> resultado.group(1)).toList();
+    }
+
+    private static String epoca(String contenido) {
+        Matcher epoca = EPOCA.matcher(contenido);
+        assertThat(epoca.find()).isTrue();
+        return epoca.group(1);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.vehiculosapi.diferido;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.repository.VehiculoRepository;
+import com.example.vehiculosapi.service.IndicePlacas;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DiarioEscriturasTest {
+
+    @TempDir
+    Path directorio;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<DiarioEscrituras> abiertos = new ArrayList<>();
+    private IndicePlacas indicePlacas;
+
+    @AfterEach
+    void cerrar() throws IOException {
+        for (DiarioEscrituras diario : abiertos) {
+            diario.cerrar();
+        }
+    }
+
+    @Test
+    void trasReiniciarSeReanudanLasEscriturasNoConfirmadas() throws IOException {
+        DiarioEscrituras diario = abrir();
+        diario.registrar(EscrituraPendiente.Tipo.CREAR, null, vehiculo("AAA111"));
+        diario.registrar(EscrituraPendiente.Tipo.CREAR, null, vehiculo("BBB222"));
+        diario.registrar(EscrituraPendiente.Tipo.ACTUALIZAR, 5L, vehiculo("CCC333"));
+        diario.registrar(EscrituraPendiente.Tipo.ELIMINAR, 7L, null);
+        diario.confirmar(1);
+        diario.cerrar();
+
+        DiarioEscrituras reabierto = abrir();
+
+        List<EscrituraPendiente> pendientes = reabierto.siguientes(10);
+        assertThat(pendientes).extracting(EscrituraPendiente::secuencia).containsExactly(2L, 3L, 4L);
+        assertThat(pendientes).extracting(EscrituraPendiente::tipo).containsExactly(
+                EscrituraPendiente.Tipo.CREAR, EscrituraPendiente.Tipo.ACTUALIZAR, EscrituraPendiente.Tipo.ELIMINAR);
+        assertThat(pendientes.get(0).vehiculo().getPlaca()).isEqualTo("BBB222");
+        assertThat(pendientes.get(1).id()).isEqualTo(5L);
+        assertThat(pendientes.get(2).id()).isEqualTo(7L);
+        // La placa del alta pendiente sigue comprometida; la del alta ya aplicada la carga el índice desde la BD
+        assertThat(indicePlacas.contiene("BBB222")).isTrue();
+        assertThat(indicePlacas.contiene("AAA111")).isFalse();
+        assertThat(reabierto.registrar(EscrituraPendiente.Tipo.ELIMINAR, 8L, null)).isEqualTo(5L);
+    }
+
+    @Test
+    void descartaElRegistroAMedioEscribirAlFinal() throws IOException {
+        DiarioEscrituras diario = abrir();
+        diario.registrar(EscrituraPendiente.Tipo.ELIMINAR, 1L, null);
+        diario.registrar(EscrituraPendiente.Tipo.ELIMINAR, 2L, null);
+        diario.cerrar();
+        // Cabecera de un registro de 100 bytes del que sólo llegaron 3
+        Files.write(directorio.resolve("escrituras.diario"), new byte[]{0, 0, 0, 100, 1, 2, 3, 4, 5, 6, 7},
+                StandardOpenOption.APPEND);
+
+        DiarioEscrituras reabierto = abrir();
+        reabierto.registrar(EscrituraPendiente.Tipo.ELIMINAR, 3L, null);
+        reabierto.cerrar();
+
+        assertThat(abrir().siguientes(10)).extracting(EscrituraPendiente::id).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void unaConfirmacionSinMarcaEnDiscoNoRetiraLasEscrituras() throws IOException {
+        DiarioEscrituras diario = abrir();
+        diario.registrar(EscrituraPendiente.Tipo.ELIMINAR, 1L, null);
+        diario.registrar(EscrituraPendiente.Tipo.ELIMINAR, 2L, null);
+        // Un directorio donde va el temporal de la marca hace fallar su escritura
+        Path temporal = Files.createDirectory(directorio.resolve("escrituras.aplicadas.tmp"));
+
+        diario.confirmar(1);
+
+        assertThat(diario.hayPendientes()).isTrue();
+        assertThat(diario.siguientes(10)).isEmpty();
+
+        Files.delete(temporal);
+
+        assertThat(diario.siguientes(10)).extracting(EscrituraPendiente::id).containsExactly(2L);
+        diario.cerrar();
+        assertThat(abrir().siguientes(10)).extracting(EscrituraPendiente::id).containsExactly(2L);
+    }
+
+    @Test
+    void cuandoNoQuedaNadaPendienteSeTrunca() throws IOException {
+        DiarioEscrituras diario = abrir();
+        diario.registrar(EscrituraPendiente.Tipo.ELIMINAR, 1L, null);
+        diario.confirmar(1);
+
+        assertThat(diario.hayPendientes()).isFalse();
+        assertThat(Files.size(directorio.resolve("escrituras.diario"))).isZero();
+        diario.cerrar();
+        DiarioEscrituras reabierto = abrir();
+        assertThat(reabierto.siguientes(10)).isEmpty();
+        assertThat(reabierto.registrar(EscrituraPendiente.Tipo.ELIMINAR, 2L, null)).isEqualTo(2L);
+    }
+
+    private DiarioEscrituras abrir() throws IOException {
+        indicePlacas = new IndicePlacas(mock(VehiculoRepository.class), new SimpleMeterRegistry());
+        DiarioEscrituras diario = new DiarioEscrituras(objectMapper, indicePlacas, new SimpleMeterRegistry(), true,
+                directorio, false, 100);
+        diario.abrir();
+        abiertos.add(diario);
+        return diario;
+    }
+
+    private static Vehiculo vehiculo(String placa) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setMarca("Toyota");
+        vehiculo.setModelo("Corolla");
+        vehiculo.setAnio(2020);
+        vehiculo.setColor("Rojo");
+        vehiculo.setPlaca(placa);
+        vehiculo.setPrecio(20000.0);
+        return vehiculo;
+    }
+}
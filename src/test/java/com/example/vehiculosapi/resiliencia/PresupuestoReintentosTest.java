@@ -0,0 +1,86 @@
+package com.example.vehiculosapi.resiliencia;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PresupuestoReintentosTest {
+
+    private static final int MAXIMO_INTENTOS = 3;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void elUltimoIntentoFallidoNoConsumeSaldo() {
+        PresupuestoReintentos presupuesto = new PresupuestoReintentos(10, 5, 100, meterRegistry);
+        AtomicInteger intentos = new AtomicInteger();
+
+        assertThatThrownBy(() -> llamadaConReintentos(presupuesto, intentos).get())
+                .isInstanceOf(IllegalStateException.class);
+
+        // 5 + 0,1 de la llamada - 2 reintentos; el tercer fallo no va seguido de ningún reintento
+        assertThat(intentos).hasValue(MAXIMO_INTENTOS);
+        assertThat(presupuesto.getDisponibles()).isEqualTo(3.1);
+        assertThat(meterRegistry.get("vehiculos.reintentos.denegados").counter().count()).isZero();
+    }
+
+    @Test
+    void sinSaldoNoSeReintenta() {
+        PresupuestoReintentos presupuesto = new PresupuestoReintentos(0, 0, 100, meterRegistry);
+        AtomicInteger intentos = new AtomicInteger();
+
+        assertThatThrownBy(() -> llamadaConReintentos(presupuesto, intentos).get())
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(intentos).hasValue(1);
+        assertThat(meterRegistry.get("vehiculos.reintentos.denegados").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void unaLlamadaQueAciertaSoloAporta() {
+        PresupuestoReintentos presupuesto = new PresupuestoReintentos(10, 5, 100, meterRegistry);
+        AtomicInteger intentos = new AtomicInteger();
+        Supplier<String> llamada = llamadaConReintentos(presupuesto, intentos, 1);
+
+        assertThat(llamada.get()).isEqualTo("ok");
+
+        // Falla una vez: consume un reintento y el segundo intento acierta
+        assertThat(intentos).hasValue(2);
+        assertThat(presupuesto.getDisponibles()).isEqualTo(4.1);
+    }
+
+    private static Supplier<String> llamadaConReintentos(PresupuestoReintentos presupuesto, AtomicInteger intentos) {
+        return llamadaConReintentos(presupuesto, intentos, Integer.MAX_VALUE);
+    }
+
+    // Como en el servicio: el interceptor del presupuesto por fuera y el reintento de resilience4j por dentro
+    private static Supplier<String> llamadaConReintentos(PresupuestoReintentos presupuesto, AtomicInteger intentos,
+                                                         int fallos) {
+        Retry retry = Retry.of("prueba", RetryConfig.custom()
+                .maxAttempts(MAXIMO_INTENTOS)
+                .waitDuration(Duration.ofMillis(1))
+                .retryOnException(e -> presupuesto.reintentar(MAXIMO_INTENTOS))
+                .build());
+        Supplier<String> operacion = () -> retry.executeSupplier(() -> {
+            if (intentos.incrementAndGet() <= fallos) {
+                throw new IllegalStateException("Fallo del backend");
+            }
+            return "ok";
+        });
+        ProxyFactory fabrica = new ProxyFactory(operacion);
+        fabrica.addInterface(Supplier.class);
+        fabrica.addAdvice(new PresupuestoReintentosInterceptor(() -> presupuesto));
+        @SuppressWarnings("unchecked")
+        Supplier<String> proxy = (Supplier<String>) fabrica.getProxy();
+        return proxy;
+    }
+}
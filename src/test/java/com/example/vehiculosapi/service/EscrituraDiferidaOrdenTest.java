@@ -0,0 +1,113 @@
+package com.example.vehiculosapi.service;
+
+import com.example.vehiculosapi.diferido.DiarioEscrituras;
+import com.example.vehiculosapi.diferido.DrenadorEscrituras;
+import com.example.vehiculosapi.diferido.EscrituraPendiente;
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.repository.VehiculoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// El drenado se lanza a mano: el planificado no llega a ejecutarse durante la prueba
+@SpringBootTest(properties = {
+        "vehiculos.escritura-diferida.activo=true",
+        "vehiculos.escritura-diferida.directorio=${java.io.tmpdir}/vehiculos-api-prueba-${random.uuid}",
+        "vehiculos.escritura-diferida.sincronizar=false",
+        "vehiculos.escritura-diferida.intervalo-drenado=1h",
+        "vehiculos.calentamiento.activo=false"})
+@AutoConfigureMockMvc
+class EscrituraDiferidaOrdenTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private VehiculoService vehiculoService;
+
+    @Autowired
+    private VehiculoRepository vehiculoRepository;
+
+    @Autowired
+    private DiarioEscrituras diario;
+
+    @Autowired
+    private DrenadorEscrituras drenador;
+
+    @Autowired
+    private InstantaneaFlota instantanea;
+
+    @Test
+    void conEscriturasPendientesNadaSeAdelantaAlDiario() throws Exception {
+        Vehiculo creado = vehiculoService.crear(vehiculo("ORDEN1", "Original"));
+        Long id = creado.getId();
+        // Como una actualización sin If-Match diferida mientras la base de datos no respondía
+        diario.registrar(EscrituraPendiente.Tipo.ACTUALIZAR, id, vehiculo("ORDEN1", "DiferidoViejo"));
+
+        mockMvc.perform(put("/api/vehiculos/{id}", id)
+                        .header(HttpHeaders.IF_MATCH, "\"" + creado.getVersion() + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(vehiculo("ORDEN1", "IfMatch"))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3600"));
+        mockMvc.perform(post("/api/vehiculos/lote").param("upsert", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(vehiculo("ORDEN1", "Upsert")))))
+                .andExpect(status().isServiceUnavailable());
+        assertThat(vehiculoRepository.findById(id)).get().extracting(Vehiculo::getModelo).isEqualTo("Original");
+
+        // Sin If-Match se anota detrás de la pendiente
+        mockMvc.perform(put("/api/vehiculos/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(vehiculo("ORDEN1", "DiferidoNuevo"))))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.operacion").value("ACTUALIZAR"));
+
+        drenador.drenar();
+
+        assertThat(diario.hayPendientes()).isFalse();
+        Vehiculo drenado = vehiculoRepository.findById(id).orElseThrow();
+        assertThat(drenado.getModelo()).isEqualTo("DiferidoNuevo");
+        assertThat(instantanea.obtener(id).getModelo()).isEqualTo("DiferidoNuevo");
+        assertThat(instantanea.obtener(id).getVersion()).isEqualTo(drenado.getVersion());
+
+        // Con el diario vacío, If-Match vuelve a aplicarse y nada lo pisa después
+        mockMvc.perform(put("/api/vehiculos/{id}", id)
+                        .header(HttpHeaders.IF_MATCH, "\"" + drenado.getVersion() + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(vehiculo("ORDEN1", "IfMatch"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (drenado.getVersion() + 1) + "\""));
+        drenador.drenar();
+        assertThat(vehiculoRepository.findById(id)).get().extracting(Vehiculo::getModelo).isEqualTo("IfMatch");
+        assertThat(instantanea.obtener(id).getModelo()).isEqualTo("IfMatch");
+    }
+
+    private static Vehiculo vehiculo(String placa, String modelo) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setMarca("Toyota");
+        vehiculo.setModelo(modelo);
+        vehiculo.setAnio(2020);
+        vehiculo.setColor("Rojo");
+        vehiculo.setPlaca(placa);
+        vehiculo.setPrecio(20000.0);
+        return vehiculo;
+    }
+}
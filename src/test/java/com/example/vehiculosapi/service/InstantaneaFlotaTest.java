@@ -0,0 +1,62 @@
+package com.example.vehiculosapi.service;
+
+import com.example.vehiculosapi.model.Vehiculo;
+import com.example.vehiculosapi.repository.VehiculoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Sin transacción en curso cada cambio se aplica al momento, en el orden en que llegan los hooks
+class InstantaneaFlotaTest {
+
+    private final InstantaneaFlota instantanea = new InstantaneaFlota(mock(VehiculoRepository.class),
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), true, true);
+
+    @Test
+    void unaCopiaMasAntiguaQueLlegaTardeNoSustituyeALaGuardada() {
+        instantanea.guardar(vehiculo(1L, 0L, "Toyota"));
+        instantanea.guardar(vehiculo(1L, 2L, "Mazda"));
+        instantanea.guardar(vehiculo(1L, 1L, "Toyota"));
+        instantanea.guardarTodos(List.of(vehiculo(1L, 2L, "Honda"), vehiculo(2L, 0L, "Toyota")));
+
+        assertThat(instantanea.obtener(1L).getMarca()).isEqualTo("Mazda");
+        assertThat(instantanea.obtener(1L).getVersion()).isEqualTo(2L);
+        assertThat(instantanea.pagina("Mazda", null, 10).elementos()).extracting(Vehiculo::getId).containsExactly(1L);
+        assertThat(instantanea.pagina("Toyota", null, 10).elementos()).extracting(Vehiculo::getId).containsExactly(2L);
+        assertThat(instantanea.pagina("Honda", null, 10).elementos()).isEmpty();
+
+        instantanea.guardar(vehiculo(1L, 3L, "Honda"));
+        assertThat(instantanea.obtener(1L).getMarca()).isEqualTo("Honda");
+    }
+
+    @Test
+    void unVehiculoBorradoNoVuelveConUnCambioQueLlegaDespues() {
+        instantanea.guardar(vehiculo(1L, 0L, "Toyota"));
+        instantanea.guardar(vehiculo(2L, 0L, "Toyota"));
+        instantanea.eliminar(1L);
+        instantanea.guardar(vehiculo(1L, 1L, "Toyota"));
+        instantanea.guardarTodos(List.of(vehiculo(1L, 5L, "Mazda")));
+
+        assertThat(instantanea.obtener(1L)).isNull();
+        assertThat(instantanea.pagina(null, null, 10).elementos()).extracting(Vehiculo::getId).containsExactly(2L);
+        assertThat(instantanea.pagina("Mazda", null, 10).elementos()).isEmpty();
+    }
+
+    private static Vehiculo vehiculo(Long id, Long version, String marca) {
+        Vehiculo vehiculo = new Vehiculo();
+        vehiculo.setId(id);
+        vehiculo.setVersion(version);
+        vehiculo.setMarca(marca);
+        vehiculo.setModelo("Corolla");
+        vehiculo.setAnio(2020);
+        vehiculo.setColor("Rojo");
+        vehiculo.setPlaca("P" + id);
+        vehiculo.setPrecio(20000.0);
+        return vehiculo;
+    }
+}